@@ -0,0 +1,73 @@
+package at.ac.tuwien.qse.sepm.dao;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * DAO for the fingerprints of photo files.
+ */
+public interface FingerprintDAO {
+
+    /**
+     * Store the fingerprint of a file, replacing the existing fingerprint of the file.
+     *
+     * @param file file the fingerprint belongs to
+     * @param fingerprint fingerprint that should be stored
+     * @throws DAOException if operation fails
+     */
+    void put(Path file, Fingerprint fingerprint) throws DAOException;
+
+    /**
+     * Store the fingerprints of several files with a single batch.
+     *
+     * @param fingerprints fingerprints that should be stored mapped by file
+     * @throws DAOException if operation fails
+     */
+    void putAll(Map<Path, Fingerprint> fingerprints) throws DAOException;
+
+    /**
+     * Read all stored fingerprints.
+     *
+     * @return fingerprints mapped by file
+     * @throws DAOException if operation fails
+     */
+    Map<Path, Fingerprint> readAll() throws DAOException;
+
+    /**
+     * Delete the fingerprint of a file.
+     * If there is no fingerprint for the file nothing happens.
+     *
+     * @param file file whose fingerprint should be deleted
+     * @throws DAOException if operation fails
+     */
+    void delete(Path file) throws DAOException;
+}
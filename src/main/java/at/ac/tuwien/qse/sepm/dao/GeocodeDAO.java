@@ -0,0 +1,58 @@
+package at.ac.tuwien.qse.sepm.dao;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Place;
+
+/**
+ * DAO for the results of reverse geocoding, stored per cell of a grid over latitude and
+ * longitude.
+ */
+public interface GeocodeDAO {
+
+    /**
+     * Read the place that was stored for a cell.
+     *
+     * @param cellLatitude row of the cell
+     * @param cellLongitude column of the cell
+     * @return place with the city, country and position that were stored, or null if there is
+     *         none
+     * @throws DAOException if operation fails
+     */
+    Place read(int cellLatitude, int cellLongitude) throws DAOException;
+
+    /**
+     * Store the place of a cell, replacing the place that was stored before.
+     *
+     * @param cellLatitude row of the cell
+     * @param cellLongitude column of the cell
+     * @param place place whose city, country and position are stored
+     * @throws DAOException if operation fails
+     */
+    void put(int cellLatitude, int cellLongitude, Place place) throws DAOException;
+}
@@ -32,7 +32,9 @@ import at.ac.tuwien.qse.sepm.entities.Photo;
 
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface PhotoDAO {
 
@@ -53,6 +55,24 @@ public interface PhotoDAO {
      */
     void update(Photo photo) throws DAOException;
 
+    /**
+     * Create several photos in the data store with a single batch.
+     *
+     * The ids of the photos are set when the method returns.
+     *
+     * @param photos Photos which to create.
+     * @throws DAOException If the store fails to create the records.
+     */
+    void createAll(Collection<Photo> photos) throws DAOException;
+
+    /**
+     * Update several existing photos with a single batch.
+     *
+     * @param photos Descriptions of the photos to update together with the new values.
+     * @throws DAOException If the data store fails to update the records.
+     */
+    void updateAll(Collection<Photo> photos) throws DAOException;
+
     /**
      * Delete an existing photo.
      *
@@ -95,6 +115,15 @@ public interface PhotoDAO {
      */
     List<Path> readAllPaths() throws DAOException;
 
+    /**
+     * Retrieve the ids of the photos with the given paths.
+     *
+     * @param files Paths of the desired photos.
+     * @return The ids mapped by path; paths of which no photo exists are not contained.
+     * @throws DAOException If the data store fails to retrieve the records.
+     */
+    Map<Path, Integer> readIdsByFiles(Collection<Path> files) throws DAOException;
+
     /**
      * Retrieve a list of photos from a given journey
      *
@@ -31,6 +31,7 @@ import at.ac.tuwien.qse.sepm.entities.Photo;
 import at.ac.tuwien.qse.sepm.entities.Tag;
 import at.ac.tuwien.qse.sepm.entities.validators.ValidationException;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PhotoTagDAO {
@@ -74,6 +75,25 @@ public interface PhotoTagDAO {
      */
     void deleteAllEntriesOfSpecificPhoto(Photo photo) throws DAOException;
 
+    /**
+     * Create persistent photo-tag entries that link every photo in <tt>photos</tt> to all of its
+     * tags, using a single batch. Unlike createPhotoTag, entries are not checked for existence,
+     * so existing entries must be deleted first.
+     *
+     * @param photos must not be null; ids of the photos and their tags must not be null;
+     * @throws DAOException: if an exception occurs on persistence layer
+     */
+    void createPhotoTags(Collection<Photo> photos) throws DAOException;
+
+    /**
+     * Delete if existent all photo-tag entries of the photos in <tt>photos</tt>, using a single
+     * batch.
+     *
+     * @param photos must not be null; ids of the photos must not be null;
+     * @throws DAOException: if an exception occurs on persistence layer
+     */
+    void deleteAllEntriesOfPhotos(Collection<Photo> photos) throws DAOException;
+
     /**
      * Return list of all tags which are currently set for <tt>photo</tt>.
      *
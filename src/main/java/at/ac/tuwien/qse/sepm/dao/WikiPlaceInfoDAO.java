@@ -0,0 +1,60 @@
+package at.ac.tuwien.qse.sepm.dao;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Place;
+import at.ac.tuwien.qse.sepm.entities.WikiPlaceInfo;
+
+import java.time.LocalDateTime;
+
+/**
+ * DAO for the Wikipedia information of places, stored per city and country.
+ */
+public interface WikiPlaceInfoDAO {
+
+    /**
+     * Read the information that was stored for the city and country of a place.
+     *
+     * @param place place whose city and country are looked up
+     * @param after earliest time at which the information may have been stored
+     * @return stored information, or null if there is none or if it was stored before
+     *         <tt>after</tt>
+     * @throws DAOException if operation fails
+     */
+    WikiPlaceInfo read(Place place, LocalDateTime after) throws DAOException;
+
+    /**
+     * Store the information of the city and country of a place, replacing the information that
+     * was stored before.
+     *
+     * @param place place whose city and country are the key of the information
+     * @param info information that is stored with the current time
+     * @throws DAOException if operation fails
+     */
+    void put(Place place, WikiPlaceInfo info) throws DAOException;
+}
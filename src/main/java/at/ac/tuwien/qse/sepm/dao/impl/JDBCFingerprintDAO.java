@@ -0,0 +1,121 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.FingerprintDAO;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Database-based implementation of FingerprintDAO.
+ */
+public class JDBCFingerprintDAO extends JDBCDAOBase implements FingerprintDAO {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String MERGE_STATEMENT = "MERGE INTO Fingerprint(path, size, modified, hash) "
+            + "KEY(path) VALUES (?, ?, ?, ?)";
+    private static final String READ_ALL_STATEMENT = "SELECT path, size, modified, hash FROM Fingerprint";
+    private static final String DELETE_STATEMENT = "DELETE FROM Fingerprint WHERE path = ?";
+
+    @Override public void put(Path file, Fingerprint fingerprint) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        if (fingerprint == null) throw new IllegalArgumentException();
+        LOGGER.debug("Storing fingerprint {} for {}", fingerprint, file);
+
+        try {
+            jdbcTemplate.update(MERGE_STATEMENT, file.toString(), fingerprint.getSize(),
+                    fingerprint.getModified(), fingerprint.getHash());
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to store fingerprint", ex);
+            throw new DAOException("Failed to store fingerprint", ex);
+        }
+    }
+
+    @Override public void putAll(Map<Path, Fingerprint> fingerprints) throws DAOException {
+        if (fingerprints == null) throw new IllegalArgumentException();
+        LOGGER.debug("Storing {} fingerprints", fingerprints.size());
+        if (fingerprints.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> arguments = new ArrayList<>(fingerprints.size());
+        fingerprints.forEach((file, fingerprint) -> arguments.add(new Object[] {
+                file.toString(), fingerprint.getSize(), fingerprint.getModified(), fingerprint.getHash()
+        }));
+        try {
+            jdbcTemplate.batchUpdate(MERGE_STATEMENT, arguments);
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to store fingerprints", ex);
+            throw new DAOException("Failed to store fingerprints", ex);
+        }
+    }
+
+    @Override public Map<Path, Fingerprint> readAll() throws DAOException {
+        LOGGER.debug("Retrieving all fingerprints");
+
+        Map<Path, Fingerprint> result = new HashMap<>();
+        try {
+            jdbcTemplate.query(READ_ALL_STATEMENT, rs -> {
+                Fingerprint fingerprint = new Fingerprint(
+                        rs.getLong(2),
+                        rs.getLong(3),
+                        rs.getLong(4)
+                );
+                result.put(Paths.get(rs.getString(1)), fingerprint);
+            });
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to read fingerprints", ex);
+            throw new DAOException("Failed to read fingerprints", ex);
+        }
+        LOGGER.debug("Retrieved {} fingerprints", result.size());
+        return result;
+    }
+
+    @Override public void delete(Path file) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        LOGGER.debug("Deleting fingerprint of {}", file);
+
+        try {
+            jdbcTemplate.update(DELETE_STATEMENT, file.toString());
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to delete fingerprint", ex);
+            throw new DAOException("Failed to delete fingerprint", ex);
+        }
+    }
+}
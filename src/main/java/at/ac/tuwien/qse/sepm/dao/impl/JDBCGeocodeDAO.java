@@ -0,0 +1,82 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.GeocodeDAO;
+import at.ac.tuwien.qse.sepm.entities.Place;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+
+import java.util.List;
+
+/**
+ * Database-based implementation of GeocodeDAO.
+ */
+public class JDBCGeocodeDAO extends JDBCDAOBase implements GeocodeDAO {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String READ_STATEMENT = "SELECT city, country, latitude, longitude "
+            + "FROM GeocodeCache WHERE cell_latitude = ? AND cell_longitude = ?";
+    private static final String MERGE_STATEMENT = "MERGE INTO GeocodeCache(cell_latitude, "
+            + "cell_longitude, city, country, latitude, longitude) KEY(cell_latitude, cell_longitude) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Override public Place read(int cellLatitude, int cellLongitude) throws DAOException {
+        LOGGER.debug("Reading geocode of cell {}, {}", cellLatitude, cellLongitude);
+
+        try {
+            List<Place> places = jdbcTemplate.query(READ_STATEMENT, (rs, row) -> new Place(
+                    null,
+                    rs.getString(1),
+                    rs.getString(2),
+                    rs.getDouble(3),
+                    rs.getDouble(4)
+            ), cellLatitude, cellLongitude);
+            return places.isEmpty() ? null : places.get(0);
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to read geocode", ex);
+            throw new DAOException("Failed to read geocode", ex);
+        }
+    }
+
+    @Override public void put(int cellLatitude, int cellLongitude, Place place) throws DAOException {
+        if (place == null) throw new IllegalArgumentException();
+        LOGGER.debug("Storing geocode {} for cell {}, {}", place, cellLatitude, cellLongitude);
+
+        try {
+            jdbcTemplate.update(MERGE_STATEMENT, cellLatitude, cellLongitude, place.getCity(),
+                    place.getCountry(), place.getLatitude(), place.getLongitude());
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to store geocode", ex);
+            throw new DAOException("Failed to store geocode", ex);
+        }
+    }
+}
@@ -29,45 +29,47 @@ package at.ac.tuwien.qse.sepm.dao.impl;
 
 import at.ac.tuwien.qse.sepm.dao.*;
 import at.ac.tuwien.qse.sepm.entities.*;
-import at.ac.tuwien.qse.sepm.entities.validators.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
-import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
 
 import javax.sql.DataSource;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Collectors;
 
 public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
 
-    private static final String READ_ALL_STATEMENT = "SELECT id, photographer_id, path, rating, datetime, latitude, longitude, place_id, journey_id FROM PHOTO;";
     private static final String READ_ALL_PATHS_STATEMENT = "SELECT path FROM PHOTO;";
     private static final String DELETE_STATEMENT = "Delete from Photo where id =?";
-    private static final String GET_BY_ID_STATEMENT = "SELECT id, photographer_id, path, rating, datetime, latitude, longitude, place_id, journey_id FROM Photo where id=?";
-    private static final String GET_BY_FILE_STATEMENT = "SELECT id, photographer_id, path, rating, datetime, latitude, longitude, place_id, journey_id FROM Photo where path=?";
+    private static final String INSERT_STATEMENT = "INSERT INTO Photo(photographer_id, path, rating, datetime, latitude, longitude, place_id, journey_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String READ_IDS_STATEMENT = "SELECT id, path FROM Photo WHERE path IN (%s)";
+    // Maximum number of paths per id query, which must be a power of two.
+    private static final int READ_IDS_CHUNK_SIZE = 512;
     private static final String UPDATE_STATEMENT = "UPDATE Photo SET photographer_id=?, path=?, rating=?, datetime=?, latitude=?, longitude=?, place_id=?, journey_id=? WHERE id = ?";
-    private static final String READ_JOURNEY_STATEMENT = "SELECT id, photographer_id, path, rating, datetime, latitude, longitude, place_id, journey_id FROM PHOTO WHERE journey_id=? ORDER BY datetime ASC";
-    private static final String READ_INTERVAL_STATEMENT = "SELECT id, photographer_id, path, rating, datetime, latitude, longitude, place_id, journey_id FROM PHOTO WHERE datetime>=? AND datetime<=? ORDER BY datetime ASC";
+
+    // Photos are loaded with two queries, one for the photos including their references and one for
+    // the tags of all matching photos. Conditions and order refer to the photo table as p.
+    private static final String LOAD_PHOTOS_STATEMENT = "SELECT p.id, p.path, p.rating, p.datetime, p.latitude, p.longitude, "
+            + "ph.id, ph.name, pl.id, pl.city, pl.country, pl.latitude, pl.longitude, j.id, j.name, j.start, j.end "
+            + "FROM Photo p LEFT JOIN Photographer ph ON p.photographer_id = ph.id "
+            + "LEFT JOIN Place pl ON p.place_id = pl.id LEFT JOIN Journey j ON p.journey_id = j.id";
+    private static final String LOAD_TAGS_STATEMENT = "SELECT pt.photo_id, t.id, t.name "
+            + "FROM PhotoTag pt JOIN Tag t ON pt.tag_id = t.id JOIN Photo p ON pt.photo_id = p.id";
+    private static final String BY_ID_CONDITION = " WHERE p.id=?";
+    private static final String BY_FILE_CONDITION = " WHERE p.path=?";
+    private static final String BY_JOURNEY_CONDITION = " WHERE p.journey_id=?";
+    private static final String BY_INTERVAL_CONDITION = " WHERE p.datetime>=? AND p.datetime<=?";
+    private static final String BY_DATETIME_ORDER = " ORDER BY p.datetime ASC";
 
     private SimpleJdbcInsert insertPhoto;
 
     @Autowired
     private PhotoTagDAO photoTagDAO;
     @Autowired
-    private PhotographerDAO photographerDAO;
-    @Autowired
-    private PlaceDAO placeDAO;
-    @Autowired
-    private JourneyDAO journeyDAO;
-    @Autowired
     private SlideDAO slideDAO;
 
     @Override
@@ -146,6 +148,56 @@ public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
         }
     }
 
+    @Override
+    public void createAll(Collection<Photo> photos) throws DAOException {
+        if (photos == null) throw new IllegalArgumentException();
+        logger.debug("Creating {} photos", photos.size());
+        if (photos.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> arguments = photos.stream()
+                .map(this::toParameters)
+                .collect(Collectors.toList());
+        try {
+            jdbcTemplate.batchUpdate(INSERT_STATEMENT, arguments);
+        } catch (DataAccessException ex) {
+            logger.error("Failed to create photos", ex);
+            throw new DAOException("Failed to create photos", ex);
+        }
+
+        // NOTE: Generated keys are not reliably returned for batches, so they are read afterwards.
+        Map<Path, Integer> ids = readIdsByFiles(photos.stream()
+                .map(Photo::getFile)
+                .collect(Collectors.toList()));
+        for (Photo photo : photos) {
+            photo.setId(ids.get(photo.getFile()));
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<Photo> photos) throws DAOException {
+        if (photos == null) throw new IllegalArgumentException();
+        logger.debug("Updating {} photos", photos.size());
+        if (photos.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> arguments = new ArrayList<>(photos.size());
+        for (Photo photo : photos) {
+            if (photo.getId() == null) throw new IllegalArgumentException();
+            Object[] parameters = Arrays.copyOf(toParameters(photo), 9);
+            parameters[8] = photo.getId();
+            arguments.add(parameters);
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_STATEMENT, arguments);
+        } catch (DataAccessException ex) {
+            logger.error("Failed to update photos", ex);
+            throw new DAOException("Failed to update photos", ex);
+        }
+    }
+
     @Override
     public void delete(Photo photo) throws DAOException {
         if (photo == null) throw new IllegalArgumentException();
@@ -167,7 +219,7 @@ public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
         logger.debug("Get photo with id {}", id);
 
         try {
-            return this.jdbcTemplate.queryForObject(GET_BY_ID_STATEMENT, new Object[]{id}, new PhotoRowMapper());
+            return single(load(BY_ID_CONDITION, "", id));
         } catch (DataAccessException ex) {
             logger.error("Failed to get photo", ex);
             throw new DAOException("Failed to get photo", ex);
@@ -180,7 +232,7 @@ public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
         logger.debug("Get photo with path {}", file);
 
         try {
-            return jdbcTemplate.queryForObject(GET_BY_FILE_STATEMENT, new Object[]{file.toString()}, new PhotoRowMapper());
+            return single(load(BY_FILE_CONDITION, "", file.toString()));
         } catch (DataAccessException ex) {
             logger.error("Failed to get photo");
             throw new DAOException("Failed to get photo", ex);
@@ -192,13 +244,11 @@ public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
         logger.debug("retrieving all photos");
 
         try {
-            List<Photo> photos = jdbcTemplate.query(READ_ALL_STATEMENT, new PhotoRowMapper());
+            List<Photo> photos = load("", "");
             logger.debug("Successfully read all photos: " + photos.size());
             return photos;
         } catch (DataAccessException e) {
             throw new DAOException("Failed to read all photos", e);
-        } catch (ValidationException.Unchecked | DAOException.Unchecked ex) {
-            throw new DAOException(ex);
         }
     }
 
@@ -217,6 +267,40 @@ public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
         }
     }
 
+    @Override
+    public Map<Path, Integer> readIdsByFiles(Collection<Path> files) throws DAOException {
+        if (files == null) throw new IllegalArgumentException();
+        logger.debug("retrieving ids of {} paths", files.size());
+
+        Map<Path, Integer> result = new HashMap<>();
+        if (files.isEmpty()) {
+            return result;
+        }
+
+        List<String> paths = files.stream().map(Path::toString).collect(Collectors.toList());
+        try {
+            for (int start = 0; start < paths.size(); start += READ_IDS_CHUNK_SIZE) {
+                List<String> chunk = paths.subList(start,
+                        Math.min(start + READ_IDS_CHUNK_SIZE, paths.size()));
+                // NOTE: The chunk is padded to a power of two by repeating its last path, so that
+                // only a few distinct statements are prepared and they stay in the query cache.
+                int size = Math.min(Integer.highestOneBit(chunk.size() * 2 - 1), READ_IDS_CHUNK_SIZE);
+                Object[] parameters = new Object[size];
+                for (int i = 0; i < size; i++) {
+                    parameters[i] = chunk.get(Math.min(i, chunk.size() - 1));
+                }
+                String placeholders = String.join(", ", Collections.nCopies(size, "?"));
+                jdbcTemplate.query(String.format(READ_IDS_STATEMENT, placeholders), parameters, rs -> {
+                    result.put(Paths.get(rs.getString(2)), rs.getInt(1));
+                });
+            }
+            logger.debug("Successfully read {} ids", result.size());
+            return result;
+        } catch (DataAccessException ex) {
+            throw new DAOException("Failed to read ids", ex);
+        }
+    }
+
     @Override
     public List<Photo> readPhotosByJourney(Journey journey) throws DAOException {
         if (journey == null) throw new IllegalArgumentException();
@@ -224,15 +308,12 @@ public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
         logger.debug("retrieving photos for journey {}", journey);
 
         try {
-            List<Photo> photos = jdbcTemplate.query(READ_JOURNEY_STATEMENT, new PhotoRowMapper(), journey.getId());
+            List<Photo> photos = load(BY_JOURNEY_CONDITION, BY_DATETIME_ORDER, journey.getId());
             logger.debug("Successfully retrieved photos");
             return photos;
         } catch (DataAccessException ex) {
             logger.error("Failed to read photos from given journey", ex);
             throw new DAOException("Failed to read photos from given journey", ex);
-        } catch (ValidationException.Unchecked | DAOException.Unchecked ex) {
-            logger.error("Failed to read photos from given journey", ex);
-            throw new DAOException("Failed to read photos from given journey", ex.getCause());
         }
     }
 
@@ -243,76 +324,111 @@ public class JDBCPhotoDAO extends JDBCDAOBase implements PhotoDAO {
         logger.debug("retrieving photos between {} and {}", start, end);
 
         try {
-            List<Photo> photos = jdbcTemplate.query(READ_INTERVAL_STATEMENT,
-                    new PhotoRowMapper(), Timestamp.valueOf(start), Timestamp.valueOf(end)
+            List<Photo> photos = load(BY_INTERVAL_CONDITION, BY_DATETIME_ORDER,
+                    Timestamp.valueOf(start), Timestamp.valueOf(end)
             );
             logger.debug("Successfully retrieved photos");
             return photos;
         } catch (DataAccessException ex) {
             logger.error("Failed to read photos from given interval", ex);
             throw new DAOException("Failed to read photos from given interval", ex);
-        } catch (ValidationException.Unchecked | DAOException.Unchecked ex) {
-            logger.error("Failed to read photos from given interval", ex);
-            throw new DAOException("Failed to read photos from given interval", ex.getCause());
         }
     }
 
-    private class PhotoRowMapper implements RowMapper<Photo> {
-        @Override
-        public Photo mapRow(ResultSet rs, int rowNum) throws SQLException {
+    // Get the parameters of a photo in the column order of the insert statement.
+    private Object[] toParameters(Photo photo) {
+        Place place = photo.getData().getPlace();
+        Journey journey = photo.getData().getJourney();
+        Photographer photographer = photo.getData().getPhotographer();
+        return new Object[] {
+                photographer != null ? photographer.getId() : null,
+                photo.getPath(),
+                photo.getData().getRating().ordinal(),
+                Timestamp.valueOf(photo.getData().getDatetime()),
+                photo.getData().getLatitude(),
+                photo.getData().getLongitude(),
+                place != null ? place.getId() : null,
+                journey != null ? journey.getId() : null
+        };
+    }
+
+    // Get the only photo of a result or fail if there is none.
+    private Photo single(List<Photo> photos) throws DAOException {
+        if (photos.isEmpty()) {
+            throw new DAOException("Photo does not exist");
+        }
+        return photos.get(0);
+    }
+
+    // Load all photos that match the condition, including their photographer, place, journey and
+    // tags. Referenced entities are read once and shared by all photos that reference them.
+    private List<Photo> load(String condition, String order, Object... args) {
+        Map<Integer, Photo> photos = new LinkedHashMap<>();
+        Map<Integer, Photographer> photographers = new HashMap<>();
+        Map<Integer, Place> places = new HashMap<>();
+        Map<Integer, Journey> journeys = new HashMap<>();
+        Map<Integer, Tag> tags = new HashMap<>();
 
+        jdbcTemplate.query(LOAD_PHOTOS_STATEMENT + condition + order, args, rs -> {
             Photo photo = new Photo();
             photo.setId(rs.getInt(1));
-            photo.setPath(rs.getString(3));
-            photo.getData().setRating(Rating.from(rs.getInt(4)));
-            photo.getData().setDatetime(rs.getTimestamp(5).toLocalDateTime());
-            photo.getData().setLatitude(rs.getDouble(6));
-            photo.getData().setLongitude(rs.getDouble(7));
-
-            try {
-                int placeId = rs.getInt(8);
-                if (placeId != 0) {
-                    Place place = placeDAO.getById(placeId);
-                    photo.getData().setPlace(place);
+            photo.setPath(rs.getString(2));
+            photo.getData().setRating(Rating.from(rs.getInt(3)));
+            photo.getData().setDatetime(rs.getTimestamp(4).toLocalDateTime());
+            photo.getData().setLatitude(rs.getDouble(5));
+            photo.getData().setLongitude(rs.getDouble(6));
+
+            int photographerId = rs.getInt(7);
+            if (photographerId != 0) {
+                Photographer photographer = photographers.get(photographerId);
+                if (photographer == null) {
+                    photographer = new Photographer(photographerId, rs.getString(8));
+                    photographers.put(photographerId, photographer);
                 }
-            } catch (DAOException ex) {
-                throw new DAOException.Unchecked(ex);
-            } catch (ValidationException ex) {
-                throw new ValidationException.Unchecked(ex);
+                photo.getData().setPhotographer(photographer);
             }
 
-            try {
-                int journeyId = rs.getInt(9);
-                if (journeyId != 0) {
-                    Journey journey = journeyDAO.getByID(journeyId);
-                    photo.getData().setJourney(journey);
+            int placeId = rs.getInt(9);
+            if (placeId != 0) {
+                Place place = places.get(placeId);
+                if (place == null) {
+                    place = new Place(placeId, rs.getString(10), rs.getString(11), rs.getDouble(12),
+                            rs.getDouble(13));
+                    places.put(placeId, place);
                 }
-            } catch (DAOException ex) {
-                throw new DAOException.Unchecked(ex);
-            } catch (ValidationException ex) {
-                throw new ValidationException.Unchecked(ex);
+                photo.getData().setPlace(place);
             }
 
-            try {
-                int photographerId = rs.getInt(2);
-                if (photographerId != 0) {
-                    Photographer photographer = photographerDAO.getById(photographerId);
-                    photo.getData().setPhotographer(photographer);
+            int journeyId = rs.getInt(14);
+            if (journeyId != 0) {
+                Journey journey = journeys.get(journeyId);
+                if (journey == null) {
+                    journey = new Journey(journeyId, rs.getString(15),
+                            rs.getTimestamp(16).toLocalDateTime(), rs.getTimestamp(17).toLocalDateTime());
+                    journeys.put(journeyId, journey);
                 }
-            } catch (DAOException ex) {
-                throw new DAOException.Unchecked(ex);
+                photo.getData().setJourney(journey);
             }
 
-            try {
-                List<Tag> tags = photoTagDAO.readTagsByPhoto(photo);
-                photo.getData().getTags().addAll(tags);
-            } catch (DAOException ex) {
-                throw new DAOException.Unchecked(ex);
-            } catch (ValidationException ex) {
-                throw new ValidationException.Unchecked(ex);
-            }
+            photos.put(photo.getId(), photo);
+        });
 
-            return photo;
+        if (photos.isEmpty()) {
+            return new ArrayList<>();
         }
+
+        jdbcTemplate.query(LOAD_TAGS_STATEMENT + condition, args, rs -> {
+            Photo photo = photos.get(rs.getInt(1));
+            if (photo == null) return;
+            int tagId = rs.getInt(2);
+            Tag tag = tags.get(tagId);
+            if (tag == null) {
+                tag = new Tag(tagId, rs.getString(3));
+                tags.put(tagId, tag);
+            }
+            photo.getData().getTags().add(tag);
+        });
+
+        return new ArrayList<>(photos.values());
     }
 }
@@ -40,6 +40,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class JDBCPhotoTagDAO extends JDBCDAOBase implements PhotoTagDAO {
@@ -162,6 +163,65 @@ public class JDBCPhotoTagDAO extends JDBCDAOBase implements PhotoTagDAO {
         LOGGER.debug("Leaving deleteAllEntriesOfSpecificPhoto with {}", photo);
     }
 
+    /**
+     * Create persistent photo-tag entries that link every photo in <tt>photos</tt> to all of its
+     * tags, using a single batch.
+     *
+     * @param photos must not be null; ids of the photos and their tags must not be null;
+     * @throws DAOException: if an exception occurs on persistence layer
+     */
+    @Override
+    public void createPhotoTags(Collection<Photo> photos) throws DAOException {
+        if (photos == null) throw new IllegalArgumentException();
+        LOGGER.debug("Entering createPhotoTags with {} photos", photos.size());
+
+        List<Object[]> arguments = new ArrayList<>();
+        for (Photo photo : photos) {
+            for (Tag tag : photo.getData().getTags()) {
+                arguments.add(new Object[] { photo.getId(), tag.getId() });
+            }
+        }
+        if (arguments.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(CREATE_STRING, arguments);
+            LOGGER.info("{} Photo-Tag entries successfully created", arguments.size());
+        } catch (DataAccessException ex) {
+            LOGGER.error("Photo-Tag entry creation failed due to DataAccessException");
+            throw new DAOException("Photo-tag entry creation failed.", ex);
+        }
+        LOGGER.debug("Leaving createPhotoTags");
+    }
+
+    /**
+     * Delete if existent all photo-tag entries of the photos in <tt>photos</tt>, using a single
+     * batch.
+     *
+     * @param photos must not be null; ids of the photos must not be null;
+     * @throws DAOException: if an exception occurs on persistence layer
+     */
+    @Override
+    public void deleteAllEntriesOfPhotos(Collection<Photo> photos) throws DAOException {
+        if (photos == null) throw new IllegalArgumentException();
+        LOGGER.debug("Entering deleteAllEntriesOfPhotos with {} photos", photos.size());
+        if (photos.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> arguments = new ArrayList<>(photos.size());
+        photos.forEach(photo -> arguments.add(new Object[] { photo.getId() }));
+        try {
+            jdbcTemplate.batchUpdate(DELETE_BY_PHOTO_STRING, arguments);
+            LOGGER.info("Photo-Tag entries of {} photos successfully deleted", photos.size());
+        } catch (DataAccessException ex) {
+            LOGGER.error("Photo-Tag entry deletion failed due to DataAccessException");
+            throw new DAOException("Could not delete photo-tag entries.", ex);
+        }
+        LOGGER.debug("Leaving deleteAllEntriesOfPhotos");
+    }
+
     /**
      * Return list of all tags which are currently set for <tt>photo</tt>.
      *
@@ -0,0 +1,139 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings the database schema to the latest version.
+ *
+ * Every migration script is one schema version, the first script being version 1. The versions
+ * that were applied are recorded in the SchemaVersion table, so each script runs exactly once on a
+ * database. Scripts are applied in the order in which they are configured and new versions must
+ * only ever be appended.
+ *
+ * Additionally, scripts can be configured that run on every start after the migrations, for
+ * example to insert default data.
+ */
+public class JDBCSchemaMigrator extends JDBCDAOBase {
+
+    private static final String CREATE_VERSION_TABLE_STATEMENT = "CREATE TABLE IF NOT EXISTS SchemaVersion(version INTEGER PRIMARY KEY, script VARCHAR NOT NULL, applied TIMESTAMP NOT NULL)";
+    private static final String READ_VERSION_STATEMENT = "SELECT COALESCE(MAX(version), 0) FROM SchemaVersion";
+    private static final String INSERT_VERSION_STATEMENT = "INSERT INTO SchemaVersion(version, script, applied) VALUES (?, ?, ?)";
+
+    private List<Resource> migrations = new ArrayList<>();
+    private List<Resource> scripts = new ArrayList<>();
+
+    /**
+     * Set the migration scripts, where the script at index i migrates the schema to version i + 1.
+     *
+     * @param migrations migration scripts ordered by version
+     */
+    public void setMigrations(List<Resource> migrations) {
+        if (migrations == null) throw new IllegalArgumentException();
+        this.migrations = new ArrayList<>(migrations);
+    }
+
+    /**
+     * Set the scripts that run after every migration.
+     *
+     * @param scripts scripts that run after the migration
+     */
+    public void setScripts(List<Resource> scripts) {
+        if (scripts == null) throw new IllegalArgumentException();
+        this.scripts = new ArrayList<>(scripts);
+    }
+
+    /**
+     * Get the current version of the schema.
+     *
+     * @return version of the last applied migration or 0 if no migration was applied
+     * @throws DAOException failed to read the version
+     */
+    public int getVersion() throws DAOException {
+        try {
+            jdbcTemplate.execute(CREATE_VERSION_TABLE_STATEMENT);
+            return jdbcTemplate.queryForObject(READ_VERSION_STATEMENT, Integer.class);
+        } catch (DataAccessException ex) {
+            logger.error("Failed to read schema version", ex);
+            throw new DAOException("Failed to read schema version", ex);
+        }
+    }
+
+    /**
+     * Apply all migrations that were not yet applied and run the scripts afterwards.
+     *
+     * @throws DAOException failed to apply a migration or run a script
+     */
+    public void migrate() throws DAOException {
+        int version = getVersion();
+        logger.info("Schema is at version {} of {}", version, migrations.size());
+        if (version > migrations.size()) {
+            logger.warn("Schema version {} is newer than the latest known version {}", version,
+                    migrations.size());
+        }
+
+        for (int i = version; i < migrations.size(); i++) {
+            Resource migration = migrations.get(i);
+            logger.info("Migrating schema to version {} with {}", i + 1, migration);
+            try {
+                execute(migration);
+                jdbcTemplate.update(INSERT_VERSION_STATEMENT, i + 1, migration.getFilename(),
+                        Timestamp.valueOf(LocalDateTime.now()));
+            } catch (DataAccessException ex) {
+                logger.error("Failed to migrate schema to version {}", i + 1, ex);
+                throw new DAOException("Failed to migrate schema to version " + (i + 1), ex);
+            }
+        }
+
+        for (Resource script : scripts) {
+            logger.debug("Running script {}", script);
+            try {
+                execute(script);
+            } catch (DataAccessException ex) {
+                logger.error("Failed to run script {}", script, ex);
+                throw new DAOException("Failed to run script " + script, ex);
+            }
+        }
+    }
+
+    private void execute(Resource script) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(script);
+        populator.setIgnoreFailedDrops(true);
+        DatabasePopulatorUtils.execute(populator, jdbcTemplate.getDataSource());
+    }
+}
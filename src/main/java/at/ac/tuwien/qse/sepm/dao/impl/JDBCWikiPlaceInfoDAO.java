@@ -0,0 +1,106 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.WikiPlaceInfoDAO;
+import at.ac.tuwien.qse.sepm.entities.Place;
+import at.ac.tuwien.qse.sepm.entities.WikiPlaceInfo;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataAccessException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Database-based implementation of WikiPlaceInfoDAO.
+ */
+public class JDBCWikiPlaceInfoDAO extends JDBCDAOBase implements WikiPlaceInfoDAO {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String READ_STATEMENT = "SELECT place_name, country_name, description, "
+            + "elevation, area, population, utc_offset, currency, language FROM WikiPlaceInfo "
+            + "WHERE city = ? AND country = ? AND retrieved >= ?";
+    private static final String MERGE_STATEMENT = "MERGE INTO WikiPlaceInfo(city, country, "
+            + "place_name, country_name, description, elevation, area, population, utc_offset, "
+            + "currency, language, retrieved) KEY(city, country) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @Override public WikiPlaceInfo read(Place place, LocalDateTime after) throws DAOException {
+        if (place == null) throw new IllegalArgumentException();
+        if (after == null) throw new IllegalArgumentException();
+        LOGGER.debug("Reading wiki info of {}", place);
+
+        try {
+            List<WikiPlaceInfo> infos = jdbcTemplate.query(READ_STATEMENT, (rs, row) ->
+                    new WikiPlaceInfo(
+                            rs.getString(1),
+                            rs.getString(2),
+                            rs.getString(3),
+                            (Double) rs.getObject(4),
+                            (Double) rs.getObject(5),
+                            (Integer) rs.getObject(6),
+                            rs.getString(7),
+                            rs.getString(8),
+                            rs.getString(9)
+                    ), place.getCity(), place.getCountry(), Timestamp.valueOf(after));
+            return infos.isEmpty() ? null : infos.get(0);
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to read wiki info", ex);
+            throw new DAOException("Failed to read wiki info", ex);
+        }
+    }
+
+    @Override public void put(Place place, WikiPlaceInfo info) throws DAOException {
+        if (place == null) throw new IllegalArgumentException();
+        if (info == null) throw new IllegalArgumentException();
+        LOGGER.debug("Storing wiki info {} of {}", info, place);
+
+        try {
+            jdbcTemplate.update(MERGE_STATEMENT,
+                    place.getCity(),
+                    place.getCountry(),
+                    info.getPlaceName(),
+                    info.getCountryName(),
+                    info.getDescription(),
+                    info.getElevation(),
+                    info.getArea(),
+                    info.getPopulation(),
+                    info.getUtcOffset(),
+                    info.getCurrency(),
+                    info.getLanguage(),
+                    Timestamp.valueOf(LocalDateTime.now()));
+        } catch (DataAccessException ex) {
+            LOGGER.error("Failed to store wiki info", ex);
+            throw new DAOException("Failed to store wiki info", ex);
+        }
+    }
+}
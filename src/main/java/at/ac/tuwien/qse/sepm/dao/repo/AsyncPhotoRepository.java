@@ -41,6 +41,9 @@ import java.util.Queue;
  *
  * All asynchronous operations are stored in an operation queue. Clients can receive notifications
  * when the queue is updated by adding a listener.
+ *
+ * Implementations may merge redundant operations on the same file, so that only the work that is
+ * actually necessary remains in the queue.
  */
 public interface AsyncPhotoRepository extends PhotoRepository {
 
@@ -61,9 +64,14 @@ public interface AsyncPhotoRepository extends PhotoRepository {
     /**
      * Completes the next operation in the queue. Does nothing if the queue is empty.
      *
+     * Operations on the same file are completed in the order in which they were queued. The method
+     * may be called from multiple threads at once, in which case operations on a file that is
+     * currently being processed by another thread are skipped.
+     *
      * Notifies the listeners that the operation either was completed or that an error occurred.
      *
-     * @return true if there is another item in the queue, otherwise false
+     * @return true if an operation was completed and there is another item in the queue,
+     *         otherwise false
      */
     boolean completeNext();
 
@@ -74,6 +82,13 @@ public interface AsyncPhotoRepository extends PhotoRepository {
      */
     Queue<Operation> getQueue();
 
+    /**
+     * Get the number of operations that have not yet been completed.
+     *
+     * @return number of operations in the queue
+     */
+    int getQueueSize();
+
     /**
      * Add a listener that is notified about the operation queue.
      *
@@ -101,6 +116,15 @@ public interface AsyncPhotoRepository extends PhotoRepository {
          */
         default void onQueue(AsyncPhotoRepository repository, Operation operation) { }
 
+        /**
+         * Notifies the listener that a queued operation was dropped, because it was made redundant
+         * by another operation on the same file. The dropped operation will not be completed.
+         *
+         * @param repository repository from which the operation was dropped
+         * @param operation operation that was dropped
+         */
+        default void onMerge(AsyncPhotoRepository repository, Operation operation) { }
+
         /**
          * Notifies the listener that an operation was completed.
          *
@@ -28,9 +28,13 @@ package at.ac.tuwien.qse.sepm.dao.repo;
  */
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.Map;
 
 /**
  * Storage for photo instances.
@@ -48,7 +52,59 @@ public interface PhotoCache extends PhotoProvider {
     void put(Photo photo) throws DAOException;
 
     /**
-     * Removes a photo from the cache.
+     * Puts several photos into the cache, replacing those that already exist.
+     *
+     * Implementations may put the photos more efficiently than by putting them one by one, and
+     * either put all photos or none of them.
+     *
+     * @param photos photos that should be put into the cache
+     * @return files of the photos that did not exist in the cache before
+     * @throws DAOException failed to perform operation
+     */
+    default Collection<Path> putAll(Collection<Photo> photos) throws DAOException {
+        Collection<Path> added = new LinkedList<>();
+        for (Photo photo : photos) {
+            if (!contains(photo.getFile())) {
+                added.add(photo.getFile());
+            }
+            put(photo);
+        }
+        return added;
+    }
+
+    /**
+     * Stores the fingerprint of the file from which a photo in the cache was read.
+     *
+     * @param file path of the photo
+     * @param fingerprint fingerprint of the file
+     * @throws DAOException failed to perform operation
+     */
+    void putFingerprint(Path file, Fingerprint fingerprint) throws DAOException;
+
+    /**
+     * Stores the fingerprints of several files.
+     *
+     * @param fingerprints fingerprints mapped by photo path
+     * @throws DAOException failed to perform operation
+     */
+    default void putFingerprints(Map<Path, Fingerprint> fingerprints) throws DAOException {
+        for (Map.Entry<Path, Fingerprint> entry : fingerprints.entrySet()) {
+            putFingerprint(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Get the stored fingerprints of all photos.
+     *
+     * Photos for which no fingerprint was stored are not contained in the result.
+     *
+     * @return fingerprints mapped by photo path
+     * @throws DAOException failed to perform operation
+     */
+    Map<Path, Fingerprint> readFingerprints() throws DAOException;
+
+    /**
+     * Removes a photo from the cache, together with its fingerprint.
      *
      * The photo can no longer be read after the method returns.
      *
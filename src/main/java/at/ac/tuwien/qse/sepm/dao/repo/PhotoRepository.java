@@ -28,10 +28,12 @@ package at.ac.tuwien.qse.sepm.dao.repo;
  */
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 
 import java.io.InputStream;
 import java.nio.file.Path;
+import java.util.Collection;
 
 /**
  * Storage for photo files.
@@ -71,6 +73,21 @@ public interface PhotoRepository extends PhotoProvider {
      */
     void update(Photo photo) throws DAOException;
 
+    /**
+     * Updates several photos.
+     *
+     * Implementations may update the photos more efficiently than by updating them one by one.
+     *
+     * @param photos photos that should be updated
+     * @throws DAOException failed to perform operation
+     * @throws PhotoNotFoundException a photo does not exist in the repository
+     */
+    default void updateAll(Collection<Photo> photos) throws DAOException {
+        for (Photo photo : photos) {
+            update(photo);
+        }
+    }
+
     /**
      * Deletes a photo from the repository.
      *
@@ -82,6 +99,38 @@ public interface PhotoRepository extends PhotoProvider {
      */
     void delete(Path file) throws DAOException;
 
+    /**
+     * Get the fingerprint of a photo, which changes whenever the photo file is modified.
+     *
+     * @param file path of the photo
+     * @return fingerprint of the photo file
+     * @throws DAOException failed to perform operation
+     * @throws PhotoNotFoundException photo does not exist in the repository
+     */
+    Fingerprint fingerprint(Path file) throws DAOException;
+
+    /**
+     * Get the current fingerprint of a photo, unless the photo was modified since a fingerprint of
+     * it was taken.
+     *
+     * A photo whose file was only touched is not modified, but its current fingerprint has a newer
+     * modification time than the known one. Implementations may avoid reading the file if the file
+     * attributes are enough to decide.
+     *
+     * @param file path of the photo
+     * @param known fingerprint that was taken earlier
+     * @return current fingerprint of the photo, or null if the photo was modified
+     * @throws DAOException failed to perform operation
+     * @throws PhotoNotFoundException photo does not exist in the repository
+     */
+    default Fingerprint refreshFingerprint(Path file, Fingerprint known) throws DAOException {
+        Fingerprint current = fingerprint(file);
+        if (current.getSize() != known.getSize() || current.getHash() != known.getHash()) {
+            return null;
+        }
+        return current;
+    }
+
     /**
      * Add a listener that is notified about changes to the repository.
      *
@@ -32,6 +32,7 @@ import at.ac.tuwien.qse.sepm.entities.PhotoMetadata;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 /**
  * Class for reading and writing photo metadata.
@@ -60,4 +61,20 @@ public interface PhotoSerializer {
      * @throws FormatException data in the input stream is invalid
      */
     public void update(InputStream is, OutputStream os, PhotoMetadata metadata) throws DAOException;
+
+    /**
+     * Rewrites the meta data of a photo in place, without rewriting the rest of the photo.
+     *
+     * This is only possible if the new meta data fits into the space of the existing meta data.
+     * If the photo is not changed, it must be rewritten with {@link #update}.
+     *
+     * @param channel channel to the photo that allows reading and writing
+     * @param metadata data that should be written
+     * @return true if the meta data was rewritten, false if the photo was not changed
+     * @throws DAOException failed to perform operation
+     * @throws FormatException data in the channel is invalid
+     */
+    public default boolean updateInPlace(FileChannel channel, PhotoMetadata metadata) throws DAOException {
+        return false;
+    }
 }
@@ -29,33 +29,52 @@ package at.ac.tuwien.qse.sepm.dao.repo.impl;
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
 import at.ac.tuwien.qse.sepm.dao.repo.*;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.InputStream;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Async repository that uses a cache as intermediate storage.
+ *
+ * Operations are partitioned by the file they are performed on. Operations on the same file are
+ * completed in the order in which they were queued, while operations on different files may be
+ * completed in parallel by multiple threads calling {@link #completeNext()}.
+ *
+ * Pending operations on the same file are merged when they are queued. Consecutive updates are
+ * replaced by the last one, a delete cancels all pending reads and updates and a read is dropped
+ * if the file is already waiting to be read.
+ *
+ * Photos that were read from the repository are put into the cache in chunks of up to
+ * {@link #READ_CHUNK_SIZE} photos. A file remains blocked for further operations until its photo
+ * was put into the cache.
  */
 public class CachedPhotoRepository implements AsyncPhotoRepository {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    /** Maximum number of read photos that are put into the cache at once. */
+    public static final int READ_CHUNK_SIZE = 100;
+
     private final PhotoRepository repository;
     private final PhotoCache cache;
 
-    private final Collection<Listener> listeners = new LinkedList<>();
-    private final Collection<AsyncListener> asyncListeners = new LinkedList<>();
+    private final Collection<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final Collection<AsyncListener> asyncListeners = new CopyOnWriteArrayList<>();
 
-    private final Queue<OperationBase> queue = new ConcurrentLinkedQueue<>();
-    private final Object writeLock = new Object();
+    // NOTE: Partitions are kept in the order in which their first operation was queued.
+    private final Map<Path, Deque<OperationBase>> partitions = new LinkedHashMap<>();
+    private final Set<Path> active = new HashSet<>();
+    private final Object queueLock = new Object();
+    private int queueSize = 0;
+
+    // Read operations whose photos still have to be put into the cache.
+    private final List<ReadOperation> loaded = new ArrayList<>();
 
     public CachedPhotoRepository(PhotoRepository repository, PhotoCache cache) {
         this.repository = repository;
@@ -81,54 +100,108 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
         return cache;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * Photos are only read again if the fingerprint of their file no longer matches the fingerprint
+     * stored in the cache.
+     */
     @Override public void synchronize() throws DAOException {
-        Collection<Path> cachedIndex = getCache().index();
+        Set<Path> cachedIndex = new HashSet<>(getCache().index());
+        Map<Path, Fingerprint> fingerprints = getCache().readFingerprints();
+        Map<Path, Fingerprint> touched = new HashMap<>();
+        int unchanged = 0;
         for (Path file : cachedIndex) {
             if (!getRepository().contains(file)) {
                 getCache().remove(file);
                 notifyDelete(file);
                 continue;
             }
-            addOperation(new ReadOperation(file));
+            Fingerprint known = fingerprints.get(file);
+            Fingerprint current = checkFingerprint(file, known);
+            if (current == null) {
+                addOperation(new ReadOperation(file));
+                continue;
+            }
+            unchanged++;
+            if (!current.equals(known)) {
+                touched.put(file, current);
+            }
+        }
+        LOGGER.info("skipped {} unchanged files", unchanged);
+
+        // NOTE: Store the fingerprints of touched files, so that they are not hashed again.
+        if (!touched.isEmpty()) {
+            try {
+                getCache().putFingerprints(touched);
+            } catch (DAOException ex) {
+                LOGGER.warn("failed storing fingerprints of {} touched files", touched.size());
+            }
         }
 
         Collection<Path> storedIndex = getRepository().index();
         for (Path file : storedIndex) {
-            if (!getCache().contains(file)) {
+            if (!cachedIndex.contains(file)) {
                 addOperation(new ReadOperation(file));
             }
         }
     }
 
     @Override public void clearQueue() {
-        queue.clear();
+        synchronized (queueLock) {
+            partitions.clear();
+            queueSize = 0;
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * A read operation is only completed once its photo is put into the cache, which happens when
+     * enough photos were read, or when no other operation can be completed.
+     */
     @Override public boolean completeNext() {
-        if (queue.isEmpty()) return false;
-        OperationBase operation = queue.poll();
+        OperationBase operation = pollNext();
+        if (operation == null) {
+            // NOTE: Pending operations may wait for files whose photos are not yet in the cache.
+            return storeLoaded() && getQueueSize() > 0;
+        }
         LOGGER.debug("completing next operation {}", operation);
 
-        try {
-
-            if (operation.getKind() != Operation.Kind.READ) {
-                synchronized (writeLock) {
-                    operation.perform();
-                }
-            } else {
+        if (operation instanceof ReadOperation) {
+            load((ReadOperation) operation);
+        } else {
+            try {
                 operation.perform();
+                LOGGER.debug("successfully performed operation {}", operation);
+                notifyOperationComplete(operation);
+            } catch (DAOException ex) {
+                LOGGER.error("error while performing operation {}", operation);
+                notifyOperationError(operation, ex);
+            } finally {
+                release(operation);
             }
-            LOGGER.debug("successfully performed operation {}", operation);
-            notifyOperationComplete(operation);
-        } catch (DAOException ex) {
-            LOGGER.error("error while performing operation {}", operation);
-            notifyOperationError(operation, ex);
         }
-        return !queue.isEmpty();
+
+        if (getQueueSize() > 0) {
+            return true;
+        }
+        storeLoaded();
+        return false;
+    }
+
+    @Override public int getQueueSize() {
+        synchronized (queueLock) {
+            return queueSize;
+        }
     }
 
     @Override public Queue<Operation> getQueue() {
-        return new LinkedList<>(queue);
+        synchronized (queueLock) {
+            Queue<Operation> result = new LinkedList<>();
+            partitions.values().forEach(result::addAll);
+            return result;
+        }
     }
 
     @Override public void addListener(AsyncListener listener) {
@@ -159,8 +232,10 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
         if (source == null) throw new IllegalArgumentException();
         LOGGER.debug("creating {}", file);
         getRepository().create(file, source);
+        Fingerprint fingerprint = getRepository().fingerprint(file);
         Photo photo = getRepository().read(file);
         getCache().put(photo);
+        getCache().putFingerprint(file, fingerprint);
         notifyCreate(file);
         LOGGER.info("created {}", file);
     }
@@ -176,6 +251,27 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
         LOGGER.debug("updated {}", photo);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The photos are put into the cache together, so that large edits take a single transaction.
+     */
+    @Override public void updateAll(Collection<Photo> photos) throws DAOException {
+        LOGGER.debug("updating {} photos", photos.size());
+        Set<Path> index = new HashSet<>(getCache().index());
+        for (Photo photo : photos) {
+            if (!index.contains(photo.getFile())) {
+                throw new PhotoNotFoundException(this, photo.getFile());
+            }
+        }
+        getCache().putAll(photos);
+        for (Photo photo : photos) {
+            addOperation(new UpdateOperation(photo));
+            notifyUpdate(photo.getFile());
+        }
+        LOGGER.debug("updated {} photos", photos.size());
+    }
+
     @Override public void delete(Path file) throws DAOException {
         LOGGER.debug("deleting {}", file);
         getCache().remove(file);
@@ -184,6 +280,10 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
         LOGGER.debug("deleted {}", file);
     }
 
+    @Override public Fingerprint fingerprint(Path file) throws DAOException {
+        return getRepository().fingerprint(file);
+    }
+
     @Override public void addListener(Listener listener) {
         if (listener == null) throw new IllegalArgumentException();
         listeners.add(listener);
@@ -208,6 +308,78 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
         return photo;
     }
 
+    // Reads the photo of a read operation and collects it for putting it into the cache.
+    private void load(ReadOperation operation) {
+        try {
+            operation.load();
+        } catch (DAOException ex) {
+            LOGGER.error("error while performing operation {}", operation);
+            notifyOperationError(operation, ex);
+            release(operation);
+            return;
+        }
+
+        boolean full;
+        synchronized (loaded) {
+            loaded.add(operation);
+            full = loaded.size() >= READ_CHUNK_SIZE;
+        }
+        if (full) {
+            storeLoaded();
+        }
+    }
+
+    // Puts the photos of all loaded read operations into the cache and completes the operations.
+    // Returns false if there were no loaded operations.
+    private boolean storeLoaded() {
+        List<ReadOperation> operations;
+        synchronized (loaded) {
+            if (loaded.isEmpty()) return false;
+            operations = new ArrayList<>(loaded);
+            loaded.clear();
+        }
+        LOGGER.debug("putting {} read photos into cache", operations.size());
+
+        List<Photo> photos = new ArrayList<>(operations.size());
+        Map<Path, Fingerprint> fingerprints = new HashMap<>();
+        for (ReadOperation operation : operations) {
+            photos.add(operation.photo);
+            fingerprints.put(operation.getFile(), operation.fingerprint);
+        }
+
+        try {
+            Set<Path> added = new HashSet<>(cache.putAll(photos));
+            cache.putFingerprints(fingerprints);
+            for (ReadOperation operation : operations) {
+                if (added.contains(operation.getFile())) {
+                    notifyCreate(operation.getFile());
+                } else {
+                    notifyUpdate(operation.getFile());
+                }
+                LOGGER.debug("successfully performed operation {}", operation);
+                notifyOperationComplete(operation);
+            }
+        } catch (DAOException ex) {
+            LOGGER.error("error while putting {} read photos into cache", operations.size());
+            operations.forEach(operation -> notifyOperationError(operation, ex));
+        } finally {
+            operations.forEach(this::release);
+        }
+        return true;
+    }
+
+    // Get the current fingerprint of a file in the source repository, or null if it differs from
+    // the known fingerprint.
+    private Fingerprint checkFingerprint(Path file, Fingerprint known) {
+        if (known == null) return null;
+        try {
+            return getRepository().refreshFingerprint(file, known);
+        } catch (DAOException ex) {
+            LOGGER.warn("failed checking modification of {}", file);
+            return null;
+        }
+    }
+
     private void notifyCreate(Path file) {
         listeners.forEach(l -> l.onCreate(this, file));
     }
@@ -224,6 +396,10 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
         asyncListeners.forEach(l -> l.onQueue(this, operation));
     }
 
+    protected void notifyOperationMerge(Operation operation) {
+        asyncListeners.forEach(l -> l.onMerge(this, operation));
+    }
+
     protected void notifyOperationComplete(Operation operation) {
         asyncListeners.forEach(l -> l.onComplete(this, operation));
     }
@@ -233,11 +409,80 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
     }
 
     private void addOperation(OperationBase operation) {
-        queue.add(operation);
+        Collection<Operation> merged = new LinkedList<>();
+        synchronized (queueLock) {
+            Deque<OperationBase> partition =
+                    partitions.computeIfAbsent(operation.getFile(), k -> new LinkedList<>());
+            if (!merge(partition, operation, merged)) {
+                LOGGER.debug("dropped redundant operation {}", operation);
+                return;
+            }
+            partition.add(operation);
+            queueSize += 1 - merged.size();
+        }
+        merged.forEach(this::notifyOperationMerge);
         LOGGER.debug("added operation {}", operation);
         notifyOperationQueue(operation);
     }
 
+    // Removes the pending operations of a partition that are made redundant by the new operation
+    // and collects them. Returns false if the new operation itself is redundant.
+    private boolean merge(Deque<OperationBase> partition, OperationBase operation,
+            Collection<Operation> merged) {
+        OperationBase last = partition.peekLast();
+        switch (operation.getKind()) {
+            case READ:
+                return last == null || last.getKind() != Operation.Kind.READ;
+            case UPDATE:
+                if (last != null && last.getKind() == Operation.Kind.UPDATE) {
+                    merged.add(partition.pollLast());
+                }
+                return true;
+            case DELETE:
+                Iterator<OperationBase> iterator = partition.iterator();
+                while (iterator.hasNext()) {
+                    OperationBase pending = iterator.next();
+                    if (pending.getKind() == Operation.Kind.READ
+                            || pending.getKind() == Operation.Kind.UPDATE) {
+                        iterator.remove();
+                        merged.add(pending);
+                    }
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+
+    // Removes the first operation whose file is not currently being processed and marks the file
+    // as active. Returns null if there is no such operation.
+    private OperationBase pollNext() {
+        synchronized (queueLock) {
+            Iterator<Map.Entry<Path, Deque<OperationBase>>> iterator = partitions.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Path, Deque<OperationBase>> entry = iterator.next();
+                if (active.contains(entry.getKey())) continue;
+                Deque<OperationBase> partition = entry.getValue();
+                OperationBase operation = partition.poll();
+                if (partition.isEmpty()) {
+                    iterator.remove();
+                }
+                if (operation == null) continue;
+                active.add(entry.getKey());
+                queueSize--;
+                return operation;
+            }
+            return null;
+        }
+    }
+
+    // Marks the file of the operation as no longer being processed.
+    private void release(OperationBase operation) {
+        synchronized (queueLock) {
+            active.remove(operation.getFile());
+        }
+    }
+
     /* listener for source repository */
 
     private class SourceListener implements Listener {
@@ -299,14 +544,28 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
 
     private class ReadOperation extends OperationBase {
 
+        private Fingerprint fingerprint;
+        private Photo photo;
+
         public ReadOperation(Path file) {
             super(file, Kind.READ);
         }
 
+        /**
+         * Reads the photo from the repository without putting it into the cache.
+         */
+        public void load() throws DAOException {
+            // NOTE: Take the fingerprint first, so that changes during the read are detected by
+            // the next synchronization.
+            fingerprint = repository.fingerprint(file);
+            photo = repository.read(getFile());
+        }
+
         @Override public void perform() throws DAOException {
             boolean updated = cache.contains(file);
-            Photo photo = repository.read(getFile());
+            load();
             cache.put(photo);
+            cache.putFingerprint(file, fingerprint);
             if (updated) {
                 notifyUpdate(file);
             } else {
@@ -326,6 +585,7 @@ public class CachedPhotoRepository implements AsyncPhotoRepository {
 
         @Override public void perform() throws DAOException {
             repository.update(photo);
+            cache.putFingerprint(file, repository.fingerprint(file));
             notifyUpdate(photo.getFile());
         }
     }
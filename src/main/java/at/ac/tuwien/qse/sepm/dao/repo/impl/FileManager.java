@@ -30,6 +30,7 @@ package at.ac.tuwien.qse.sepm.dao.repo.impl;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.util.stream.Stream;
@@ -40,6 +41,7 @@ public interface FileManager {
     boolean isFile(Path path);
     boolean isDirectory(Path path);
     FileTime getLastModifiedTime(Path path) throws IOException;
+    long size(Path file) throws IOException;
     void createDirectories(Path directory) throws IOException;
     void createFile(Path file) throws IOException;
     OutputStream newOutputStream(Path file) throws IOException;
@@ -47,4 +49,6 @@ public interface FileManager {
     boolean exists(Path path);
     void delete(Path file) throws IOException;
     void copy(Path source, Path dest) throws IOException;
+    void move(Path source, Path dest) throws IOException;
+    FileChannel newFileChannel(Path file) throws IOException;
 }
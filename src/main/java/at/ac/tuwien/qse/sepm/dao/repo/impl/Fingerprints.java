@@ -0,0 +1,82 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+/**
+ * Helper for computing photo fingerprints.
+ */
+final class Fingerprints {
+
+    /**
+     * Number of bytes at the beginning of a file that are hashed. JPEG files store their metadata
+     * in APP segments at the beginning of the file, which are at most 64 KiB in size.
+     */
+    static final int HASH_WINDOW = 64 * 1024;
+
+    private Fingerprints() {
+    }
+
+    /**
+     * Create a fingerprint whose hash is computed from the beginning of a stream.
+     *
+     * @param size size of the file in bytes
+     * @param modified last modification time in milliseconds since the epoch
+     * @param is stream that is positioned at the beginning of the file
+     * @return fingerprint of the file
+     * @throws IOException failed to read from the stream
+     */
+    static Fingerprint create(long size, long modified, InputStream is) throws IOException {
+        return new Fingerprint(size, modified, hash(is));
+    }
+
+    /**
+     * Compute the hash of the beginning of a stream.
+     *
+     * @param is stream that is positioned at the beginning of the file
+     * @return hash of at most {@link #HASH_WINDOW} bytes
+     * @throws IOException failed to read from the stream
+     */
+    static long hash(InputStream is) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        int remaining = HASH_WINDOW;
+        while (remaining > 0) {
+            int read = is.read(buffer, 0, Math.min(buffer.length, remaining));
+            if (read < 0) break;
+            crc.update(buffer, 0, read);
+            remaining -= read;
+        }
+        return crc.getValue();
+    }
+}
@@ -35,11 +35,13 @@ import at.ac.tuwien.qse.sepm.entities.validators.ValidationException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.file.Path;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Photo cache that stores photo instances in an SQLite database.
@@ -66,6 +68,16 @@ public class JdbcPhotoCache implements PhotoCache {
     @Autowired
     private PhotographerDAO photographerDAO;
 
+    @Autowired
+    private FingerprintDAO fingerprintDAO;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private void initializeTransactions(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
     @Override public synchronized void put(Photo photo) throws DAOException {
         if (photo == null) throw new IllegalArgumentException();
         LOGGER.debug("putting {}", photo);
@@ -113,6 +125,39 @@ public class JdbcPhotoCache implements PhotoCache {
         LOGGER.debug("put {}", photo);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * This implementation puts all photos in a single transaction. Photographers, places, journeys
+     * and tags are looked up once for all photos and the photos are written with batch statements.
+     */
+    @Override public synchronized Collection<Path> putAll(Collection<Photo> photos)
+            throws DAOException {
+        if (photos == null) throw new IllegalArgumentException();
+        LOGGER.debug("putting {} photos", photos.size());
+        if (photos.isEmpty()) {
+            return new LinkedList<>();
+        }
+
+        try {
+            Collection<Path> added = transactionTemplate.execute(status -> {
+                try {
+                    return putAllTransactional(photos);
+                } catch (DAOException ex) {
+                    throw new DAOException.Unchecked(ex);
+                }
+            });
+            LOGGER.debug("put {} photos of which {} were added", photos.size(), added.size());
+            return added;
+        } catch (DAOException.Unchecked ex) {
+            LOGGER.warn("failed putting {} photos", photos.size());
+            throw new DAOException(ex.getCause());
+        } catch (TransactionException ex) {
+            LOGGER.warn("failed putting {} photos", photos.size());
+            throw new DAOException(ex);
+        }
+    }
+
     @Override public synchronized void remove(Path file) throws DAOException {
         if (file == null) throw new IllegalArgumentException();
         LOGGER.debug("removing {}", file);
@@ -128,9 +173,28 @@ public class JdbcPhotoCache implements PhotoCache {
         }
 
         photoDAO.delete(photo);
+        fingerprintDAO.delete(file);
         LOGGER.debug("removed {}", file);
     }
 
+    @Override public void putFingerprint(Path file, Fingerprint fingerprint) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        if (fingerprint == null) throw new IllegalArgumentException();
+        LOGGER.debug("putting fingerprint {} for {}", fingerprint, file);
+        fingerprintDAO.put(file, fingerprint);
+    }
+
+    @Override public void putFingerprints(Map<Path, Fingerprint> fingerprints) throws DAOException {
+        if (fingerprints == null) throw new IllegalArgumentException();
+        LOGGER.debug("putting {} fingerprints", fingerprints.size());
+        fingerprintDAO.putAll(fingerprints);
+    }
+
+    @Override public Map<Path, Fingerprint> readFingerprints() throws DAOException {
+        LOGGER.debug("reading fingerprints");
+        return fingerprintDAO.readAll();
+    }
+
 
 
     @Override public Collection<Path> index() throws DAOException {
@@ -156,6 +220,75 @@ public class JdbcPhotoCache implements PhotoCache {
         }
     }
 
+    private Collection<Path> putAllTransactional(Collection<Photo> photos) throws DAOException {
+        // NOTE: Only the last photo with a certain file is put.
+        Map<Path, Photo> byFile = new LinkedHashMap<>();
+        photos.forEach(photo -> byFile.put(photo.getFile(), photo));
+
+        // Save sub-entities, each distinct one only once.
+        Map<String, Photographer> photographers = new HashMap<>();
+        Map<List<String>, Place> places = new HashMap<>();
+        Map<String, Journey> journeys = new HashMap<>();
+        Map<String, Tag> tags = new HashMap<>();
+        for (Photo photo : byFile.values()) {
+            PhotoMetadata data = photo.getData();
+            Photographer photographer = data.getPhotographer();
+            if (photographer != null) {
+                if (!photographers.containsKey(photographer.getName())) {
+                    photographers.put(photographer.getName(), save(photographer));
+                }
+                data.setPhotographer(photographers.get(photographer.getName()));
+            }
+            Place place = data.getPlace();
+            if (place != null) {
+                List<String> key = Arrays.asList(place.getCountry(), place.getCity());
+                if (!places.containsKey(key)) {
+                    places.put(key, save(place));
+                }
+                data.setPlace(places.get(key));
+            }
+            Journey journey = data.getJourney();
+            if (journey != null) {
+                if (!journeys.containsKey(journey.getName())) {
+                    journeys.put(journey.getName(), save(journey));
+                }
+                data.setJourney(journeys.get(journey.getName()));
+            }
+            Set<Tag> photoTags = new HashSet<>(data.getTags());
+            data.getTags().clear();
+            for (Tag t : photoTags) {
+                Tag tag = tags.get(t.getName());
+                if (tag == null) {
+                    tag = save(t);
+                    tags.put(t.getName(), tag);
+                }
+                data.getTags().add(tag);
+            }
+        }
+
+        // Save photos
+        Map<Path, Integer> ids = photoDAO.readIdsByFiles(byFile.keySet());
+        List<Photo> created = new LinkedList<>();
+        List<Photo> updated = new LinkedList<>();
+        for (Photo photo : byFile.values()) {
+            Integer id = ids.get(photo.getFile());
+            if (id == null) {
+                created.add(photo);
+            } else {
+                photo.setId(id);
+                updated.add(photo);
+            }
+        }
+        photoTagDAO.deleteAllEntriesOfPhotos(updated);
+        photoDAO.updateAll(updated);
+        photoDAO.createAll(created);
+
+        // Link tags to photos
+        photoTagDAO.createPhotoTags(byFile.values());
+
+        return created.stream().map(Photo::getFile).collect(Collectors.toList());
+    }
+
     private boolean isNew(Photo photo) {
         try {
             Photo cached = photoDAO.getByFile(photo.getFile());
@@ -0,0 +1,569 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Helper for extracting the metadata segments of a JPEG stream.
+ *
+ * The metadata of a JPEG file is stored in APP segments at the beginning of the file. Reading
+ * only these segments avoids reading the compressed image data, which makes up almost all of
+ * the file.
+ */
+final class JpegSegments {
+
+    static final int MARKER_PREFIX = 0xFF;
+    static final int SOI = 0xD8;
+    static final int EOI = 0xD9;
+    static final int APP0 = 0xE0;
+    static final int APP1 = 0xE1;
+    static final int APP15 = 0xEF;
+    static final int COM = 0xFE;
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /** Maximum number of bytes in the data of a segment. */
+    static final int MAX_LENGTH = 0xFFFF - 2;
+
+    private static final byte[] EXIF_IDENTIFIER = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+
+    private JpegSegments() {
+    }
+
+    /**
+     * Reads the APP1 segments at the beginning of a JPEG stream, which contain the Exif and XMP
+     * metadata.
+     *
+     * Reading stops at the first segment that is neither an APP nor a comment segment, so at
+     * most a buffer's worth of the image data is read. The other segments are skipped without
+     * being copied. The APP1 segments are copied through one buffer that is reused for all of
+     * them, so no array is allocated per segment.
+     *
+     * @param is stream that is positioned at the beginning of a JPEG file
+     * @return JPEG data that consists of only the APP1 segments
+     * @throws IOException failed to read from the stream or the stream is not a JPEG file
+     */
+    static byte[] readMetadata(InputStream is) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(is, BUFFER_SIZE));
+        readStart(input);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream(16 * 1024);
+        output.write(MARKER_PREFIX);
+        output.write(SOI);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (true) {
+            int marker = readMarker(input);
+            boolean isApp = marker >= APP0 && marker <= APP15;
+            if (marker < 0 || (!isApp && marker != COM)) {
+                break;
+            }
+
+            int length = readLength(input);
+            if (marker != APP1) {
+                skipFully(input, length);
+                continue;
+            }
+            output.write(MARKER_PREFIX);
+            output.write(marker);
+            output.write((length + 2) >> 8);
+            output.write((length + 2) & 0xFF);
+            for (int remaining = length; remaining > 0; ) {
+                int count = Math.min(remaining, buffer.length);
+                input.readFully(buffer, 0, count);
+                output.write(buffer, 0, count);
+                remaining -= count;
+            }
+        }
+        output.write(MARKER_PREFIX);
+        output.write(EOI);
+        return output.toByteArray();
+    }
+
+    /**
+     * Reads the APP and comment segments at the beginning of a JPEG stream.
+     *
+     * Reading stops after the marker of the first other segment, which is then available as
+     * {@link Header#getNext()}. The rest of the stream is left unread.
+     *
+     * @param is stream that is positioned at the beginning of a JPEG file
+     * @param all true if the data of all segments should be read, false if only the data of
+     *            APP1 segments should be read and the others should be skipped
+     * @return header of the JPEG file
+     * @throws IOException failed to read from the stream or the stream is not a JPEG file
+     */
+    static Header readHeader(InputStream is, boolean all) throws IOException {
+        CountingInputStream counter = new CountingInputStream(is);
+        DataInputStream input = new DataInputStream(counter);
+        readStart(input);
+
+        List<Segment> segments = new ArrayList<>();
+        while (true) {
+            int marker = readMarker(input);
+            boolean isApp = marker >= APP0 && marker <= APP15;
+            if (marker < 0 || (!isApp && marker != COM)) {
+                return new Header(segments, marker);
+            }
+
+            long offset = counter.count - 2;
+            int length = readLength(input);
+            if (all || marker == APP1) {
+                byte[] data = new byte[length];
+                input.readFully(data);
+                segments.add(new Segment(marker, offset, length, data));
+            } else {
+                skipFully(input, length);
+                segments.add(new Segment(marker, offset, length, null));
+            }
+        }
+    }
+
+    /**
+     * Creates JPEG data without an image from the read segments.
+     *
+     * @param segments segments of which those that were read are included
+     * @return JPEG data that starts with SOI, contains the segments and ends with EOI
+     */
+    static byte[] toJpeg(List<Segment> segments) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(16 * 1024);
+        output.write(MARKER_PREFIX);
+        output.write(SOI);
+        try {
+            for (Segment segment : segments) {
+                if (segment.getData() != null) {
+                    write(output, segment.getMarker(), segment.getData());
+                }
+            }
+        } catch (IOException ex) {
+            // NOTE: Writing to a byte array can not fail.
+            throw new IllegalStateException(ex);
+        }
+        output.write(MARKER_PREFIX);
+        output.write(EOI);
+        return output.toByteArray();
+    }
+
+    /**
+     * Writes a segment with its marker and length.
+     *
+     * @param os stream to which the segment is written
+     * @param marker marker of the segment
+     * @param data data of the segment
+     * @throws IOException failed to write to the stream
+     */
+    static void write(OutputStream os, int marker, byte[] data) throws IOException {
+        if (data.length > MAX_LENGTH) {
+            throw new IOException("JPEG segment is too large.");
+        }
+        int length = data.length + 2;
+        os.write(MARKER_PREFIX);
+        os.write(marker);
+        os.write(length >> 8);
+        os.write(length & 0xFF);
+        os.write(data);
+    }
+
+    /**
+     * Removes the zeros that follow the TIFF structure of Exif data, such as the padding reserved
+     * for updates in place.
+     *
+     * Only zeros beyond the end of every directory and value of the structure are removed, so
+     * that a rewrite can place new values directly after the existing ones. If the structure can
+     * not be parsed, the data is returned unchanged.
+     *
+     * @param data data of an Exif segment
+     * @return data without trailing padding
+     */
+    static byte[] trimExif(byte[] data) {
+        int end;
+        try {
+            end = EXIF_IDENTIFIER.length
+                    + new TiffStructure(data, EXIF_IDENTIFIER.length).measure();
+        } catch (IOException ex) {
+            return data;
+        }
+        for (int i = end; i < data.length; i++) {
+            if (data[i] != 0) {
+                return data;
+            }
+        }
+        return end < data.length ? Arrays.copyOf(data, end) : data;
+    }
+
+    private static void readStart(DataInputStream input) throws IOException {
+        if (input.readUnsignedByte() != MARKER_PREFIX || input.readUnsignedByte() != SOI) {
+            throw new IOException("Stream is not a JPEG file.");
+        }
+    }
+
+    // Reads the length of the data of a segment, which follows its marker.
+    private static int readLength(DataInputStream input) throws IOException {
+        int length = input.readUnsignedShort() - 2;
+        if (length < 0) {
+            throw new IOException("Invalid JPEG segment length.");
+        }
+        return length;
+    }
+
+    // Reads the next marker, or returns -1 if the stream does not continue with a marker.
+    private static int readMarker(DataInputStream input) throws IOException {
+        int prefix = input.read();
+        if (prefix != MARKER_PREFIX) {
+            return -1;
+        }
+        int marker;
+        do {
+            // NOTE: A marker may be preceded by any number of fill bytes.
+            marker = input.read();
+        } while (marker == MARKER_PREFIX);
+        return marker;
+    }
+
+    private static void skipFully(InputStream is, long count) throws IOException {
+        while (count > 0) {
+            long skipped = is.skip(count);
+            if (skipped <= 0) {
+                if (is.read() < 0) {
+                    throw new EOFException();
+                }
+                skipped = 1;
+            }
+            count -= skipped;
+        }
+    }
+
+    /**
+     * APP or comment segment of a JPEG file.
+     */
+    static final class Segment {
+
+        private final int marker;
+        private final long offset;
+        private final int length;
+        private final byte[] data;
+
+        private Segment(int marker, long offset, int length, byte[] data) {
+            this.marker = marker;
+            this.offset = offset;
+            this.length = length;
+            this.data = data;
+        }
+
+        /**
+         * @return marker that identifies the type of the segment
+         */
+        int getMarker() {
+            return marker;
+        }
+
+        /**
+         * @return position of the marker relative to the start of the file
+         */
+        long getOffset() {
+            return offset;
+        }
+
+        /**
+         * @return position of the data relative to the start of the file
+         */
+        long getDataOffset() {
+            return offset + 4;
+        }
+
+        /**
+         * @return number of bytes of data in the segment
+         */
+        int getLength() {
+            return length;
+        }
+
+        /**
+         * @return data of the segment, or null if it was skipped
+         */
+        byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @param data data that replaces the data of the segment
+         * @return segment at the same position with other data
+         */
+        Segment withData(byte[] data) {
+            return new Segment(marker, offset, length, data);
+        }
+
+        /**
+         * @return true if the segment contains Exif metadata
+         */
+        boolean isExif() {
+            return marker == APP1 && data != null && data.length >= EXIF_IDENTIFIER.length
+                    && Arrays.equals(EXIF_IDENTIFIER, Arrays.copyOf(data, EXIF_IDENTIFIER.length));
+        }
+    }
+
+    /**
+     * Segments at the beginning of a JPEG file.
+     */
+    static final class Header {
+
+        private final List<Segment> segments;
+        private final int next;
+
+        private Header(List<Segment> segments, int next) {
+            this.segments = Collections.unmodifiableList(segments);
+            this.next = next;
+        }
+
+        /**
+         * @return APP and comment segments in the order of the file
+         */
+        List<Segment> getSegments() {
+            return segments;
+        }
+
+        /**
+         * @return the first exif segment, or null if there is none
+         */
+        Segment getExif() {
+            return segments.stream().filter(Segment::isExif).findFirst().orElse(null);
+        }
+
+        /**
+         * @return marker that followed the segments, or -1 if no marker followed
+         */
+        int getNext() {
+            return next;
+        }
+    }
+
+    // Measures the extent of a TIFF structure by walking its directories.
+    private static final class TiffStructure {
+
+        // NOTE: Sizes of the field types in bytes, indexed by the TIFF type number.
+        private static final int[] TYPE_SIZES = { 0, 1, 1, 2, 4, 8, 1, 1, 2, 4, 8, 4, 8, 4 };
+
+        private static final int EXIF_DIRECTORY = 0x8769;
+        private static final int GPS_DIRECTORY = 0x8825;
+        private static final int INTEROPERABILITY_DIRECTORY = 0xA005;
+        private static final int STRIP_OFFSETS = 0x0111;
+        private static final int STRIP_BYTE_COUNTS = 0x0117;
+        private static final int THUMBNAIL_OFFSET = 0x0201;
+        private static final int THUMBNAIL_LENGTH = 0x0202;
+
+        private final byte[] data;
+        private final int start;
+        private final int length;
+        private final Set<Long> visited = new HashSet<>();
+        private boolean littleEndian;
+        private long end;
+
+        private TiffStructure(byte[] data, int start) {
+            this.data = data;
+            this.start = start;
+            this.length = data.length - start;
+        }
+
+        // Returns the number of bytes up to the end of the last directory or value.
+        private int measure() throws IOException {
+            if (length < 8) {
+                throw new IOException("TIFF header is incomplete.");
+            }
+            if (data[start] == 'I' && data[start + 1] == 'I') {
+                littleEndian = true;
+            } else if (data[start] != 'M' || data[start + 1] != 'M') {
+                throw new IOException("Unknown TIFF byte order.");
+            }
+            if (readShort(2) != 42) {
+                throw new IOException("Invalid TIFF header.");
+            }
+
+            end = 8;
+            readDirectories(readInt(4));
+            return (int)end;
+        }
+
+        private void readDirectories(long offset) throws IOException {
+            while (offset != 0) {
+                offset = readDirectory(offset);
+            }
+        }
+
+        // Reads a directory with all its values and returns the offset of the next directory.
+        private long readDirectory(long offset) throws IOException {
+            if (!visited.add(offset)) {
+                throw new IOException("TIFF directories form a loop.");
+            }
+            int count = readShort(offset);
+            long entries = offset + 2;
+            extend(entries + 12L * count + 4);
+
+            long[] strips = null;
+            long[] stripLengths = null;
+            long thumbnail = -1;
+            long thumbnailLength = -1;
+            for (int i = 0; i < count; i++) {
+                long entry = entries + 12L * i;
+                int tag = readShort(entry);
+                int type = readShort(entry + 2);
+                long values = readInt(entry + 4);
+                if (type <= 0 || type >= TYPE_SIZES.length) {
+                    throw new IOException("Unknown TIFF field type.");
+                }
+                long size = values * TYPE_SIZES[type];
+                long position = size > 4 ? readInt(entry + 8) : entry + 8;
+                extend(position + size);
+
+                switch (tag) {
+                    case EXIF_DIRECTORY:
+                    case GPS_DIRECTORY:
+                    case INTEROPERABILITY_DIRECTORY:
+                        readDirectories(readValues(type, position, values)[0]);
+                        break;
+                    case STRIP_OFFSETS:
+                        strips = readValues(type, position, values);
+                        break;
+                    case STRIP_BYTE_COUNTS:
+                        stripLengths = readValues(type, position, values);
+                        break;
+                    case THUMBNAIL_OFFSET:
+                        thumbnail = readValues(type, position, values)[0];
+                        break;
+                    case THUMBNAIL_LENGTH:
+                        thumbnailLength = readValues(type, position, values)[0];
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            if (thumbnail >= 0 && thumbnailLength >= 0) {
+                extend(thumbnail + thumbnailLength);
+            }
+            if (strips != null && stripLengths != null) {
+                for (int i = 0; i < Math.min(strips.length, stripLengths.length); i++) {
+                    extend(strips[i] + stripLengths[i]);
+                }
+            }
+            return readInt(entries + 12L * count);
+        }
+
+        private long[] readValues(int type, long position, long count) throws IOException {
+            if (count < 1 || count > length) {
+                throw new IOException("Invalid TIFF value count.");
+            }
+            long[] result = new long[(int)count];
+            for (int i = 0; i < count; i++) {
+                if (type == 3) {
+                    result[i] = readShort(position + 2L * i);
+                } else if (type == 4 || type == 13) {
+                    result[i] = readInt(position + 4L * i);
+                } else {
+                    throw new IOException("TIFF offset has invalid type.");
+                }
+            }
+            return result;
+        }
+
+        private void extend(long position) throws IOException {
+            if (position > length) {
+                throw new IOException("TIFF structure exceeds the data.");
+            }
+            end = Math.max(end, position);
+        }
+
+        private int readShort(long position) throws IOException {
+            return (int)read(position, 2);
+        }
+
+        private long readInt(long position) throws IOException {
+            return read(position, 4);
+        }
+
+        private long read(long position, int size) throws IOException {
+            if (position < 0 || position + size > length) {
+                throw new IOException("TIFF offset exceeds the data.");
+            }
+            long result = 0;
+            for (int i = 0; i < size; i++) {
+                int index = littleEndian ? size - 1 - i : i;
+                result = (result << 8) | (data[start + (int)position + index] & 0xFF);
+            }
+            return result;
+        }
+    }
+
+    // Counts the bytes read from a stream, so that the positions of segments are known.
+    private static class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override public int read() throws IOException {
+            int result = super.read();
+            if (result >= 0) {
+                count++;
+            }
+            return result;
+        }
+
+        @Override public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            if (result > 0) {
+                count += result;
+            }
+            return result;
+        }
+
+        @Override public long skip(long n) throws IOException {
+            long result = super.skip(n);
+            count += result;
+            return result;
+        }
+
+        @Override public boolean markSupported() {
+            return false;
+        }
+    }
+}
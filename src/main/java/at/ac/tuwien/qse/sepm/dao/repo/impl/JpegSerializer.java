@@ -42,14 +42,18 @@ import org.apache.commons.imaging.formats.tiff.TiffImageMetadata;
 import org.apache.commons.imaging.formats.tiff.constants.ExifTagConstants;
 import org.apache.commons.imaging.formats.tiff.write.TiffOutputDirectory;
 import org.apache.commons.imaging.formats.tiff.write.TiffOutputSet;
+import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.stream.Collectors;
 
 public class JpegSerializer implements PhotoSerializer {
 
@@ -57,6 +61,9 @@ public class JpegSerializer implements PhotoSerializer {
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter
             .ofPattern("yyyy:MM:dd HH:mm:ss");
 
+    /** Number of bytes reserved after the Exif data when a photo is rewritten. */
+    private static final int EXIF_PADDING = 4 * 1024;
+
     @Override public PhotoMetadata read(InputStream is) throws DAOException {
         if (is == null)
             throw new IllegalArgumentException();
@@ -64,7 +71,9 @@ public class JpegSerializer implements PhotoSerializer {
 
         ImageMetadata imageData;
         try {
-            imageData = Imaging.getMetadata(is, null);
+            // NOTE: Only the metadata segments are read, instead of the whole image.
+            byte[] segments = JpegSegments.readMetadata(is);
+            imageData = Imaging.getMetadata(new ByteArrayInputStream(segments), null);
         } catch (ImageReadException | IOException ex) {
             LOGGER.warn("failed reading metadata");
             throw new FormatException(ex);
@@ -98,6 +107,103 @@ public class JpegSerializer implements PhotoSerializer {
             throw new IllegalArgumentException();
         LOGGER.debug("updating photo metadata {}", metadata);
 
+        // NOTE: The header and the image data are read through the same buffer.
+        InputStream input = new BufferedInputStream(is);
+        try {
+            JpegSegments.Header header = JpegSegments.readHeader(input, true);
+            if (header.getNext() < 0) {
+                LOGGER.warn("could not find end of metadata segments");
+                throw new FormatException();
+            }
+
+            // NOTE: Reserve some space, so that later changes can be written in place. The Exif
+            // data never contains earlier padding, so the file grows by it only once.
+            byte[] exif = createExif(header, metadata);
+            int padding = Math.min(EXIF_PADDING, JpegSegments.MAX_LENGTH - exif.length);
+            if (padding > 0) {
+                exif = Arrays.copyOf(exif, exif.length + padding);
+            }
+
+            os.write(JpegSegments.MARKER_PREFIX);
+            os.write(JpegSegments.SOI);
+            boolean written = false;
+            for (JpegSegments.Segment segment : header.getSegments()) {
+                if (segment.isExif()) {
+                    if (!written) {
+                        JpegSegments.write(os, JpegSegments.APP1, exif);
+                        written = true;
+                    }
+                    continue;
+                }
+                // NOTE: A JFIF segment must remain the first segment.
+                if (!written && segment.getMarker() != JpegSegments.APP0) {
+                    JpegSegments.write(os, JpegSegments.APP1, exif);
+                    written = true;
+                }
+                JpegSegments.write(os, segment.getMarker(), segment.getData());
+            }
+            if (!written) {
+                JpegSegments.write(os, JpegSegments.APP1, exif);
+            }
+
+            // The image data is copied without looking at it.
+            os.write(JpegSegments.MARKER_PREFIX);
+            os.write(header.getNext());
+            IOUtils.copy(input, os);
+        } catch (IOException ex) {
+            LOGGER.warn("failed updating metadata");
+            throw new DAOException(ex);
+        }
+
+        LOGGER.debug("updated photo metadata");
+    }
+
+    @Override public boolean updateInPlace(FileChannel channel, PhotoMetadata metadata)
+            throws DAOException {
+        if (channel == null)
+            throw new IllegalArgumentException();
+        if (metadata == null)
+            throw new IllegalArgumentException();
+        LOGGER.debug("updating photo metadata in place {}", metadata);
+
+        try {
+            channel.position(0);
+            // NOTE: The stream is not closed, because that would close the channel.
+            InputStream is = new BufferedInputStream(Channels.newInputStream(channel));
+            JpegSegments.Header header = JpegSegments.readHeader(is, false);
+            JpegSegments.Segment segment = header.getExif();
+            if (segment == null) {
+                LOGGER.debug("no existing exif segment to update in place");
+                return false;
+            }
+
+            byte[] exif = createExif(header, metadata);
+            if (exif.length > segment.getLength()) {
+                LOGGER.debug("updated exif needs {} bytes but only {} are available",
+                        exif.length, segment.getLength());
+                return false;
+            }
+
+            // NOTE: The remaining space is filled with zeros, which are ignored after the Exif data.
+            ByteBuffer buffer = ByteBuffer.allocate(segment.getLength());
+            buffer.put(exif);
+            buffer.rewind();
+            long position = segment.getDataOffset();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("failed updating metadata in place");
+            throw new DAOException(ex);
+        }
+
+        LOGGER.debug("updated photo metadata in place");
+        return true;
+    }
+
+    // Creates the data of an Exif segment that contains the metadata.
+    private byte[] createExif(JpegSegments.Header header, PhotoMetadata metadata)
+            throws DAOException {
         String tags = "travelimg";
 
         for (Tag element : metadata.getTags()) {
@@ -125,22 +231,24 @@ public class JpegSerializer implements PhotoSerializer {
         }
 
         try {
-            is.mark(Integer.MAX_VALUE);
-            ImageMetadata imageData = Imaging.getMetadata(is, null);
-            if (imageData == null) {
-                LOGGER.debug("could not find image metadata");
-                throw new DAOException("No metadata found.");
-            }
-            if (!(imageData instanceof JpegImageMetadata)) {
-                LOGGER.debug("metadata is of unknown type");
-                throw new DAOException("Metadata is of unknown type.");
-            }
+            // NOTE: Only the metadata segments are parsed and rewritten, instead of the whole image.
+            // The padding of an earlier rewrite is removed, since the rewriter keeps the old data
+            // as it is and would place grown directories behind the padding.
+            byte[] segments = JpegSegments.toJpeg(header.getSegments().stream()
+                    .filter(JpegSegments.Segment::isExif)
+                    .map(segment -> segment.withData(JpegSegments.trimExif(segment.getData())))
+                    .collect(Collectors.toList()));
+            ImageMetadata imageData = Imaging.getMetadata(new ByteArrayInputStream(segments), null);
 
-            JpegImageMetadata jpegData = (JpegImageMetadata) imageData;
             TiffOutputSet outputSet = new TiffOutputSet();
-            TiffImageMetadata exifData = jpegData.getExif();
-            if (exifData != null) {
-                outputSet = exifData.getOutputSet();
+            if (imageData instanceof JpegImageMetadata) {
+                TiffImageMetadata exifData = ((JpegImageMetadata) imageData).getExif();
+                if (exifData != null) {
+                    outputSet = exifData.getOutputSet();
+                }
+            } else if (imageData != null) {
+                LOGGER.debug("metadata is of unknown type");
+                throw new DAOException("Metadata is of unknown type.");
             }
 
             TiffOutputDirectory exifDirectory = outputSet.getOrCreateExifDirectory();
@@ -153,15 +261,18 @@ public class JpegSerializer implements PhotoSerializer {
             exifDirectory.removeField(ExifTagConstants.EXIF_TAG_USER_COMMENT);
             exifDirectory.add(ExifTagConstants.EXIF_TAG_USER_COMMENT, tags);
 
-            is.reset();
-            new ExifRewriter().updateExifMetadataLossless(is, os, outputSet);
-
+            ByteArrayOutputStream output = new ByteArrayOutputStream(segments.length + 1024);
+            new ExifRewriter().updateExifMetadataLossless(segments, output, outputSet);
+            JpegSegments.Segment exif = JpegSegments
+                    .readHeader(new ByteArrayInputStream(output.toByteArray()), false).getExif();
+            if (exif == null) {
+                throw new DAOException("Failed creating exif segment.");
+            }
+            return exif.getData();
         } catch (IOException | ImageReadException | ImageWriteException ex) {
-            LOGGER.warn("failed updating metadata");
+            LOGGER.warn("failed creating exif metadata");
             throw new DAOException(ex);
         }
-
-        LOGGER.debug("updated photo metadata");
     }
 
     private void readDate(JpegImageMetadata input, PhotoMetadata output) {
@@ -29,6 +29,7 @@ package at.ac.tuwien.qse.sepm.dao.repo.impl;
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
 import at.ac.tuwien.qse.sepm.dao.repo.*;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -48,6 +49,7 @@ public class MemoryPhotoCache implements PhotoCache {
 
     private final Map<Path, Photo> photos = new HashMap<>();
     private final Map<Path, LocalDateTime> modified = new HashMap<>();
+    private final Map<Path, Fingerprint> fingerprints = new HashMap<>();
 
     @Override public void put(Photo photo) throws DAOException {
         if (photo == null) throw new IllegalArgumentException();
@@ -57,6 +59,17 @@ public class MemoryPhotoCache implements PhotoCache {
         LOGGER.debug("put {}", photo);
     }
 
+    @Override public void putFingerprint(Path file, Fingerprint fingerprint) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        if (fingerprint == null) throw new IllegalArgumentException();
+        LOGGER.debug("putting fingerprint {} for {}", fingerprint, file);
+        fingerprints.put(file, fingerprint);
+    }
+
+    @Override public Map<Path, Fingerprint> readFingerprints() throws DAOException {
+        return new HashMap<>(fingerprints);
+    }
+
     @Override public void remove(Path file) throws DAOException {
         if (file == null) throw new IllegalArgumentException();
         LOGGER.debug("removing {}", file);
@@ -65,6 +78,7 @@ public class MemoryPhotoCache implements PhotoCache {
         }
         photos.remove(file);
         modified.remove(file);
+        fingerprints.remove(file);
         LOGGER.debug("removed {}", file);
     }
 
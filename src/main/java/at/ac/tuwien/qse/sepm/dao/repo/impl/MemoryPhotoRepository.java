@@ -29,6 +29,7 @@ package at.ac.tuwien.qse.sepm.dao.repo.impl;
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
 import at.ac.tuwien.qse.sepm.dao.repo.*;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import at.ac.tuwien.qse.sepm.entities.PhotoMetadata;
 import org.apache.commons.io.IOUtils;
@@ -52,6 +53,7 @@ public class MemoryPhotoRepository implements PhotoRepository {
     private final PhotoSerializer serializer;
     private final Path prefix;
     private final Map<Path, Object> files = new HashMap<>();
+    private final Map<Path, Long> modified = new HashMap<>();
     private final Collection<Listener> listeners = new LinkedList<>();
 
     public MemoryPhotoRepository(PhotoSerializer serializer, Path prefix) {
@@ -88,6 +90,7 @@ public class MemoryPhotoRepository implements PhotoRepository {
         try {
             byte[] array = IOUtils.toByteArray(source);
             files.put(file, array);
+            modified.put(file, System.currentTimeMillis());
             LOGGER.info("created {}", file);
             listeners.forEach(l -> l.onCreate(this, file));
         } catch (IOException ex) {
@@ -108,6 +111,7 @@ public class MemoryPhotoRepository implements PhotoRepository {
         ByteArrayOutputStream os = new ByteArrayOutputStream();
         serializer.update(is, os, photo.getData());
         files.put(file, os.toByteArray());
+        modified.put(file, System.currentTimeMillis());
         LOGGER.info("updated {}", photo);
         listeners.forEach(l -> l.onUpdate(this, file));
     }
@@ -121,10 +125,27 @@ public class MemoryPhotoRepository implements PhotoRepository {
         }
 
         files.remove(file);
+        modified.remove(file);
         LOGGER.info("deleted {}", file);
         listeners.forEach(l -> l.onDelete(this, file));
     }
 
+    @Override public Fingerprint fingerprint(Path file) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        LOGGER.debug("fingerprinting {}", file);
+
+        if (!contains(file)) {
+            throw new PhotoNotFoundException(this, file);
+        }
+
+        byte[] array = (byte[])files.get(file);
+        try {
+            return Fingerprints.create(array.length, modified.get(file), new ByteArrayInputStream(array));
+        } catch (IOException ex) {
+            throw new DAOException(ex);
+        }
+    }
+
     @Override public void addListener(Listener listener) {
         if (listener == null) throw new IllegalArgumentException();
         listeners.add(listener);
@@ -0,0 +1,176 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.repo.PhotoSerializer;
+import at.ac.tuwien.qse.sepm.entities.PhotoMetadata;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes photo metadata to files.
+ *
+ * The metadata is patched in place if the serializer supports that and the new metadata fits
+ * into the space of the old one. Otherwise the photo is written to a temporary file next to the
+ * original, which then replaces the original in a single move.
+ */
+public class MetadataWriter {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final FileManager fileManager;
+    private final PhotoSerializer serializer;
+
+    public MetadataWriter(FileManager fileManager, PhotoSerializer serializer) {
+        if (fileManager == null) throw new IllegalArgumentException();
+        if (serializer == null) throw new IllegalArgumentException();
+        this.fileManager = fileManager;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Writes metadata to an existing photo file.
+     *
+     * @param file file to which the metadata should be written
+     * @param metadata metadata that should be written
+     * @throws DAOException failed to perform operation
+     */
+    public void write(Path file, PhotoMetadata metadata) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        if (metadata == null) throw new IllegalArgumentException();
+
+        if (writeInPlace(file, metadata)) {
+            LOGGER.debug("updated {} in place", file);
+            return;
+        }
+        rewrite(file, metadata);
+        LOGGER.debug("rewrote {}", file);
+    }
+
+    private boolean writeInPlace(Path file, PhotoMetadata metadata) throws DAOException {
+        FileChannel channel;
+        try {
+            channel = fileManager.newFileChannel(file);
+        } catch (IOException ex) {
+            LOGGER.debug("failed opening channel for file {}", file);
+            return false;
+        }
+
+        try {
+            return serializer.updateInPlace(channel, metadata);
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                LOGGER.warn("failed closing channel for file {}", file);
+                LOGGER.error(ex);
+            }
+        }
+    }
+
+    private void rewrite(Path file, PhotoMetadata metadata) throws DAOException {
+        Path temp = Paths.get(file.toString() + ".temp");
+        InputStream is = null;
+        OutputStream os = null;
+        try {
+            if (!fileManager.exists(temp)) {
+                try {
+                    fileManager.createFile(temp);
+                } catch (IOException ex) {
+                    LOGGER.warn("failed creating temp file at {}", temp);
+                    throw new DAOException(ex);
+                }
+            }
+
+            try {
+                is = fileManager.newInputStream(file);
+            } catch (IOException ex) {
+                LOGGER.warn("failed creating input stream for file {}", file);
+                throw new DAOException(ex);
+            }
+
+            try {
+                os = fileManager.newOutputStream(temp);
+            } catch (IOException ex) {
+                LOGGER.warn("failed creating output stream for file {}", temp);
+                throw new DAOException(ex);
+            }
+
+            serializer.update(is, os, metadata);
+
+            // NOTE: The streams must be closed before the file is moved.
+            try {
+                is.close();
+                is = null;
+                os.close();
+                os = null;
+            } catch (IOException ex) {
+                LOGGER.warn("failed closing streams for file {}", file);
+                throw new DAOException(ex);
+            }
+
+            try {
+                fileManager.move(temp, file);
+            } catch (IOException ex) {
+                LOGGER.warn("failed moving {} -> {}", temp, file);
+                throw new DAOException(ex);
+            }
+        } finally {
+            close(is, file);
+            close(os, temp);
+            try {
+                if (fileManager.exists(temp)) {
+                    fileManager.delete(temp);
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("failed deleting temp file {}", temp);
+                LOGGER.error(ex);
+            }
+        }
+    }
+
+    private void close(AutoCloseable closeable, Path file) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception ex) {
+            LOGGER.warn("failed closing stream for file {}", file);
+            LOGGER.error(ex);
+        }
+    }
+}
@@ -0,0 +1,448 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.repo.FileWatcher;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * File watcher that is notified about changes by a {@link WatchService} instead of walking the
+ * whole directory tree on every refresh.
+ *
+ * Every directory below a registered directory is registered with the watch service. Events are
+ * collected on {@link #refresh()} and a file is only examined once it was not touched for the
+ * debounce interval, so that a file that is written in several steps triggers a single
+ * notification. Since events may wait in the queue until the next refresh, the time of an event
+ * is the modification time of its file, or the time it was collected if the file is gone. If the
+ * watch service overflows, the affected directory is scanned again.
+ * Directories that can not be registered with the watch service, for example on some network
+ * mounts, are polled on every refresh instead.
+ */
+public class NioFileWatcher implements FileWatcher {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Time in milliseconds a file must remain untouched before it is examined. */
+    public static final long DEBOUNCE_MILLIS = 500;
+
+    private final FileManager fileManager;
+    private final WatchService watchService;
+    private final DirectoryScanner scanner;
+
+    private final Set<String> extensions = ConcurrentHashMap.newKeySet();
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final Set<Path> watched = ConcurrentHashMap.newKeySet();
+    private final Map<Path, Set<Path>> watchedByDirectory = new HashMap<>();
+    private final Map<Path, FileTime> modified = new HashMap<>();
+    private final Collection<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Map<WatchKey, Path> keys = new HashMap<>();
+    private final Map<Path, WatchKey> keysByDirectory = new HashMap<>();
+    private final Set<Path> polled = new HashSet<>();
+    private final Set<Path> rescans = new HashSet<>();
+    private final Map<Path, Long> dirty = new LinkedHashMap<>();
+
+    public NioFileWatcher() {
+        this(new PhysicalFileManager(), newWatchService());
+    }
+
+    /**
+     * Creates a watcher without a watch service, so that all registered directories are polled.
+     *
+     * @param fileManager file manager used to access the file system
+     */
+    public NioFileWatcher(FileManager fileManager) {
+        this(fileManager, (WatchService)null);
+    }
+
+    /**
+     * Creates a watcher.
+     *
+     * @param fileManager file manager used to access the file system
+     * @param watchService watch service used to observe directories, or null to poll them
+     */
+    public NioFileWatcher(FileManager fileManager, WatchService watchService) {
+        this(fileManager, watchService, new RecursiveDirectoryScanner(fileManager));
+    }
+
+    /**
+     * Creates a watcher that uses the default watch service.
+     *
+     * @param fileManager file manager used to access the file system
+     * @param scanner scanner used for directories that have to be polled
+     */
+    public NioFileWatcher(FileManager fileManager, DirectoryScanner scanner) {
+        this(fileManager, newWatchService(), scanner);
+    }
+
+    /**
+     * Creates a watcher.
+     *
+     * @param fileManager file manager used to access the file system
+     * @param watchService watch service used to observe directories, or null to poll them
+     * @param scanner scanner used for directories that have to be polled
+     */
+    public NioFileWatcher(FileManager fileManager, WatchService watchService, DirectoryScanner scanner) {
+        if (fileManager == null) throw new IllegalArgumentException();
+        if (scanner == null) throw new IllegalArgumentException();
+        this.fileManager = fileManager;
+        this.watchService = watchService;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Get the a modifiable set of file extensions recognized by this watcher. Only if a file ends
+     * with a period and one of these extensions will it trigger notifications.
+     *
+     * @return set of recognized extensions
+     */
+    public Set<String> getExtensions() {
+        return extensions;
+    }
+
+    @Override public boolean recognizes(Path file) {
+        return checkExtension(file) && isCovered(file);
+    }
+
+    @Override public Collection<Path> index() {
+        return new HashSet<>(watched);
+    }
+
+    @Override public synchronized void register(Path directory) {
+        if (directory == null) throw new IllegalArgumentException();
+        LOGGER.debug("registering directory {}", directory);
+
+        if (!directories.add(directory)) {
+            LOGGER.debug("already registered directory {}", directory);
+            return;
+        }
+
+        rescans.add(directory);
+        LOGGER.debug("registered directory {}", directory);
+    }
+
+    @Override public synchronized void unregister(Path directory) {
+        if (!directories.remove(directory)) {
+            return;
+        }
+
+        // Stop watching directories that are no longer covered by any registered directory.
+        new ArrayList<>(keysByDirectory.keySet()).stream()
+                .filter(dir -> dir.startsWith(directory) && !isCovered(dir))
+                .forEach(this::unwatch);
+        rescans.add(directory);
+    }
+
+    @Override public void addListener(Listener listener) {
+        if (listener == null) throw new IllegalArgumentException();
+        listeners.add(listener);
+        LOGGER.debug("added listener {}", listener);
+    }
+
+    @Override public void removeListener(Listener listener) {
+        if (listener == null) throw new IllegalArgumentException();
+        listeners.remove(listener);
+        LOGGER.debug("removed listener {}", listener);
+    }
+
+    @Override public Collection<Path> getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Processes the changes reported since the last refresh.
+     *
+     * Newly registered directories are scanned completely, so that their files trigger create
+     * notifications. Afterwards only directories that could not be watched are polled.
+     */
+    public synchronized void refresh() {
+        LOGGER.debug("currently watching {} files", watched.size());
+        pollEvents();
+
+        Set<Path> scans = new HashSet<>(rescans);
+        scans.addAll(polled);
+        rescans.clear();
+        scans.stream()
+                .filter(dir -> scans.stream().noneMatch(other -> !other.equals(dir) && dir.startsWith(other)))
+                .forEach(this::rescan);
+
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = dirty.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Long> entry = iterator.next();
+            if (now - entry.getValue() < DEBOUNCE_MILLIS) {
+                continue;
+            }
+            iterator.remove();
+            Path file = entry.getKey();
+            update(file, recognizes(file) && fileManager.isFile(file));
+        }
+        LOGGER.debug("now watching {} files", watched.size());
+    }
+
+    /**
+     * Closes the underlying watch service.
+     */
+    public synchronized void close() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException ex) {
+            LOGGER.warn("failed closing watch service");
+            LOGGER.error("error: ", ex);
+        }
+    }
+
+    // Collects the events of all signalled watch keys without blocking.
+    private void pollEvents() {
+        if (watchService == null) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        WatchKey key;
+        try {
+            while ((key = watchService.poll()) != null) {
+                Path directory = keys.get(key);
+                if (directory == null) {
+                    key.cancel();
+                    continue;
+                }
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    handleEvent(directory, event, now);
+                }
+                if (!key.reset()) {
+                    // NOTE: The directory was deleted or became inaccessible.
+                    unwatch(directory);
+                    rescans.add(directory);
+                }
+            }
+        } catch (ClosedWatchServiceException ex) {
+            LOGGER.debug("watch service is closed");
+        }
+    }
+
+    // Handles a single event reported for a watched directory.
+    private void handleEvent(Path directory, WatchEvent<?> event, long now) {
+        if (event.kind() == OVERFLOW) {
+            LOGGER.info("events lost for directory {}", directory);
+            rescans.add(directory);
+            return;
+        }
+
+        Path path = directory.resolve((Path)event.context());
+        if (event.kind() == ENTRY_CREATE && fileManager.isDirectory(path)) {
+            // NOTE: Files may have been created before the directory could be registered.
+            rescans.add(path);
+        } else if (checkExtension(path)) {
+            dirty.merge(path, getEventTime(path, now), Math::max);
+        } else if (event.kind() == ENTRY_DELETE && isWatchedDirectory(path)) {
+            // NOTE: Deleting a directory reports no events for the files in it.
+            rescans.add(path);
+        }
+    }
+
+    // Scans a directory recursively and notifies about all differences to the known files in it.
+    private void rescan(Path directory) {
+        LOGGER.debug("scanning directory {}", directory);
+        Set<Path> files = new HashSet<>();
+        if (isCovered(directory) && fileManager.isDirectory(directory)) {
+            if (polled.stream().anyMatch(directory::startsWith)) {
+                files.addAll(scanner.scan(Collections.singleton(directory), this::checkExtension));
+            } else {
+                collectFiles(directory, files);
+            }
+        } else {
+            polled.remove(directory);
+            if (directories.contains(directory)) {
+                // NOTE: Look again for a registered directory that is currently missing.
+                rescans.add(directory);
+            }
+        }
+
+        Set<Path> known = watchedByDirectory.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(directory))
+                .flatMap(entry -> entry.getValue().stream())
+                .collect(Collectors.toSet());
+        known.removeAll(files);
+        files.forEach(file -> update(file, true));
+        known.forEach(file -> update(file, recognizes(file) && fileManager.isFile(file)));
+        LOGGER.debug("found {} files in {}", files.size(), directory);
+    }
+
+    // Recursively collects all files in a directory into a set and watches the directories.
+    private void collectFiles(Path directory, Set<Path> result) {
+        if (polled.contains(directory) || !watch(directory)) {
+            LOGGER.info("polling directory {}", directory);
+            polled.add(directory);
+            result.addAll(scanner.scan(Collections.singleton(directory), this::checkExtension));
+            return;
+        }
+
+        try {
+            // NOTE: Stream must always be closed.
+            // Otherwise the directory remains open in the application.
+            Collection<Path> paths;
+            try (Stream<Path> stream = fileManager.list(directory)) {
+                paths = stream.collect(Collectors.toList());
+            }
+            for (Path path : paths) {
+                if (fileManager.isDirectory(path)) {
+                    collectFiles(path, result);
+                }
+                if (fileManager.isFile(path) && checkExtension(path)) {
+                    result.add(path);
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            LOGGER.info("can not find directory {}", directory);
+        } catch (IOException ex) {
+            LOGGER.warn("failed listing contents for directory {}", directory);
+            LOGGER.error("error: ", ex);
+        }
+    }
+
+    // Registers a directory with the watch service and returns whether that succeeded.
+    private boolean watch(Path directory) {
+        if (watchService == null) {
+            return false;
+        }
+        if (keysByDirectory.containsKey(directory)) {
+            return true;
+        }
+        try {
+            WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            keys.put(key, directory);
+            keysByDirectory.put(directory, key);
+            return true;
+        } catch (IOException | UnsupportedOperationException | ClosedWatchServiceException ex) {
+            LOGGER.warn("failed watching directory {}", directory);
+            return false;
+        }
+    }
+
+    private void unwatch(Path directory) {
+        WatchKey key = keysByDirectory.remove(directory);
+        if (key != null) {
+            keys.remove(key);
+            key.cancel();
+        }
+    }
+
+    // Get whether a path is a directory that contains known files or watched subdirectories.
+    private boolean isWatchedDirectory(Path path) {
+        return watchedByDirectory.containsKey(path) || keysByDirectory.containsKey(path);
+    }
+
+    // Compares a file to the known state and notifies the listeners about the difference.
+    private void update(Path file, boolean isPhysical) {
+        boolean isKnown = watched.contains(file);
+        if (isPhysical && isKnown) {
+            FileTime time = getLastModified(file);
+            if (time == null || !time.equals(modified.get(file))) {
+                modified.put(file, time);
+                listeners.forEach(l -> l.onUpdate(this, file));
+            }
+        } else if (isPhysical) {
+            watched.add(file);
+            watchedByDirectory.computeIfAbsent(file.getParent(), dir -> new HashSet<>()).add(file);
+            modified.put(file, getLastModified(file));
+            listeners.forEach(l -> l.onCreate(this, file));
+        } else if (isKnown) {
+            watched.remove(file);
+            Set<Path> siblings = watchedByDirectory.get(file.getParent());
+            if (siblings != null && siblings.remove(file) && siblings.isEmpty()) {
+                watchedByDirectory.remove(file.getParent());
+            }
+            modified.remove(file);
+            listeners.forEach(l -> l.onDelete(this, file));
+        }
+    }
+
+    // Get the time at which a file was last touched, which is at most the given time.
+    private long getEventTime(Path file, long now) {
+        if (!fileManager.isFile(file)) {
+            return now;
+        }
+        FileTime time = getLastModified(file);
+        return time == null ? now : Math.min(time.toMillis(), now);
+    }
+
+    // Get the last modification time of a physical file, or null if it is not available.
+    private FileTime getLastModified(Path file) {
+        try {
+            return fileManager.getLastModifiedTime(file);
+        } catch (IOException ex) {
+            // NOTE: Assume it has changed.
+            LOGGER.warn("failed getting last modification time for file {}", file);
+            return null;
+        }
+    }
+
+    private boolean checkExtension(Path file) {
+        String fileString = file.toString();
+        for (String ext : extensions) {
+            if (fileString.endsWith("." + ext)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isCovered(Path path) {
+        for (Path dir : directories) {
+            if (path.startsWith(dir)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static WatchService newWatchService() {
+        try {
+            return FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException ex) {
+            LOGGER.warn("watch service not available, falling back to polling");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.repo.AsyncPhotoRepository;
+import at.ac.tuwien.qse.sepm.dao.repo.Operation;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Lane;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Priority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Completes the queued operations of an async repository in the sync lane.
+ *
+ * Every worker drains the queue until it runs out of operations it is allowed to perform. Since
+ * the repository does not hand out operations on files that are currently being processed, the
+ * order of operations on the same file is preserved while operations on different files are
+ * completed in parallel.
+ */
+public class OperationExecutor implements AsyncPhotoRepository.AsyncListener {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final AsyncPhotoRepository repository;
+    private final LaneExecutor executor;
+    private final int threads;
+
+    private final AtomicInteger workers = new AtomicInteger();
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private volatile boolean closed = false;
+
+    /**
+     * Create an executor that completes the operations of a repository with one worker per
+     * thread of the sync lane.
+     *
+     * @param repository repository whose operations should be completed
+     * @param executor executor whose sync lane runs the workers
+     */
+    public OperationExecutor(AsyncPhotoRepository repository, LaneExecutor executor) {
+        if (repository == null) throw new IllegalArgumentException();
+        if (executor == null) throw new IllegalArgumentException();
+        this.repository = repository;
+        this.executor = executor;
+        this.threads = executor.getThreads(Lane.SYNC);
+        repository.addListener(this);
+        LOGGER.info("completing operations with {} threads", this.threads);
+    }
+
+    /**
+     * Get the maximum number of operations that are completed at the same time.
+     *
+     * @return number of worker threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Stops the workers. Operations remaining in the queue are not completed.
+     */
+    public void close() {
+        closed = true;
+        repository.removeListener(this);
+    }
+
+    @Override public void onQueue(AsyncPhotoRepository repository, Operation operation) {
+        // NOTE: The flag must be set before trying to start a worker. A worker that is about to
+        // stop checks the flag after giving up its slot, so the operation is never left behind.
+        pending.set(true);
+        if (acquire()) {
+            start();
+        }
+    }
+
+    private void start() {
+        try {
+            executor.submit(Lane.SYNC, Priority.NORMAL, this::work);
+        } catch (RejectedExecutionException ex) {
+            // The next queued operation tries again.
+            LOGGER.warn("failed starting worker", ex);
+            workers.decrementAndGet();
+        }
+    }
+
+    private boolean acquire() {
+        int current;
+        do {
+            current = workers.get();
+            if (current >= threads) return false;
+        } while (!workers.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void work() {
+        do {
+            do {
+                pending.set(false);
+                try {
+                    while (!closed && repository.completeNext());
+                } catch (RuntimeException ex) {
+                    LOGGER.error("unexpected error while completing operations", ex);
+                }
+            } while (pending.get());
+            workers.decrementAndGet();
+        } while (pending.get() && acquire());
+    }
+}
@@ -0,0 +1,229 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scanner that walks independent subtrees in parallel on a fork-join pool and remembers the
+ * contents of every directory it listed.
+ *
+ * The contents of a directory only change when its own modification time changes, so a directory
+ * whose modification time is the same as on the previous scan is not listed again. Its
+ * subdirectories are still visited, because changes deeper in the tree do not affect the
+ * modification time of their ancestors.
+ */
+public class ParallelDirectoryScanner implements DirectoryScanner {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * Time in milliseconds a directory must have been unchanged before it was listed, so that
+     * its listing is trusted. Protects against file systems with coarse timestamps, where a
+     * change right after the listing does not change the modification time.
+     */
+    private static final long TIMESTAMP_GRANULARITY = 2000;
+
+    private final FileManager fileManager;
+    private final ForkJoinPool pool;
+    private final Map<Path, Listing> listings = new ConcurrentHashMap<>();
+
+    private volatile ScanStatistics statistics = new ScanStatistics(0, 0, 0, 0);
+
+    /**
+     * Creates a scanner.
+     *
+     * @param fileManager file manager used to access the file system
+     * @param threads maximum number of directories listed at once, or zero to use one thread per
+     *                available processor
+     */
+    public ParallelDirectoryScanner(FileManager fileManager, int threads) {
+        if (fileManager == null) throw new IllegalArgumentException();
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        this.fileManager = fileManager;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    @Override public Set<Path> scan(Collection<Path> directories, Predicate<Path> filter) {
+        long start = System.currentTimeMillis();
+        Scan scan = new Scan(filter);
+        List<ScanTask> tasks = directories.stream()
+                .map(dir -> new ScanTask(scan, dir))
+                .collect(Collectors.toList());
+        tasks.forEach(pool::execute);
+        tasks.forEach(ScanTask::join);
+
+        // NOTE: Forget directories below the scanned ones that no longer exist.
+        listings.keySet().removeIf(dir -> !scan.visited.contains(dir)
+                && directories.stream().anyMatch(dir::startsWith));
+
+        statistics = new ScanStatistics(scan.visited.size(), scan.listed.get(), scan.files.size(),
+                System.currentTimeMillis() - start);
+        LOGGER.debug("scanned directories {}", statistics);
+        return new HashSet<>(scan.files);
+    }
+
+    @Override public ScanStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Stops the threads used for scanning.
+     */
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    // Get the listing of a directory, either from the previous scan or from the file system.
+    private Listing list(Scan scan, Path directory) throws IOException {
+        FileTime modified = getLastModified(directory);
+        Listing listing = listings.get(directory);
+        if (listing != null && listing.isValid(modified)) {
+            return listing;
+        }
+
+        scan.listed.incrementAndGet();
+        long listed = System.currentTimeMillis();
+        List<Path> files = new ArrayList<>();
+        List<Path> subdirectories = new ArrayList<>();
+        // NOTE: Stream must always be closed.
+        // Otherwise the directory remains open in the application.
+        try (Stream<Path> stream = fileManager.list(directory)) {
+            for (Path path : stream.collect(Collectors.toList())) {
+                if (fileManager.isDirectory(path)) {
+                    subdirectories.add(path);
+                }
+                if (fileManager.isFile(path)) {
+                    files.add(path);
+                }
+            }
+        }
+        listing = new Listing(modified, listed, files, subdirectories);
+        listings.put(directory, listing);
+        return listing;
+    }
+
+    // Get the last modification time of a directory, or null if it is not available.
+    private FileTime getLastModified(Path directory) {
+        try {
+            return fileManager.getLastModifiedTime(directory);
+        } catch (IOException ex) {
+            // NOTE: Without a modification time the directory is always listed.
+            return null;
+        }
+    }
+
+    // State shared by all tasks of a single scan.
+    private static class Scan {
+
+        private final Predicate<Path> filter;
+        private final Set<Path> files = ConcurrentHashMap.newKeySet();
+        private final Set<Path> visited = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger listed = new AtomicInteger();
+
+        private Scan(Predicate<Path> filter) {
+            this.filter = filter;
+        }
+    }
+
+    // Contents of a directory at the time it was listed.
+    private static class Listing {
+
+        private final FileTime modified;
+        private final long listed;
+        private final List<Path> files;
+        private final List<Path> directories;
+
+        private Listing(FileTime modified, long listed, List<Path> files, List<Path> directories) {
+            this.modified = modified;
+            this.listed = listed;
+            this.files = files;
+            this.directories = directories;
+        }
+
+        private boolean isValid(FileTime current) {
+            return modified != null
+                    && modified.equals(current)
+                    && listed - modified.toMillis() > TIMESTAMP_GRANULARITY;
+        }
+    }
+
+    // Task that collects the files of a directory and forks a task for every subdirectory.
+    private class ScanTask extends RecursiveAction {
+
+        private final Scan scan;
+        private final Path directory;
+
+        private ScanTask(Scan scan, Path directory) {
+            this.scan = scan;
+            this.directory = directory;
+        }
+
+        @Override protected void compute() {
+            if (!scan.visited.add(directory)) {
+                return;
+            }
+
+            Listing listing;
+            try {
+                listing = list(scan, directory);
+            } catch (NoSuchFileException ex) {
+                LOGGER.info("can not find directory {}", directory);
+                listings.remove(directory);
+                return;
+            } catch (IOException ex) {
+                LOGGER.warn("failed listing contents for directory {}", directory);
+                LOGGER.error("error: ", ex);
+                return;
+            }
+
+            listing.files.stream()
+                    .filter(scan.filter)
+                    .forEach(scan.files::add);
+            invokeAll(listing.directories.stream()
+                    .map(dir -> new ScanTask(scan, dir))
+                    .collect(Collectors.toList()));
+        }
+    }
+}
@@ -29,6 +29,7 @@ package at.ac.tuwien.qse.sepm.dao.repo.impl;
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
 import at.ac.tuwien.qse.sepm.dao.repo.*;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import at.ac.tuwien.qse.sepm.entities.PhotoMetadata;
 import org.apache.commons.io.IOUtils;
@@ -40,7 +41,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.LinkedList;
 
@@ -54,6 +54,7 @@ public class PhotoFileRepository implements PhotoRepository {
     private final FileManager fileManager;
     private final FileWatcher watcher;
     private final PhotoSerializer serializer;
+    private final MetadataWriter writer;
 
     private final FileListener listener = new FileListener();
     private final Collection<Listener> listeners = new LinkedList<>();
@@ -69,6 +70,7 @@ public class PhotoFileRepository implements PhotoRepository {
         this.fileManager = fileManager;
         this.watcher = watcher;
         this.serializer = serializer;
+        this.writer = new MetadataWriter(fileManager, serializer);
         watcher.addListener(listener);
     }
 
@@ -120,84 +122,82 @@ public class PhotoFileRepository implements PhotoRepository {
             throw new PhotoNotFoundException(this, file);
         }
 
-        Path temp = Paths.get(file.toString() + ".temp");
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            if (!fileManager.exists(temp)) {
-                try {
-                    fileManager.createFile(temp);
-                } catch (IOException ex) {
-                    LOGGER.warn("failed creating temp file at {}", temp);
-                    throw new DAOException(ex);
-                }
-            }
+        writer.write(file, photo.getData());
+    }
 
-            try {
-                is = fileManager.newInputStream(file);
-            } catch (IOException ex) {
-                LOGGER.warn("failed creating input stream for file {}", file);
-                throw new DAOException(ex);
-            }
+    @Override public void delete(Path file) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        LOGGER.debug("deleting {}", file);
 
-            try {
-                os = fileManager.newOutputStream(temp);
-            } catch (IOException ex) {
-                LOGGER.warn("failed creating output stream for file {}", temp);
-                throw new DAOException();
-            }
+        if (!contains(file)) {
+            LOGGER.debug("repository does not contain file {}", file);
+            throw new PhotoNotFoundException(this, file);
+        }
+        try {
+            fileManager.delete(file);
+            LOGGER.info("deleted {}", file);
+        } catch (IOException ex) {
+            LOGGER.debug("failed deleting file {}", file);
+            throw new DAOException(ex);
+        }
+    }
 
-            serializer.update(is, os, photo.getData());
+    @Override public Fingerprint fingerprint(Path file) throws DAOException {
+        if (file == null) throw new IllegalArgumentException();
+        LOGGER.debug("fingerprinting {}", file);
 
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException ex) {
-                LOGGER.warn("failed closing input stream for file {}");
-                LOGGER.error(ex);
-            }
-            try {
-                if (os != null) {
-                    os.close();
-                }
-            } catch (IOException ex) {
-                LOGGER.warn("failed closing output stream for file {}");
-                LOGGER.error(ex);
-            }
+        if (!contains(file)) {
+            LOGGER.debug("repository does not contain file {}", file);
+            throw new PhotoNotFoundException(this, file);
         }
 
-        try {
-            fileManager.copy(temp, file);
+        try (InputStream is = fileManager.newInputStream(file)) {
+            long size = fileManager.size(file);
+            long modified = fileManager.getLastModifiedTime(file).toMillis();
+            Fingerprint fingerprint = Fingerprints.create(size, modified, is);
+            LOGGER.debug("fingerprinted {} as {}", file, fingerprint);
+            return fingerprint;
         } catch (IOException ex) {
-            LOGGER.warn("failed copying {} -> {}", temp, file);
+            LOGGER.warn("failed fingerprinting file {}", file);
             throw new DAOException(ex);
-        } finally {
-            try {
-                if (fileManager.exists(temp)) {
-                    fileManager.delete(temp);
-                }
-            } catch (IOException ex) {
-                LOGGER.warn("failed deleting temp file {}", temp);
-                LOGGER.error(ex);
-            }
         }
     }
 
-    @Override public void delete(Path file) throws DAOException {
+    /**
+     * {@inheritDoc}
+     *
+     * This implementation only reads from the file if the size is unchanged, but the modification
+     * time differs from the known fingerprint.
+     */
+    @Override public Fingerprint refreshFingerprint(Path file, Fingerprint known)
+            throws DAOException {
         if (file == null) throw new IllegalArgumentException();
-        LOGGER.debug("deleting {}", file);
+        if (known == null) return null;
 
         if (!contains(file)) {
             LOGGER.debug("repository does not contain file {}", file);
             throw new PhotoNotFoundException(this, file);
         }
+
         try {
-            fileManager.delete(file);
-            LOGGER.info("deleted {}", file);
+            long size = fileManager.size(file);
+            if (size != known.getSize()) {
+                return null;
+            }
+            long modified = fileManager.getLastModifiedTime(file).toMillis();
+            if (modified == known.getModified()) {
+                return known;
+            }
+            // NOTE: The file was touched, but its size is the same. Compare the content to avoid
+            // parsing the photo again if only the modification time changed.
+            try (InputStream is = fileManager.newInputStream(file)) {
+                long hash = Fingerprints.hash(is);
+                boolean result = hash != known.getHash();
+                LOGGER.debug("compared hash of touched file {} and modified is {}", file, result);
+                return result ? null : new Fingerprint(size, modified, hash);
+            }
         } catch (IOException ex) {
-            LOGGER.debug("failed deleting file {}", file);
+            LOGGER.warn("failed checking modification of file {}", file);
             throw new DAOException(ex);
         }
     }
@@ -28,9 +28,12 @@ package at.ac.tuwien.qse.sepm.dao.repo.impl;
  */
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.FileTime;
 import java.util.stream.Stream;
 
@@ -52,6 +55,10 @@ public class PhysicalFileManager implements FileManager {
         return Files.getLastModifiedTime(path);
     }
 
+    @Override public long size(Path file) throws IOException {
+        return Files.size(file);
+    }
+
     @Override public void createDirectories(Path directory) throws IOException {
         Files.createDirectories(directory);
     }
@@ -79,4 +86,16 @@ public class PhysicalFileManager implements FileManager {
     @Override public void copy(Path source, Path dest) throws IOException {
         Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
     }
+
+    @Override public void move(Path source, Path dest) throws IOException {
+        try {
+            Files.move(source, dest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, dest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @Override public FileChannel newFileChannel(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
 }
@@ -32,21 +32,18 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
-import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.attribute.FileTime;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class PollingFileWatcher implements FileWatcher {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
     private final FileManager fileManager;
+    private final DirectoryScanner scanner;
 
     private final Set<String> extensions = new HashSet<>();
     private final Set<Path> directories = new HashSet<>();
@@ -59,8 +56,14 @@ public class PollingFileWatcher implements FileWatcher {
     }
 
     public PollingFileWatcher(FileManager fileManager) {
+        this(fileManager, new RecursiveDirectoryScanner(fileManager));
+    }
+
+    public PollingFileWatcher(FileManager fileManager, DirectoryScanner scanner) {
         if (fileManager == null) throw new IllegalArgumentException();
+        if (scanner == null) throw new IllegalArgumentException();
         this.fileManager = fileManager;
+        this.scanner = scanner;
     }
 
     /**
@@ -161,39 +164,12 @@ public class PollingFileWatcher implements FileWatcher {
 
     // Lists all files in the registered directories.
     private Set<Path> listFiles() {
-        Set<Path> files = new HashSet<>();
         LOGGER.debug("listing files from {} directories", directories.size());
-        directories.forEach(dir -> collectFiles(dir, files));
+        Set<Path> files = scanner.scan(directories, this::checkExtension);
         LOGGER.debug("found {} files", files.size());
         return files;
     }
 
-    // Recursively collects all files in a directory into a set.
-    private void collectFiles(Path directory, Set<Path> result) {
-        try {
-            // NOTE: Stream must always be closed.
-            // Otherwise the directory remains open in the application.
-            Stream<Path> stream = fileManager.list(directory);
-            Collection<Path> paths = stream.collect(Collectors.toList());
-            stream.close();
-            for (Path path : paths) {
-                if (fileManager.isDirectory(path)) {
-                    collectFiles(path, result);
-                }
-                if (fileManager.isFile(path) && checkExtension(path)) {
-                    result.add(path);
-                }
-            }
-        } catch (NoSuchFileException ex) {
-            LOGGER.info("can not find directory {}", directory);
-        } catch (IOException ex) {
-            // NOTE: The path may not exist, or it may be a file, or something else. There is a lot
-            // that can happen from outside the application, so we just have to ignore such errors.
-            LOGGER.warn("failed listing contents for directory {}", directory);
-            LOGGER.error("error: ", ex);
-        }
-    }
-
     private boolean checkExtension(Path file) {
         String fileString = file.toString();
         for (String ext : extensions) {
@@ -216,4 +192,13 @@ public class PollingFileWatcher implements FileWatcher {
     public Collection<Path> getDirectories() {
         return directories;
     }
+
+    /**
+     * Get statistics about the directory scan of the most recent refresh.
+     *
+     * @return statistics of the last scan
+     */
+    public ScanStatistics getScanStatistics() {
+        return scanner.getStatistics();
+    }
 }
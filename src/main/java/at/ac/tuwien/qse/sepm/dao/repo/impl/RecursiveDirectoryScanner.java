@@ -0,0 +1,101 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scanner that lists every directory on every scan on the calling thread.
+ */
+public class RecursiveDirectoryScanner implements DirectoryScanner {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final FileManager fileManager;
+
+    private ScanStatistics statistics = new ScanStatistics(0, 0, 0, 0);
+    private int directoryCount;
+
+    public RecursiveDirectoryScanner(FileManager fileManager) {
+        if (fileManager == null) throw new IllegalArgumentException();
+        this.fileManager = fileManager;
+    }
+
+    @Override public Set<Path> scan(Collection<Path> directories, Predicate<Path> filter) {
+        long start = System.currentTimeMillis();
+        directoryCount = 0;
+        Set<Path> files = new HashSet<>();
+        directories.forEach(dir -> collectFiles(dir, filter, files));
+        statistics = new ScanStatistics(directoryCount, directoryCount, files.size(),
+                System.currentTimeMillis() - start);
+        LOGGER.debug("scanned directories {}", statistics);
+        return files;
+    }
+
+    @Override public ScanStatistics getStatistics() {
+        return statistics;
+    }
+
+    // Recursively collects all files in a directory into a set.
+    private void collectFiles(Path directory, Predicate<Path> filter, Set<Path> result) {
+        directoryCount++;
+        try {
+            // NOTE: Stream must always be closed.
+            // Otherwise the directory remains open in the application.
+            Stream<Path> stream = fileManager.list(directory);
+            Collection<Path> paths = stream.collect(Collectors.toList());
+            stream.close();
+            for (Path path : paths) {
+                if (fileManager.isDirectory(path)) {
+                    collectFiles(path, filter, result);
+                }
+                if (fileManager.isFile(path) && filter.test(path)) {
+                    result.add(path);
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            LOGGER.info("can not find directory {}", directory);
+        } catch (IOException ex) {
+            // NOTE: The path may not exist, or it may be a file, or something else. There is a lot
+            // that can happen from outside the application, so we just have to ignore such errors.
+            LOGGER.warn("failed listing contents for directory {}", directory);
+            LOGGER.error("error: ", ex);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Statistics about a single run of a {@link DirectoryScanner}.
+ */
+public class ScanStatistics {
+
+    private final int directories;
+    private final int listed;
+    private final int files;
+    private final long duration;
+
+    public ScanStatistics(int directories, int listed, int files, long duration) {
+        this.directories = directories;
+        this.listed = listed;
+        this.files = files;
+        this.duration = duration;
+    }
+
+    /**
+     * Get the number of directories that were visited.
+     *
+     * @return number of visited directories
+     */
+    public int getDirectories() {
+        return directories;
+    }
+
+    /**
+     * Get the number of directories whose contents had to be listed. Directories that are
+     * visited but not listed were known to be unchanged.
+     *
+     * @return number of listed directories
+     */
+    public int getListed() {
+        return listed;
+    }
+
+    /**
+     * Get the number of files that were found.
+     *
+     * @return number of found files
+     */
+    public int getFiles() {
+        return files;
+    }
+
+    /**
+     * Get the duration of the scan.
+     *
+     * @return duration in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    @Override public String toString() {
+        return "ScanStatistics{" +
+                "directories=" + directories +
+                ", listed=" + listed +
+                ", files=" + files +
+                ", duration=" + duration +
+                '}';
+    }
+}
@@ -0,0 +1,104 @@
+package at.ac.tuwien.qse.sepm.entities;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Describes the state of a photo file, so that changes can be detected without reading the photo.
+ *
+ * A fingerprint consists of the size and the last modification time of the file and a hash of the
+ * beginning of the file, where the metadata of the photo is stored.
+ */
+public class Fingerprint {
+
+    private final long size;
+    private final long modified;
+    private final long hash;
+
+    public Fingerprint(long size, long modified, long hash) {
+        this.size = size;
+        this.modified = modified;
+        this.hash = hash;
+    }
+
+    /**
+     * Get the size of the file.
+     *
+     * @return size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Get the last modification time of the file.
+     *
+     * @return milliseconds since the epoch
+     */
+    public long getModified() {
+        return modified;
+    }
+
+    /**
+     * Get the hash of the beginning of the file.
+     *
+     * @return content hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    @Override public String toString() {
+        return "Fingerprint{" +
+                "size=" + size +
+                ", modified=" + modified +
+                ", hash=" + hash +
+                '}';
+    }
+
+    @Override public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof Fingerprint))
+            return false;
+
+        Fingerprint that = (Fingerprint) o;
+
+        if (size != that.size)
+            return false;
+        if (modified != that.modified)
+            return false;
+        return hash == that.hash;
+    }
+
+    @Override public int hashCode() {
+        int result = (int) (size ^ (size >>> 32));
+        result = 31 * result + (int) (modified ^ (modified >>> 32));
+        result = 31 * result + (int) (hash ^ (hash >>> 32));
+        return result;
+    }
+}
@@ -27,7 +27,9 @@ package at.ac.tuwien.qse.sepm.gui;
  * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
+import at.ac.tuwien.qse.sepm.gui.util.ImageCache;
 import at.ac.tuwien.qse.sepm.service.PhotoService;
+import at.ac.tuwien.qse.sepm.service.ThumbnailService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -55,6 +57,8 @@ public class App extends Application {
     public void start(Stage stage) throws Exception {
         logger.info("Application started.");
 
+        ImageCache.setThumbnailService((ThumbnailService)context.getBean("thumbnailService"));
+
         FXMLLoader loader = new FXMLLoader();
         loader.setControllerFactory(context::getBean);
 
@@ -31,6 +31,8 @@ import at.ac.tuwien.qse.sepm.entities.Photo;
 import at.ac.tuwien.qse.sepm.entities.Rating;
 import at.ac.tuwien.qse.sepm.gui.control.RatingPicker;
 import at.ac.tuwien.qse.sepm.gui.control.SmartImage;
+import at.ac.tuwien.qse.sepm.gui.util.ImageCache;
+import at.ac.tuwien.qse.sepm.gui.util.ImagePrefetcher;
 import at.ac.tuwien.qse.sepm.gui.util.ImageSize;
 import at.ac.tuwien.qse.sepm.service.PhotoService;
 import at.ac.tuwien.qse.sepm.service.ServiceException;
@@ -49,6 +51,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 
@@ -56,6 +60,10 @@ public class FullscreenWindow extends StackPane {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
+    // Number of photos after and before the active one that are loaded in advance.
+    private static final int PREFETCH_NEXT = 3;
+    private static final int PREFETCH_PREVIOUS = 1;
+
     private Stage stage;
     private Scene scene;
 
@@ -74,7 +82,8 @@ public class FullscreenWindow extends StackPane {
 
     private PhotoService photoService;
     private List<Photo> photos;
-    private SmartImage image = new SmartImage(ImageSize.ORIGINAL);
+    private SmartImage image = new SmartImage(ImageSize.SCREEN);
+    private ImagePrefetcher prefetcher = new ImagePrefetcher(ImageCache.getInstance(), ImageSize.SCREEN);
 
     private int activeIndex = 0;
 
@@ -90,6 +99,7 @@ public class FullscreenWindow extends StackPane {
         this.scene = new Scene(this);
 
         stage.setScene(scene);
+        stage.setOnHidden(e -> prefetcher.cancel());
 
         image.setPreserveRatio(true);
         getChildren().add(0, image);
@@ -197,8 +207,21 @@ public class FullscreenWindow extends StackPane {
         ratingPicker.setRating(photo.getData().getRating());
         image.setImage(photo.getFile());
 
-        // handling of images in original size can consume a lot of memory so collect it here
-        System.gc();
+        prefetch();
+    }
+
+    private void prefetch() {
+        int count = photos.size();
+        List<Path> paths = new ArrayList<>(1 + PREFETCH_NEXT + PREFETCH_PREVIOUS);
+        paths.add(photos.get(activeIndex).getFile());
+        // Navigation wraps around at the ends, so does prefetching.
+        for (int i = 1; i <= PREFETCH_NEXT && i < count; i++) {
+            paths.add(photos.get((activeIndex + i) % count).getFile());
+        }
+        for (int i = 1; i <= PREFETCH_PREVIOUS && i < count; i++) {
+            paths.add(photos.get((activeIndex - i + count) % count).getFile());
+        }
+        prefetcher.prefetch(paths);
     }
 
     public void setElementsVisible(boolean visible){
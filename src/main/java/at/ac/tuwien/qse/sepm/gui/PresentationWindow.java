@@ -33,6 +33,7 @@ import at.ac.tuwien.qse.sepm.entities.Slideshow;
 import at.ac.tuwien.qse.sepm.gui.slide.SlideView;
 import at.ac.tuwien.qse.sepm.gui.util.ColorUtils;
 import at.ac.tuwien.qse.sepm.gui.util.ImageCache;
+import at.ac.tuwien.qse.sepm.gui.util.ImagePrefetcher;
 import at.ac.tuwien.qse.sepm.gui.util.ImageSize;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -56,6 +57,8 @@ import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -64,6 +67,10 @@ public class PresentationWindow extends StackPane {
 
     private static final Logger logger = LogManager.getLogger();
 
+    // Number of slides after and before the active one whose photos are loaded in advance.
+    private static final int PREFETCH_NEXT = 2;
+    private static final int PREFETCH_PREVIOUS = 1;
+
     private Stage stage;
     private Scene scene;
     private boolean isPaused = false;
@@ -73,6 +80,7 @@ public class PresentationWindow extends StackPane {
 
     private Slideshow slideshow;
     private List<Slide> slides;
+    private final ImagePrefetcher prefetcher = new ImagePrefetcher(ImageCache.getInstance(), ImageSize.SCREEN);
 
     public PresentationWindow(Slideshow slideshow) {
         FXMLLoadHelper.load(this, this, PresentationWindow.class, "view/PresentationWindow.fxml");
@@ -138,6 +146,7 @@ public class PresentationWindow extends StackPane {
             timeline.stop();
         }
 
+        prefetcher.cancel();
         stage.close();
     }
 
@@ -167,5 +176,27 @@ public class PresentationWindow extends StackPane {
 
         getChildren().clear();
         getChildren().add(slideView);
+
+        prefetch();
+    }
+
+    private void prefetch() {
+        List<Path> paths = new ArrayList<>(1 + PREFETCH_NEXT + PREFETCH_PREVIOUS);
+        int first = Math.max(0, activeIndex - PREFETCH_PREVIOUS);
+        int last = Math.min(slides.size() - 1, activeIndex + PREFETCH_NEXT);
+        // The active slide comes first, then the slides the timeline will show next.
+        for (int i = activeIndex; i <= last; i++) {
+            addPhoto(paths, slides.get(i));
+        }
+        for (int i = activeIndex - 1; i >= first; i--) {
+            addPhoto(paths, slides.get(i));
+        }
+        prefetcher.prefetch(paths);
+    }
+
+    private void addPhoto(List<Path> paths, Slide slide) {
+        if (slide instanceof PhotoSlide) {
+            paths.add(((PhotoSlide) slide).getPhoto().getFile());
+        }
     }
 }
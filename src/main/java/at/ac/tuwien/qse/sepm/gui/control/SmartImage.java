@@ -29,6 +29,7 @@ package at.ac.tuwien.qse.sepm.gui.control;
 
 import at.ac.tuwien.qse.sepm.gui.util.ImageCache;
 import at.ac.tuwien.qse.sepm.gui.util.ImageSize;
+import javafx.beans.value.ChangeListener;
 import javafx.geometry.Insets;
 import javafx.scene.control.ProgressIndicator;
 import javafx.scene.image.Image;
@@ -39,12 +40,19 @@ import java.nio.file.Path;
 
 public class SmartImage extends StackPane {
 
-    private static final ImageCache cache = new ImageCache();
+    private static final ImageCache cache = ImageCache.getInstance();
 
     private final ProgressIndicator progress = new ProgressIndicator();
     private final ImageView imageView = new ImageView();
 
+    private final ChangeListener<Number> progressListener = (observable, oldValue, newValue) -> {
+        if (newValue.doubleValue() == 1.0) {
+            indicateLoaded();
+        }
+    };
+
     private Image image = null;
+    private Path path = null;
     private ImageSize size;
 
     public SmartImage(ImageSize size) {
@@ -62,8 +70,22 @@ public class SmartImage extends StackPane {
         getChildren().add(imageView);
     }
 
+    /**
+     * Show the image at the path.
+     *
+     * The control can be rebound to another path at any time. If the previous image is still
+     * loading, the load is cancelled.
+     *
+     * @param path path of the image, or null to show nothing
+     */
     public void setImage(Path path) {
+        if (path != null && path.equals(this.path) && image != null) {
+            return;
+        }
+
+        unbind();
         indicateLoading();
+        this.path = path;
 
         if (path == null) {
             return;
@@ -78,11 +100,7 @@ public class SmartImage extends StackPane {
             return;
         }
 
-        image.progressProperty().addListener((observable, oldValue, newValue) -> {
-            if (newValue.doubleValue() == 1.0) {
-                indicateLoaded();
-            }
-        });
+        image.progressProperty().addListener(progressListener);
     }
 
     public void setPreserveRatio(boolean preserve) {
@@ -96,7 +114,21 @@ public class SmartImage extends StackPane {
 
     public void cancel() {
         if (image == null) return;
-        image.cancel();
+        if (image.getProgress() < 1.0) {
+            image.cancel();
+            cache.evict(path, size, image);
+            // The cancelled image is not reused, setting the same path again loads it anew.
+            path = null;
+        }
+    }
+
+    private void unbind() {
+        if (image == null) return;
+        image.progressProperty().removeListener(progressListener);
+        cancel();
+        imageView.setImage(null);
+        image = null;
+        path = null;
     }
 
     private void indicateLoading() {
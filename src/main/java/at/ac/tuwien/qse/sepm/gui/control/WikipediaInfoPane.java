@@ -31,9 +31,8 @@ package at.ac.tuwien.qse.sepm.gui.control;
 import at.ac.tuwien.qse.sepm.entities.Place;
 import at.ac.tuwien.qse.sepm.entities.WikiPlaceInfo;
 import at.ac.tuwien.qse.sepm.gui.FXMLLoadHelper;
-import at.ac.tuwien.qse.sepm.gui.util.BackgroundTask;
-import at.ac.tuwien.qse.sepm.service.ServiceException;
 import at.ac.tuwien.qse.sepm.service.WikipediaService;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -47,8 +46,6 @@ import javafx.util.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 
 public class WikipediaInfoPane extends VBox {
@@ -70,6 +67,9 @@ public class WikipediaInfoPane extends VBox {
 
     private WikipediaService wikipediaService;
 
+    // place whose info is currently shown or loading
+    private Place place;
+
     public WikipediaInfoPane(WikipediaService wikipediaService) {
         this.wikipediaService = wikipediaService;
         FXMLLoadHelper.load(this, this, WikipediaInfoPane.class, "view/WikipediaInfoPane.fxml");
@@ -103,25 +103,21 @@ public class WikipediaInfoPane extends VBox {
      * @param place should be a valid instance
      */
     public void showWikipediaInfo(Place place) {
-
-        BackgroundTask<WikiPlaceInfo> task = new BackgroundTask<WikiPlaceInfo>() {
-            @Override
-            public WikiPlaceInfo compute() throws ComputeException {
-                try {
-                    return wikipediaService.getWikiPlaceInfo(place);
-                } catch (ServiceException ex) {
-                    return new WikiPlaceInfo(place.getCity(), place.getCountry(),
-                            "Fehler beim Laden des Wikipedia Infos", null, null, null, null, null, null);
-                }
-            }
-
-            @Override
-            public void onFinished(WikiPlaceInfo result) {
-                updatePane(result);
-            }
-        };
-
-        (new Thread(task)).start();
+        this.place = place;
+
+        wikipediaService.loadWikiPlaceInfo(place,
+                info -> Platform.runLater(() -> {
+                    if (place == this.place) {
+                        updatePane(info);
+                    }
+                }),
+                ex -> Platform.runLater(() -> {
+                    if (place == this.place) {
+                        updatePane(new WikiPlaceInfo(place.getCity(), place.getCountry(),
+                                "Fehler beim Laden des Wikipedia Infos", null, null, null, null,
+                                null, null));
+                    }
+                }));
     }
 
     public void updatePane(WikiPlaceInfo info) {
@@ -48,8 +48,22 @@ public interface Organizer {
 
     void reset();
 
+    /**
+     * Get the filter that photos currently have to match.
+     *
+     * @return filter of the organizer
+     */
+    PhotoFilter getFilter();
+
     boolean accept(Photo photo);
 
+    /**
+     * Count photos that are already known to match the filter, without testing them again.
+     *
+     * @param photos photos matching the filter
+     */
+    void addAll(Collection<Photo> photos);
+
     void remove(Photo photo);
 
     /**
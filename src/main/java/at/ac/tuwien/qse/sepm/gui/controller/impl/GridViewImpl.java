@@ -204,6 +204,7 @@ public class GridViewImpl implements GridView {
                     .filter(p -> paths.contains(p.getFile()))
                     .collect(Collectors.toList());
 
+            photos.forEach(organizer::remove);
             grid.removePhotos(photos);
         });
     }
@@ -231,9 +232,10 @@ public class GridViewImpl implements GridView {
     private void reloadImages() {
         organizer.reset();
         try {
-            grid.setPhotos(photoService.getAllPhotos(organizer::accept).stream()
-                            .sorted((p1, p2) -> p2.getData().getDatetime().compareTo(p1.getData().getDatetime()))
-                            .collect(Collectors.toList()));
+            // The filter is evaluated by the service, the organizer only has to count the matches.
+            List<Photo> photos = photoService.getAllPhotos(organizer.getFilter());
+            organizer.addAll(photos);
+            grid.setPhotos(photos);
         } catch (ServiceException ex) {
             LOGGER.error("failed loading fotos", ex);
             ErrorDialog.show(root, "Laden von Fotos fehlgeschlagen",
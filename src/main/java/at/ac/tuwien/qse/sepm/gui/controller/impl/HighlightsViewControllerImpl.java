@@ -187,6 +187,9 @@ public class HighlightsViewControllerImpl implements HighlightsViewController {
             return;
         }
 
+        // query the wikipedia info of all places at once before one of them is selected
+        wikipediaService.prefetchWikiPlaceInfos(journeyPlaceList.getPlacesForJourney(journey));
+
         handlePlaceSelected(null);
     }
 
@@ -88,7 +88,6 @@ public class OrganizerImpl extends Refresher implements Organizer {
 
     @FXML private TreeView<String> folderTree;
 
-    private final PhotoSet allPhotos = new PhotoSet();
     private final PhotoSet acceptedPhotos = new PhotoSet();
 
     private PhotoFilter usedFilter = new PhotoFilter();
@@ -100,7 +99,10 @@ public class OrganizerImpl extends Refresher implements Organizer {
     private BufferedBatchOperation<Photo> addOperation;
     private BufferedBatchOperation<Path> deleteOperation;
 
+    private ScheduledExecutorService scheduler;
+
     @Autowired public void setScheduler(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
         addOperation = new BufferedBatchOperation<>(photos -> {
             Platform.runLater(this::buildTreeView);
         }, scheduler);
@@ -116,25 +118,30 @@ public class OrganizerImpl extends Refresher implements Organizer {
     }
 
     @Override public void reset() {
-        allPhotos.clear();
         acceptedPhotos.clear();
         markDirty();
     }
 
+    @Override public PhotoFilter getFilter() {
+        return usedFilter;
+    }
+
     @Override public boolean accept(Photo photo) {
-        remove(photo);
-        allPhotos.add(photo);
-        if (usedFilter.test(photo)) {
-            acceptedPhotos.add(photo);
-            markDirty();
-            return true;
+        acceptedPhotos.remove(photo);
+        markDirty();
+        if (!usedFilter.test(photo)) {
+            return false;
         }
+        acceptedPhotos.add(photo);
+        return true;
+    }
+
+    @Override public void addAll(Collection<Photo> photos) {
+        acceptedPhotos.addAll(photos);
         markDirty();
-        return false;
     }
 
     @Override public void remove(Photo photo) {
-        allPhotos.remove(photo);
         acceptedPhotos.remove(photo);
         markDirty();
     }
@@ -149,7 +156,16 @@ public class OrganizerImpl extends Refresher implements Organizer {
     }
 
     @Override protected void refresh() {
-        LOGGER.debug("refreshing filter");
+        LOGGER.debug("refreshing filter counts");
+        refreshCounts(acceptedPhotos.getRatings(), ratingFilter);
+        refreshCounts(acceptedPhotos.getTags(), tagFilter);
+        refreshCounts(acceptedPhotos.getJourneys(), journeyFilter);
+        refreshCounts(acceptedPhotos.getPlaces(), placeFilter);
+        refreshCounts(acceptedPhotos.getPhotographers(), photographerFilter);
+    }
+
+    private void refreshValues() {
+        LOGGER.debug("refreshing filter values");
         refreshRatings();
         refreshTags();
         refreshJourneys();
@@ -174,7 +190,7 @@ public class OrganizerImpl extends Refresher implements Organizer {
         journeyFilter.setOnUpdate(this::handleJourneysChange);
         placeFilter.setOnUpdate(this::handlePlacesChange);
 
-        refresh();
+        refreshValues();
         listTab.fire();
 
         tagService.subscribeTagChanged((p) -> refreshTags());
@@ -184,7 +200,7 @@ public class OrganizerImpl extends Refresher implements Organizer {
         photoService.subscribeCreate(addOperation::add);
         photoService.subscribeDelete(deleteOperation::add);
 
-        start(1, TimeUnit.SECONDS);
+        start(scheduler, 1, TimeUnit.SECONDS);
     }
 
     private void initializeFilesTree() {
@@ -496,7 +512,7 @@ public class OrganizerImpl extends Refresher implements Organizer {
                     return converter.apply(val);
                 });
                 item.setIncluded(!excluded.contains(p));
-                item.setCount(aggregator.getCount(p));
+                item.setCount(getCount(aggregator, p));
                 filter.getItems().add(item);
             });
         });
@@ -523,12 +539,36 @@ public class OrganizerImpl extends Refresher implements Organizer {
                     return converter.apply(val);
                 });
                 item.setIncluded(included.contains(p));
-                item.setCount(aggregator.getCount(p));
+                item.setCount(getCount(aggregator, p));
                 filter.getItems().add(item);
             });
         });
     }
 
+    /**
+     * Push the counts that changed since the last refresh to the filter items. The items
+     * themselves are only rebuilt when the available values change.
+     */
+    private <T> void refreshCounts(Aggregator<T> aggregator, FilterGroup<T> filter) {
+        Map<T, Integer> changed;
+        synchronized (acceptedPhotos) {
+            changed = aggregator.pollChanged();
+        }
+        if (changed.isEmpty()) return;
+        Platform.runLater(() -> filter.getItems().forEach(item -> {
+            Integer count = changed.get(item.getValue());
+            if (count != null) {
+                item.setCount(count);
+            }
+        }));
+    }
+
+    private <T> int getCount(Aggregator<T> aggregator, T value) {
+        synchronized (acceptedPhotos) {
+            return aggregator.getCount(value);
+        }
+    }
+
     private void handlePhotoAdded(Photo photo) {
         addOperation.add(photo);
     }
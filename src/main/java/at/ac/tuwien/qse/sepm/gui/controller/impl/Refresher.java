@@ -27,18 +27,22 @@ package at.ac.tuwien.qse.sepm.gui.controller.impl;
  * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 public abstract class Refresher {
 
-    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
-    private boolean dirty = true;
+    private ScheduledFuture<?> future;
+    private volatile boolean dirty = true;
 
-    protected void start(int period, TimeUnit unit) {
+    /**
+     * Start refreshing periodically on the given scheduler.
+     */
+    protected void start(ScheduledExecutorService scheduler, int period, TimeUnit unit) {
+        if (scheduler == null) throw new IllegalArgumentException();
         if (unit == null) throw new IllegalArgumentException();
-        executor.scheduleAtFixedRate(() -> {
+        future = scheduler.scheduleAtFixedRate(() -> {
             if (!dirty) return;
             dirty = false;
             refresh();
@@ -52,6 +56,8 @@ public abstract class Refresher {
     protected abstract void refresh();
 
     public void stop() {
-        executor.shutdown();
+        if (future != null) {
+            future.cancel(false);
+        }
     }
 }
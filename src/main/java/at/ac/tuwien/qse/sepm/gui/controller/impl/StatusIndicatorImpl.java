@@ -66,6 +66,7 @@ public class StatusIndicatorImpl implements StatusIndicator {
 
         syncService.subscribeQueue(operation -> Platform.runLater(this::update));
         syncService.subscribeComplete(operation -> Platform.runLater(this::update));
+        syncService.subscribeMerge(operation -> Platform.runLater(this::update));
         syncService.subscribeError((operation, error) -> {
             errors.add(operation);
             Platform.runLater(this::update);
@@ -104,7 +105,7 @@ public class StatusIndicatorImpl implements StatusIndicator {
     }
 
     private State checkState() {
-        boolean inProgress = !syncService.getQueue().isEmpty();
+        boolean inProgress = syncService.getQueueSize() > 0;
         boolean hasErrors = !errors.isEmpty();
         if (inProgress) return State.PROGRESS;
         if (hasErrors) return State.ERRORS;
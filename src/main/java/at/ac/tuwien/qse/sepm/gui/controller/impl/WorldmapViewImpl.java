@@ -34,6 +34,7 @@ import at.ac.tuwien.qse.sepm.gui.dialogs.ErrorDialog;
 import at.ac.tuwien.qse.sepm.gui.util.LatLong;
 import at.ac.tuwien.qse.sepm.service.ClusterService;
 import at.ac.tuwien.qse.sepm.service.ServiceException;
+import at.ac.tuwien.qse.sepm.service.impl.PlaceIndex;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.layout.BorderPane;
@@ -41,13 +42,11 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Optional;
-
 public class WorldmapViewImpl implements WorldmapView {
 
     private static final Logger LOGGER = LogManager.getLogger();
+    // Maximal distance in meters between a clicked marker and its place.
+    private static final double MARKER_DISTANCE = 100_000;
 
     @FXML
     private BorderPane root;
@@ -58,7 +57,7 @@ public class WorldmapViewImpl implements WorldmapView {
     private ClusterService clusterService;
     @Autowired
     private MainControllerImpl mainController;
-    private List<Place> places = new LinkedList<>();
+    private PlaceIndex places = new PlaceIndex();
 
     @FXML
     private void initialize() {
@@ -92,13 +91,11 @@ public class WorldmapViewImpl implements WorldmapView {
 
     private void handleMarkerClicked(LatLong position) {
         // find place whose marker was selected
-        Optional<Place> selected = places.stream()
-                .filter(p -> Math.abs(p.getLatitude() - position.getLatitude()) < 0.9)
-                .filter(p -> Math.abs(p.getLongitude() - position.getLongitude()) < 0.9)
-                .findFirst();
+        Place selected = places.nearest(position.getLatitude(), position.getLongitude(),
+                MARKER_DISTANCE);
 
-        if (selected.isPresent()) {
-            mainController.showGridWithPlace(selected.get());
+        if (selected != null) {
+            mainController.showGridWithPlace(selected);
         }
     }
 }
@@ -50,6 +50,7 @@ public class ImageGrid<T extends ImageGridTile> extends TilePane {
     protected List<Photo> photos = new ArrayList<>();
     protected List<Photo> allPhotos;
     protected final ArrayList<T> tiles = new ArrayList<>();
+    private final List<T> pool = new ArrayList<>();
     private Consumer<Collection<Photo>> selectionChangeAction = null;
 
     private boolean suppressSelectEvent = false;
@@ -62,10 +63,56 @@ public class ImageGrid<T extends ImageGridTile> extends TilePane {
         setAlignment(Pos.CENTER);
     }
 
+    /**
+     * Show the photos in the grid.
+     *
+     * Existing tiles are rebound to the new photos, new tiles are only created if there are more
+     * photos than ever shown before. Tiles that are not needed are kept for later use.
+     *
+     * Selected photos that are still shown stay selected. If selected photos are no longer shown,
+     * the selection change is reported.
+     *
+     * @param photos photos that should be shown
+     */
     public void setPhotos(List<Photo> photos) {
+        // Photos are matched by id, as they may have been replaced by updated copies.
+        Set<Integer> selected = tiles.stream()
+                .filter(T::isSelected)
+                .map(tile -> tile.getPhoto().getId())
+                .collect(Collectors.toSet());
         this.photos = photos;
 
-        photos.forEach(this::addPhoto);
+        tiles.forEach(T::deselect);
+        tiles.clear();
+        int kept = 0;
+        for (int i = 0; i < photos.size(); i++) {
+            T tile = i < pool.size() ? pool.get(i) : createTile();
+            tile.setPhoto(photos.get(i));
+            tiles.add(tile);
+            if (selected.contains(photos.get(i).getId())) {
+                tile.select();
+                kept++;
+            }
+        }
+        for (int i = photos.size(); i < pool.size(); i++) {
+            pool.get(i).setPhoto(null);
+        }
+        getChildren().setAll(tiles);
+
+        if (kept != selected.size()) {
+            onSelectionChange();
+        }
+    }
+
+    /**
+     * Release tiles so that at most the given number of tiles is kept.
+     *
+     * @param capacity maximum number of tiles to keep
+     */
+    public void trim(int capacity) {
+        while (pool.size() > Math.max(capacity, tiles.size())) {
+            pool.remove(pool.size() - 1).setPhoto(null);
+        }
     }
 
     public void clear() {
@@ -145,17 +192,13 @@ public class ImageGrid<T extends ImageGridTile> extends TilePane {
         onSelectionChange();
     }
 
-    private void addPhoto(Photo photo) {
+    private T createTile() {
         T tile = tileFactory.get();
-        tile.setPhoto(photo);
-
         tile.setOnMouseClicked(event -> handleTileClicked(tile, event));
-
-        // add tile to page
-        tiles.add(tile);
-        getChildren().add(tile);
+        pool.add(tile);
 
         onTileAdded(tile);
+        return tile;
     }
 
     private void handleTileClicked(T tile, MouseEvent event) {
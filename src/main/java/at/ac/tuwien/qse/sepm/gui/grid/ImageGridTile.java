@@ -36,34 +36,36 @@ public abstract class ImageGridTile extends Tile {
     private static final ImageSize size = ImageSize.MEDIUM;
 
     private Photo photo = null;
-    private SmartImage image = null;
+    private final SmartImage image = new SmartImage(size);
 
     public ImageGridTile() {
         getStyleClass().add("image-tile");
+
+        image.setPrefHeight(size.pixels());
+        image.setPrefWidth(size.pixels());
+        image.setVisible(false);
+        getChildren().add(image);
     }
 
     /**
      * Set the photo this tile represents.
      *
+     * Tiles are reused for other photos, so the image is rebound instead of created again. A
+     * pending load of the previous photo is cancelled.
+     *
      * @param photo photo this tile represents, or null
      */
     public void setPhoto(Photo photo) {
         this.photo = photo;
 
-        if (image != null) {
-            getChildren().remove(image);
-        }
-
         if (photo == null) {
+            image.setImage(null);
+            image.setVisible(false);
             return;
         }
 
-        image = new SmartImage(size);
-        image.setPrefHeight(size.pixels());
-        image.setPrefWidth(size.pixels());
         image.setImage(photo.getFile());
-
-        getChildren().add(0, image);
+        image.setVisible(true);
     }
 
     /**
@@ -31,12 +31,8 @@ package at.ac.tuwien.qse.sepm.gui.grid;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import at.ac.tuwien.qse.sepm.gui.controller.Menu;
 import at.ac.tuwien.qse.sepm.gui.util.ImageSize;
-import at.ac.tuwien.qse.sepm.gui.util.LRUCache;
-import javafx.beans.property.ObjectProperty;
-import javafx.beans.property.SimpleObjectProperty;
+import at.ac.tuwien.qse.sepm.service.impl.PhotoIdList;
 import javafx.geometry.Pos;
-import javafx.scene.input.KeyCode;
-import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.StackPane;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -44,6 +40,13 @@ import org.apache.logging.log4j.Logger;
 import java.util.*;
 import java.util.function.Consumer;
 
+/**
+ * Grid that shows one page of photos at a time.
+ *
+ * The grid keeps a single page whose tiles are sized to the viewport. Switching pages, resizing or
+ * changing the photos rebinds these tiles to other photos, so memory use does not depend on the
+ * number of photos or the number of pages visited.
+ */
 public class PaginatedImageGrid extends StackPane {
 
     private static final Logger LOGGER = LogManager.getLogger();
@@ -53,19 +56,22 @@ public class PaginatedImageGrid extends StackPane {
     private Menu menu;
     private List<Photo> photos = new ArrayList<>();
 
-    private LRUCache<Integer, ImageGridPage> pageCache = new LRUCache<>(10);
+    private final ImageGridPage page;
+    private int pageIndex = -1;
     private Consumer<Collection<Photo>> selectionChangeAction = null;
     private boolean allSelected = false;
 
     private int photosPerPage = 24;
-    private ObjectProperty<ImageGridPage> activePageProperty = new SimpleObjectProperty<>(null);
 
     public PaginatedImageGrid(Menu menu) {
         this.menu = menu;
 
+        page = new ImageGridPage(new ArrayList<>(), photos);
+        page.setSelectionChangeAction(this::handlePageTilesSelected);
+        getChildren().add(page);
+
         heightProperty().addListener(this::handleSizeChange);
         widthProperty().addListener(this::handleSizeChange);
-        activePageProperty.addListener(this::handlePageChange);
         setAlignment(Pos.CENTER);
 
         menu.addListener(new PageSwitchListener());
@@ -82,13 +88,18 @@ public class PaginatedImageGrid extends StackPane {
     /**
      * Set a list of photos to be displayed in the grid
      *
+     * A {@link PhotoIdList} is already in the order of the grid and is used as is, so that only the
+     * photos on visible pages are copied.
+     *
      * @param photos The photos to show in the grid
      */
     public void setPhotos(List<Photo> photos) {
-        this.photos.clear();
-        this.photos.addAll(photos);
-
-        Collections.sort(this.photos, new PhotoTimeComparator());
+        if (photos instanceof PhotoIdList) {
+            this.photos = photos;
+        } else {
+            this.photos = new ArrayList<>(photos);
+            Collections.sort(this.photos, new PhotoTimeComparator());
+        }
         refresh();
     }
 
@@ -97,6 +108,7 @@ public class PaginatedImageGrid extends StackPane {
      * @param photos The photos to be added.
      */
     public void addPhotos(Collection<Photo> photos) {
+        ensureModifiable();
         this.photos.addAll(photos);
 
         Collections.sort(this.photos, new PhotoTimeComparator());
@@ -126,8 +138,10 @@ public class PaginatedImageGrid extends StackPane {
         if (found) {
             this.photos.set(index, photo);
 
-            ImageGridPage page = getPageForIndex(index);
-            page.updatePhoto(photo);
+            // Only the current page has tiles, other pages are bound when they are shown.
+            if (index / photosPerPage == pageIndex) {
+                page.updatePhoto(photo);
+            }
         }
     }
 
@@ -140,6 +154,7 @@ public class PaginatedImageGrid extends StackPane {
             return;
         }
 
+        ensureModifiable();
         photos.forEach(this::removePhoto);
         refresh();
     }
@@ -148,6 +163,13 @@ public class PaginatedImageGrid extends StackPane {
         photos.removeIf(p -> p.getId().equals(photo.getId()));
     }
 
+    // Replace a fixed-size photo list with a list that photos can be added to and removed from.
+    private void ensureModifiable() {
+        if (!(photos instanceof ArrayList)) {
+            photos = new ArrayList<>(photos);
+        }
+    }
+
     public void setSelectionChangeAction(Consumer<Collection<Photo>> selectionChangeAction) {
         this.selectionChangeAction = selectionChangeAction;
     }
@@ -158,11 +180,7 @@ public class PaginatedImageGrid extends StackPane {
      * @return The first photo of the current page or null if no page is active or the page is empty
      */
     public Photo getActivePhoto() {
-        if (activePageProperty.get() == null) {
-            return null;
-        }
-
-        return activePageProperty.get().getActivePhoto();
+        return page.getActivePhoto();
     }
 
     /**
@@ -175,9 +193,7 @@ public class PaginatedImageGrid extends StackPane {
             selectionChangeAction.accept(new ArrayList<>(photos));
         }
 
-        if (activePageProperty.get() != null) {
-            activePageProperty.get().selectAll();
-        }
+        page.selectAll();
     }
 
     /**
@@ -190,40 +206,28 @@ public class PaginatedImageGrid extends StackPane {
             return photos;
         }
 
-        if (activePageProperty.get() == null) {
-            return new HashSet<>();
-        }
-
-        return activePageProperty.get().getSelected();
+        return page.getSelected();
     }
 
-    private ImageGridPage createPage(int pageIndex) {
-        if (pageCache.containsKey(pageIndex))
-            return pageCache.get(pageIndex);
+    private void bindPage(int pageIndex) {
+        if (pageIndex != this.pageIndex) {
+            allSelected = false;
+            page.deselectAll();
+            this.pageIndex = pageIndex;
+        }
 
         int endIndex = Math.min((pageIndex + 1) * photosPerPage, photos.size());
         int startIndex = Math.min(pageIndex * photosPerPage, endIndex);
 
-        List<Photo> slice = photos.subList(startIndex, endIndex);
-
-        ImageGridPage page = new ImageGridPage(slice, photos);
-        pageCache.put(pageIndex, page);
-        return page;
-    }
-
-    private ImageGridPage getPage(int pageIndex) {
-        ImageGridPage page = createPage(pageIndex);
-
-        page.setSelectionChangeAction(this::handlePageTilesSelected);
-
-        activePageProperty.set(page);
-
-        return page;
+        page.setPhotos(photos.subList(startIndex, endIndex));
+        if (allSelected) {
+            // The same page was rebound while all photos were selected, its new photos are
+            // selected as well.
+            page.selectAll();
+        }
     }
 
     private void handlePageTilesSelected(Collection<Photo> photos) {
-        ImageGridPage page = activePageProperty.get();
-
         if (page.getSelected().isEmpty()) {
             // all items deselected which means the user selected a single tile and the selection was
             // cleared. reset all selected state to false
@@ -242,11 +246,6 @@ public class PaginatedImageGrid extends StackPane {
         }
     }
 
-    private ImageGridPage getPageForIndex(int index) {
-        int pageIndex = (int) Math.floor(index / (double) photosPerPage);
-        return getPage(pageIndex);
-    }
-
     private int calculatePageCount() {
         return Math.max(1, (int) Math.ceil(photos.size() / (double) photosPerPage));
     }
@@ -267,24 +266,15 @@ public class PaginatedImageGrid extends StackPane {
         if (totalPhotos != photosPerPage) {
             photosPerPage = totalPhotos;
             refresh();
+            page.trim(photosPerPage);
         }
     }
 
     private void updatePage() {
-        ImageGridPage page = getPage(menu.getCurrentPage());
-        getChildren().clear();
-        getChildren().add(page);
-    }
-
-    private void handlePageChange(Object observable, ImageGridPage oldValue, ImageGridPage newValue) {
-        if (oldValue != null) {
-            allSelected = false;
-            oldValue.deselectAll();
-        }
+        bindPage(menu.getCurrentPage());
     }
 
     private void refresh() {
-        pageCache.clear();
         menu.setPageCount(calculatePageCount());
         updatePage();
     }
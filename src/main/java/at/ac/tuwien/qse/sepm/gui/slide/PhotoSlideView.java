@@ -28,6 +28,8 @@ package at.ac.tuwien.qse.sepm.gui.slide;
  */
 
 import at.ac.tuwien.qse.sepm.entities.PhotoSlide;
+import at.ac.tuwien.qse.sepm.gui.util.ImageCache;
+import at.ac.tuwien.qse.sepm.gui.util.ImageSize;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.image.Image;
@@ -36,8 +38,6 @@ import javafx.scene.layout.StackPane;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.net.MalformedURLException;
-
 public class PhotoSlideView extends SlideView {
 
     private static final Logger LOGGER = LogManager.getLogger();
@@ -54,7 +54,7 @@ public class PhotoSlideView extends SlideView {
             imageView.setPreserveRatio(true);
             imageView.setFitHeight(height);
             imageView.setFitWidth(width);
-            imageView.setImage(loadImage());
+            imageView.setImage(image);
             getChildren().add(imageView);
         }
 
@@ -64,14 +64,7 @@ public class PhotoSlideView extends SlideView {
     }
 
     private Image loadImage() {
-        String url;
-        try {
-            url = slide.getPhoto().getFile().toUri().toURL().toString();
-        } catch (MalformedURLException ex) {
-            LOGGER.error("Failed to convert photo path to URL", ex);
-            return null;
-        }
-
-        return new Image(url, true);
+        // The presentation prefetches the photos of the next slides into the shared cache.
+        return ImageCache.getInstance().get(slide.getPhoto().getFile(), ImageSize.SCREEN);
     }
 }
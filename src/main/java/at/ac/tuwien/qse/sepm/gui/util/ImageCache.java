@@ -28,42 +28,115 @@ package at.ac.tuwien.qse.sepm.gui.util;
  * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
+import at.ac.tuwien.qse.sepm.service.ThumbnailService;
 import javafx.scene.image.Image;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.net.MalformedURLException;
 import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Cache for images. If the image is not present it is loaded from disk and put into the cache.
+ *
+ * Scaled images are loaded from the stored thumbnails if available, so that the original photo
+ * does not have to be decoded.
+ *
+ * All sizes share one byte budget. Each image weighs width * height * 4 bytes, and the least
+ * recently used images are evicted once the budget is exceeded. The budget defaults to a quarter of
+ * the maximum heap and can be set with the system property <tt>travelimg.image.cache</tt>. The
+ * cache may be used from multiple threads.
  */
 public class ImageCache {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
-    private LRUCache<Path, Image> smallCache = new LRUCache<>(500);
-    private LRUCache<Path, Image> mediumCache = new LRUCache<>(300);
-    private LRUCache<Path, Image> largeCache = new LRUCache<>(50);
-    private LRUCache<Path, Image> originalCache = new LRUCache<>(5);
+    // Assumed size of an original photo until it is loaded, a 12 megapixel photo.
+    private static final long ORIGINAL_ESTIMATE = 4000L * 3000L * 4L;
+
+    private static final ImageCache instance = new ImageCache();
+
+    private static ThumbnailService thumbnailService = null;
+
+    /**
+     * Get the cache shared by all image views of the application.
+     *
+     * @return the shared cache
+     */
+    public static ImageCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Set the service from which stored thumbnails are loaded.
+     *
+     * @param service service providing the thumbnails, or null to always load the photo itself
+     */
+    public static void setThumbnailService(ThumbnailService service) {
+        thumbnailService = service;
+    }
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final long budget;
+    private final boolean background;
+    private long weight = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long evictionCount = 0;
+
+    public ImageCache() {
+        this(Long.getLong("travelimg.image.cache", Runtime.getRuntime().maxMemory() / 4));
+    }
+
+    /**
+     * Create a cache with a byte budget.
+     *
+     * @param budget maximum number of bytes the cached images may take
+     */
+    public ImageCache(long budget) {
+        this(budget, true);
+    }
+
+    /**
+     * Create a cache with a byte budget.
+     *
+     * @param budget maximum number of bytes the cached images may take
+     * @param background true if images are loaded in the background, false if they are loaded
+     *                   before they are returned
+     */
+    public ImageCache(long budget, boolean background) {
+        if (budget <= 0) throw new IllegalArgumentException();
+        this.budget = budget;
+        this.background = background;
+    }
 
     /**
      * Get an image for a photo at the given size.
      *
-     * If it is not already in the cache then load it from disk.
+     * If it is not already in the cache then load it from disk. A request for a scaled size may also
+     * be answered with a loaded image of a larger scaled size.
      *
      * @param path The photo path for which to retrieve the image file.
      * @param size  The size for which the photo should be loaded.
      * @return The image at the given size.
      */
-    public Image get(Path path, ImageSize size) {
-        LRUCache<Path, Image> cache = getCacheForSize(size);
-
-        if (!cache.containsKey(path)) {
-            load(path, size);
+    public synchronized Image get(Path path, ImageSize size) {
+        Entry entry = entries.get(new Key(path, size));
+        if (entry == null) {
+            entry = getLarger(path, size);
+        }
+        if (entry != null) {
+            hitCount++;
+            return entry.image;
         }
 
-        return cache.get(path);
+        missCount++;
+        return load(path, size);
     }
 
     /**
@@ -71,36 +144,185 @@ public class ImageCache {
      *
      * @param path The image path to load.
      * @param size  The size of the resulting image
+     * @return The loaded image, or null if the path could not be loaded.
      */
-    public void load(Path path, ImageSize size) {
+    public synchronized Image load(Path path, ImageSize size) {
         String url;
 
+        Path source = path;
+        if (size.isSquare() && thumbnailService != null) {
+            Path thumbnail = thumbnailService.getThumbnail(path, size.pixels());
+            if (thumbnail != null) {
+                source = thumbnail;
+            }
+        }
+
         try {
-            url = path.toUri().toURL().toString();
+            url = source.toUri().toURL().toString();
         } catch (MalformedURLException ex) {
             LOGGER.error("Failed to convert photo path to URL", ex);
+            return null;
+        }
+
+        // Load the image in the background at the right size. The loader scales the photo as part
+        // of decoding it, so only the scaled image is kept in memory. Thumbnails are stretched to a
+        // square and scaled fast, other sizes keep their aspect ratio and are scaled smoothly.
+        boolean square = size.isSquare();
+        Image image = new Image(url, size.width(), size.height(), !square, !square, background);
+        long estimate = size == ImageSize.ORIGINAL
+                ? ORIGINAL_ESTIMATE
+                : 4L * size.width() * size.height();
+
+        // put image in cache
+        Key key = new Key(path, size);
+        put(key, new Entry(image, estimate));
+
+        // The actual size of an original is only known once it is loaded.
+        image.progressProperty().addListener((observable, oldValue, newValue) -> {
+            if (newValue.doubleValue() == 1.0) {
+                handleLoaded(key, image);
+            }
+        });
+        if (image.getProgress() == 1.0) {
+            handleLoaded(key, image);
+        }
+
+        return image;
+    }
+
+    /**
+     * Remove an image from the cache, for example after its loading was cancelled.
+     *
+     * The image is only removed if it is still the one cached for the path.
+     *
+     * @param path The photo path of the image.
+     * @param size The size at which the image was loaded.
+     * @param image The image that should be removed.
+     */
+    public synchronized void evict(Path path, ImageSize size, Image image) {
+        Key key = new Key(path, size);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.image == image) {
+            remove(key);
+        }
+    }
+
+    /**
+     * @return number of bytes the cached images take
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * @return number of requests that were answered from the cache
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return number of requests for which the image had to be loaded
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return number of images that were evicted to stay within the budget
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private Entry getLarger(Path path, ImageSize size) {
+        if (!size.isSquare()) {
+            return null;
+        }
+        // Only thumbnails are stretched to a square, so only those can replace each other.
+        for (ImageSize larger : ImageSize.values()) {
+            if (!larger.isSquare() || larger.pixels() <= size.pixels()) {
+                continue;
+            }
+            Entry entry = entries.get(new Key(path, larger));
+            if (entry != null && entry.image.getProgress() == 1.0 && !entry.image.isError()) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private synchronized void handleLoaded(Key key, Image image) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.image != image) {
+            return;
+        }
+        if (image.isError()) {
+            // Do not keep failed images, so that the image is loaded again next time.
+            remove(key);
             return;
         }
+        weight -= entry.weight;
+        entry.weight = 4L * (long) image.getWidth() * (long) image.getHeight();
+        weight += entry.weight;
+        trim();
+    }
 
-        Image image;
+    private void put(Key key, Entry entry) {
+        remove(key);
+        entries.put(key, entry);
+        weight += entry.weight;
+        trim();
+    }
 
-        // load the image in the background at the right size
-        if (size == ImageSize.ORIGINAL)
-            image = new Image(url, true);
-        else {
-            int width, height;
-            width = height = size.pixels();
-            image = new Image(url, width, height, false, false, true);
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight;
         }
+    }
 
-        // put image in cache
-        getCacheForSize(size).put(path, image);
+    private void trim() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        // The most recently used image is always kept, even if it alone exceeds the budget.
+        while (weight > budget && entries.size() > 1 && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            weight -= entry.weight;
+            evictionCount++;
+        }
     }
 
-    private LRUCache<Path, Image> getCacheForSize(ImageSize size) {
-        if (size == ImageSize.SMALL) return smallCache;
-        if (size == ImageSize.MEDIUM) return mediumCache;
-        if (size == ImageSize.LARGE) return largeCache;
-        return originalCache;
+    private static class Key {
+
+        private final Path path;
+        private final ImageSize size;
+
+        Key(Path path, ImageSize size) {
+            this.path = path;
+            this.size = size;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return Objects.equals(path, key.path) && size == key.size;
+        }
+
+        @Override public int hashCode() {
+            return Objects.hash(path, size);
+        }
+    }
+
+    private static class Entry {
+
+        private final Image image;
+        private long weight;
+
+        Entry(Image image, long weight) {
+            this.image = image;
+            this.weight = weight;
+        }
     }
 }
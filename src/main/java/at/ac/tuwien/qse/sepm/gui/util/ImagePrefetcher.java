@@ -0,0 +1,103 @@
+package at.ac.tuwien.qse.sepm.gui.util;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import javafx.scene.image.Image;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Loads images that are likely to be shown next, so that they are ready when they are needed.
+ *
+ * Images are loaded through an {@link ImageCache} in the background. Each call of
+ * {@link #prefetch(List)} replaces the previously requested images, and those that are no longer
+ * requested and still loading are cancelled.
+ */
+public class ImagePrefetcher {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final ImageCache cache;
+    private final ImageSize size;
+    private final Map<Path, Image> prefetched = new HashMap<>();
+
+    public ImagePrefetcher(ImageCache cache, ImageSize size) {
+        if (cache == null) throw new IllegalArgumentException();
+        if (size == null) throw new IllegalArgumentException();
+        this.cache = cache;
+        this.size = size;
+    }
+
+    /**
+     * Prefetch images and cancel earlier prefetches of images that are not in the list.
+     *
+     * The image that is currently shown should be part of the list, so that it is not cancelled.
+     *
+     * @param paths paths of the images that should be loaded, most important first
+     */
+    public void prefetch(List<Path> paths) {
+        Set<Path> requested = new HashSet<>(paths);
+        Iterator<Map.Entry<Path, Image>> iterator = prefetched.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, Image> entry = iterator.next();
+            if (!requested.contains(entry.getKey())) {
+                cancel(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        for (Path path : paths) {
+            if (path != null && !prefetched.containsKey(path)) {
+                LOGGER.debug("prefetching {}", path);
+                Image image = cache.get(path, size);
+                if (image != null) {
+                    prefetched.put(path, image);
+                }
+            }
+        }
+    }
+
+    /**
+     * Cancel all prefetches that are still loading.
+     */
+    public void cancel() {
+        prefetched.forEach(this::cancel);
+        prefetched.clear();
+    }
+
+    private void cancel(Path path, Image image) {
+        if (image.getProgress() < 1.0) {
+            LOGGER.debug("cancelling prefetch of {}", path);
+            image.cancel();
+            cache.evict(path, size, image);
+        }
+    }
+}
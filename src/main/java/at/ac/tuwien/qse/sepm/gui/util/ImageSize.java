@@ -28,18 +28,70 @@ package at.ac.tuwien.qse.sepm.gui.util;
  * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
+import javafx.geometry.Rectangle2D;
+import javafx.stage.Screen;
+
+/**
+ * Size at which an image is decoded.
+ *
+ * The small sizes are thumbnails that are stretched to a square. Larger sizes keep the aspect
+ * ratio of the photo and are only scaled down to fit into a bounding box.
+ */
 public enum ImageSize {
     SMALL,
     MEDIUM,
     LARGE,
+    /** Fits into the largest connected screen, keeping the aspect ratio. */
+    SCREEN,
+    /** Full resolution, which can take hundreds of megabytes for a single photo. */
     ORIGINAL;
 
+    /**
+     * @return edge length of the square for thumbnails, the longer edge of the bounding box for
+     * other sizes, or 0 if the image is not scaled
+     */
     public int pixels() {
+        return Math.max(width(), height());
+    }
+
+    /**
+     * @return width of the bounding box the image is scaled into, or 0 if it is not scaled
+     */
+    public int width() {
         switch (this) {
             case SMALL: return 100;
             case MEDIUM: return 150;
             case LARGE: return 300;
-            default: return 1; // placeholder
+            case SCREEN: return (int) getScreenBounds().getWidth();
+            default: return 0;
+        }
+    }
+
+    /**
+     * @return height of the bounding box the image is scaled into, or 0 if it is not scaled
+     */
+    public int height() {
+        switch (this) {
+            case SCREEN: return (int) getScreenBounds().getHeight();
+            default: return width();
+        }
+    }
+
+    /**
+     * @return true if the image is stretched to a square, false if its aspect ratio is kept
+     */
+    public boolean isSquare() {
+        return this == SMALL || this == MEDIUM || this == LARGE;
+    }
+
+    // The full screen window can be moved to any screen, so the image has to fit the largest one.
+    private static Rectangle2D getScreenBounds() {
+        double width = 0;
+        double height = 0;
+        for (Screen screen : Screen.getScreens()) {
+            width = Math.max(width, screen.getBounds().getWidth());
+            height = Math.max(height, screen.getBounds().getHeight());
         }
+        return new Rectangle2D(0, 0, width, height);
     }
 }
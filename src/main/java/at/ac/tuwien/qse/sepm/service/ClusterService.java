@@ -83,7 +83,8 @@ public interface ClusterService {
      * Creates a journey and clusters this journey in places.
      * <p>
      * A journey entry is made in the data record.
-     * This journey is then clustered into places (places are at least 1 degree apart from each other)
+     * The photos of the journey are then clustered by density and each cluster is looked up as a
+     * place. Photos outside of clusters join a place within 100 km or get a place of their own.
      *
      * @param journey Journey to be clustered.
      * @return Returns a list with all the clusters(places).
@@ -93,6 +94,7 @@ public interface ClusterService {
 
     /**
      * Finds a place near to where the photo was taken.
+     * If no known place is within 100 km, the place is looked up and added.
      * @param photo
      * @return the place
      * @throws ServiceException
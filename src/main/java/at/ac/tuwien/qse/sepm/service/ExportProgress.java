@@ -0,0 +1,98 @@
+package at.ac.tuwien.qse.sepm.service;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+/**
+ * Snapshot of the progress of an export.
+ */
+public class ExportProgress {
+
+    private final int exportedFiles;
+    private final int totalFiles;
+    private final long copiedBytes;
+    private final long totalBytes;
+    private final long elapsedMillis;
+
+    public ExportProgress(int exportedFiles, int totalFiles, long copiedBytes, long totalBytes,
+            long elapsedMillis) {
+        this.exportedFiles = exportedFiles;
+        this.totalFiles = totalFiles;
+        this.copiedBytes = copiedBytes;
+        this.totalBytes = totalBytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * @return number of photos that are completely exported, including skipped ones
+     */
+    public int getExportedFiles() {
+        return exportedFiles;
+    }
+
+    public int getTotalFiles() {
+        return totalFiles;
+    }
+
+    /**
+     * @return number of bytes written so far
+     */
+    public long getCopiedBytes() {
+        return copiedBytes;
+    }
+
+    /**
+     * @return number of bytes of all photos of the export, including the ones that are skipped
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return average number of bytes written per second since the export started
+     */
+    public double getBytesPerSecond() {
+        if (elapsedMillis <= 0) {
+            return 0;
+        }
+        return copiedBytes * 1000.0 / elapsedMillis;
+    }
+
+    @Override public String toString() {
+        return "ExportProgress{" +
+                "exportedFiles=" + exportedFiles +
+                ", totalFiles=" + totalFiles +
+                ", copiedBytes=" + copiedBytes +
+                ", totalBytes=" + totalBytes +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -60,4 +60,38 @@ public interface ExportService {
      */
     Cancelable exportPhotos(Collection<Photo> photos, String destination, Consumer<Photo> callback,
             ErrorHandler<ServiceException> errorHandler);
+
+    /**
+     * Export a given set of photos to the specified location and report the progress.
+     * <p>
+     * Photos are copied in parallel. A photo whose copy in the destination already has the same
+     * size and modification time is skipped. Photos with the same file name are exported with a
+     * numbered suffix, so that they do not overwrite each other.
+     *
+     * @param photos       The photos to upload.
+     * @param destination  The path where to the photos are exported.
+     * @param callback     Callback which is called after a photo is finished exporting.
+     * @param progress     Callback which is called repeatedly with the progress of the export.
+     * @param errorHandler Handler for occuring exceptions.
+     * @return A cancelable task for aborting the export if desired.
+     */
+    Cancelable exportPhotos(Collection<Photo> photos, String destination, Consumer<Photo> callback,
+            Consumer<ExportProgress> progress, ErrorHandler<ServiceException> errorHandler);
+
+    /**
+     * Export a given set of photos into a single ZIP archive.
+     * <p>
+     * The photos are written without compression, as JPEG files do not get any smaller. Photos
+     * with the same file name get a numbered suffix. If the export fails or is canceled, the
+     * incomplete archive is deleted.
+     *
+     * @param photos       The photos to upload.
+     * @param archive      The path of the archive file, which must not exist yet.
+     * @param callback     Callback which is called after a photo is finished exporting.
+     * @param progress     Callback which is called repeatedly with the progress of the export.
+     * @param errorHandler Handler for occuring exceptions.
+     * @return A cancelable task for aborting the export if desired.
+     */
+    Cancelable exportArchive(Collection<Photo> photos, String archive, Consumer<Photo> callback,
+            Consumer<ExportProgress> progress, ErrorHandler<ServiceException> errorHandler);
 }
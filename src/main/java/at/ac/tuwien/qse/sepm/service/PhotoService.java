@@ -70,6 +70,14 @@ public interface PhotoService {
      */
     void editPhoto(Photo photo) throws ServiceException;
 
+    /**
+     * Persist the edits made to several photos at once.
+     *
+     * @param photos photos for which the changes should be stored
+     * @throws ServiceException failed to perform operation
+     */
+    void editPhotos(Collection<Photo> photos) throws ServiceException;
+
     /**
      * Listen for photos that have been newly added.
      *
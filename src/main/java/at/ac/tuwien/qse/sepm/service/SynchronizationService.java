@@ -45,6 +45,30 @@ public interface SynchronizationService {
      */
     Queue<Operation> getQueue();
 
+    /**
+     * Get the number of operations that have not yet completed.
+     *
+     * Operations that were merged with other operations on the same file are not counted.
+     *
+     * @return number of operations in the queue
+     */
+    int getQueueSize();
+
+    /**
+     * Get the number of operations that have completed successfully since the service was started.
+     *
+     * @return number of completed operations
+     */
+    long getCompletedCount();
+
+    /**
+     * Get the number of operations that were dropped from the queue since the service was started,
+     * because they were merged with another operation on the same file.
+     *
+     * @return number of merged operations
+     */
+    long getMergedCount();
+
     /**
      * Listen for new operations that are queued.
      *
@@ -59,6 +83,14 @@ public interface SynchronizationService {
      */
     void subscribeComplete(Consumer<Operation> callback);
 
+    /**
+     * Listen for operations that were dropped from the queue, because they were merged with another
+     * operation on the same file.
+     *
+     * @param callback callback that receives the dropped operation
+     */
+    void subscribeMerge(Consumer<Operation> callback);
+
     /**
      * Listen for operations that have failed to complete.
      *
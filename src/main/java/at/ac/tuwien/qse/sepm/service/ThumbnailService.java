@@ -0,0 +1,67 @@
+package at.ac.tuwien.qse.sepm.service;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import java.nio.file.Path;
+
+/**
+ * Service for small, pre-scaled versions of photos that are kept on disk.
+ *
+ * Thumbnails are stored per photo file and size, and are only valid as long as the photo file
+ * was not modified after they were generated.
+ */
+public interface ThumbnailService {
+
+    /**
+     * Get the stored thumbnail of a photo.
+     *
+     * If the thumbnail does not exist or is out of date, it is scheduled for generation and null
+     * is returned.
+     *
+     * @param file file of the photo
+     * @param size size of the thumbnail in pixels
+     * @return file of the thumbnail, or null if it is not available yet
+     */
+    Path getThumbnail(Path file, int size);
+
+    /**
+     * Schedule the generation of the thumbnails of a photo in all sizes.
+     *
+     * Thumbnails that are up to date are not generated again.
+     *
+     * @param file file of the photo
+     */
+    void generate(Path file);
+
+    /**
+     * Delete the stored thumbnails of a photo.
+     *
+     * @param file file of the photo
+     */
+    void delete(Path file);
+}
@@ -29,6 +29,11 @@ package at.ac.tuwien.qse.sepm.service;
 
 import at.ac.tuwien.qse.sepm.entities.Place;
 import at.ac.tuwien.qse.sepm.entities.WikiPlaceInfo;
+import at.ac.tuwien.qse.sepm.util.ErrorHandler;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface WikipediaService {
 
@@ -42,4 +47,34 @@ public interface WikipediaService {
      * @throws ServiceException if an exception occurs on service layer level
      */
     WikiPlaceInfo getWikiPlaceInfo(Place place) throws ServiceException;
+
+    /**
+     * Create and return the WikiPlaceInfo objects for several places, querying all places
+     * that are not cached in as few requests as possible.
+     *
+     * @param places places which must contain non-null entries for <tt>place.city</tt> and
+     *               <tt>place.country</tt>
+     * @return information for each of the places
+     * @throws ServiceException if an exception occurs on service layer level
+     */
+    Map<Place, WikiPlaceInfo> getWikiPlaceInfos(Collection<Place> places) throws ServiceException;
+
+    /**
+     * Load the WikiPlaceInfo of a place in the background.
+     *
+     * @param place must contain non-null entries for <tt>place.city</tt> and
+     *              <tt>place.country</tt>
+     * @param callback receives the information, possibly on a background thread
+     * @param errorHandler receives the exception if the information can not be loaded
+     */
+    void loadWikiPlaceInfo(Place place, Consumer<WikiPlaceInfo> callback,
+            ErrorHandler<ServiceException> errorHandler);
+
+    /**
+     * Load the WikiPlaceInfo objects of several places in the background, so that they are
+     * cached when they are requested later. Invalid places are ignored.
+     *
+     * @param places places whose information is loaded
+     */
+    void prefetchWikiPlaceInfos(Collection<Place> places);
 }
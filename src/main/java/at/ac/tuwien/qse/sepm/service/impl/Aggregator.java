@@ -29,17 +29,32 @@ package at.ac.tuwien.qse.sepm.service.impl;
 
 import java.util.*;
 
+/**
+ * Counts how often values were added.
+ *
+ * Every value gets a dense code the first time it is seen. The counts are kept in a primitive
+ * array indexed by that code, so counting does not box. Codes are never reused, even after
+ * {@link #clear()}, which makes clearing and counting the same values again allocation free.
+ */
 public class Aggregator<T> implements Iterable<T> {
 
-    private final Set<T> values = new HashSet<>();
-    private final Map<T, Integer> counts = new HashMap<>();
+    private final Map<T, Integer> codes = new HashMap<>();
+    private final List<T> values = new ArrayList<>();
+    private int[] counts = new int[16];
+    private int[] published = new int[16];
 
     @Override public Iterator<T> iterator() {
-        return values.iterator();
+        List<T> contained = new ArrayList<>();
+        for (int code = 0; code < values.size(); code++) {
+            if (counts[code] > 0) {
+                contained.add(values.get(code));
+            }
+        }
+        return contained.iterator();
     }
 
     public boolean contains(T t) {
-        return values.contains(t);
+        return getCount(t) > 0;
     }
 
     /**
@@ -49,10 +64,11 @@ public class Aggregator<T> implements Iterable<T> {
      * @return number of times the value was passed to {@link #add(T)}
      */
     public int getCount(T t) {
-        if (!counts.containsKey(t)) {
-            counts.put(t, 0);
+        Integer code = codes.get(t);
+        if (code == null) {
+            return 0;
         }
-        return counts.get(t);
+        return counts[code];
     }
 
     /**
@@ -61,10 +77,9 @@ public class Aggregator<T> implements Iterable<T> {
      * @param value value that should be counted
      */
     public boolean add(T value) {
-        counts.put(value, getCount(value) + 1);
-        if (contains(value)) return false;
-        values.add(value);
-        return true;
+        int code = code(value);
+        counts[code]++;
+        return counts[code] == 1;
     }
 
     /**
@@ -73,12 +88,9 @@ public class Aggregator<T> implements Iterable<T> {
      * @param value value that should be counted
      */
     public boolean remove(T value) {
-        if (!contains(value)) return false;
-        counts.put(value, getCount(value) - 1);
-        if (getCount(value) <= 0) {
-            values.remove(value);
-            counts.remove(value);
-        }
+        Integer code = codes.get(value);
+        if (code == null || counts[code] <= 0) return false;
+        counts[code]--;
         return true;
     }
 
@@ -86,6 +98,39 @@ public class Aggregator<T> implements Iterable<T> {
      * Clears the recorded values and counts.
      */
     public void clear() {
-        counts.clear();
+        Arrays.fill(counts, 0);
+    }
+
+    /**
+     * Get the values whose count changed since the last call of this method.
+     *
+     * Values that were counted up and down again to the same count are not included.
+     *
+     * @return changed values mapped to their current count
+     */
+    public Map<T, Integer> pollChanged() {
+        Map<T, Integer> changed = new HashMap<>();
+        for (int code = 0; code < values.size(); code++) {
+            if (counts[code] != published[code]) {
+                published[code] = counts[code];
+                changed.put(values.get(code), counts[code]);
+            }
+        }
+        return changed;
+    }
+
+    private int code(T value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        code = values.size();
+        if (code == counts.length) {
+            counts = Arrays.copyOf(counts, code * 2);
+            published = Arrays.copyOf(published, code * 2);
+        }
+        codes.put(value, code);
+        values.add(value);
+        return code;
     }
 }
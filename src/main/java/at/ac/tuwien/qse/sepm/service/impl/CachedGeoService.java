@@ -0,0 +1,146 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.GeocodeDAO;
+import at.ac.tuwien.qse.sepm.entities.Place;
+import at.ac.tuwien.qse.sepm.service.GeoService;
+import at.ac.tuwien.qse.sepm.service.ServiceException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Geo service that stores the results of another geo service.
+ *
+ * Positions are grouped into cells of {@link #CELL_SIZE} degrees and each cell is geocoded only
+ * once. If the other service fails, it is not asked again for {@link #OFFLINE_DELAY} milliseconds
+ * and positions are looked up in the gazetteer instead, if there is one. If the gazetteer knows
+ * no nearby city either, a {@link ServiceException} is thrown.
+ */
+public class CachedGeoService implements GeoService {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /** Size of a cell in degrees, which is about one kilometer along a meridian. */
+    public static final double CELL_SIZE = 0.01;
+
+    /** Milliseconds during which the other service is not asked after it failed. */
+    public static final long OFFLINE_DELAY = 60_000;
+
+    private static final String UNKNOWN_CITY = "Unknown city";
+    private static final String UNKNOWN_COUNTRY = "Unknown country";
+
+    private final GeoService delegate;
+    private final GeocodeDAO geocodeDAO;
+    private Gazetteer gazetteer;
+    private volatile long offlineUntil = 0;
+
+    public CachedGeoService(GeoService delegate, GeocodeDAO geocodeDAO) {
+        if (delegate == null) throw new IllegalArgumentException();
+        if (geocodeDAO == null) throw new IllegalArgumentException();
+        this.delegate = delegate;
+        this.geocodeDAO = geocodeDAO;
+    }
+
+    public void setGazetteer(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+    }
+
+    @Override public Place getPlaceByGeoData(double latitude, double longitude)
+            throws ServiceException {
+        int cellLatitude = (int) Math.round(latitude / CELL_SIZE);
+        int cellLongitude = (int) Math.round(longitude / CELL_SIZE);
+
+        Place cached = read(cellLatitude, cellLongitude);
+        if (cached != null) {
+            LOGGER.debug("found cached place {} for {}, {}", cached, latitude, longitude);
+            return create(cached, latitude, longitude);
+        }
+
+        ServiceException error = null;
+        if (System.currentTimeMillis() >= offlineUntil) {
+            try {
+                Place place = delegate.getPlaceByGeoData(latitude, longitude);
+                if (isKnown(place)) {
+                    put(cellLatitude, cellLongitude, place);
+                    return place;
+                }
+                Place offline = lookup(latitude, longitude);
+                return offline != null ? offline : place;
+            } catch (ServiceException ex) {
+                LOGGER.warn("geocoding failed, using offline data for {} ms", OFFLINE_DELAY);
+                offlineUntil = System.currentTimeMillis() + OFFLINE_DELAY;
+                error = ex;
+            }
+        }
+
+        Place offline = lookup(latitude, longitude);
+        if (offline != null) {
+            return offline;
+        }
+        if (error != null) {
+            throw error;
+        }
+        throw new ServiceException("Geocoding is offline and no nearby city is known");
+    }
+
+    private Place lookup(double latitude, double longitude) {
+        if (gazetteer == null) {
+            return null;
+        }
+        return gazetteer.lookup(latitude, longitude);
+    }
+
+    private Place read(int cellLatitude, int cellLongitude) {
+        try {
+            return geocodeDAO.read(cellLatitude, cellLongitude);
+        } catch (DAOException ex) {
+            LOGGER.warn("Failed to read cached place", ex);
+            return null;
+        }
+    }
+
+    private void put(int cellLatitude, int cellLongitude, Place place) {
+        try {
+            geocodeDAO.put(cellLatitude, cellLongitude, place);
+        } catch (DAOException ex) {
+            LOGGER.warn("Failed to cache place {}", place, ex);
+        }
+    }
+
+    private static boolean isKnown(Place place) {
+        return place != null
+                && !UNKNOWN_CITY.equals(place.getCity())
+                && !UNKNOWN_COUNTRY.equals(place.getCountry());
+    }
+
+    private static Place create(Place place, double latitude, double longitude) {
+        return new Place(1, place.getCity(), place.getCountry(), latitude, longitude);
+    }
+}
@@ -53,6 +53,11 @@ public class ClusterServiceImpl implements ClusterService {
 
     private static final Logger logger = LogManager.getLogger(ClusterServiceImpl.class);
 
+    /**
+     * Maximal distance in meters between a photo and the place it belongs to.
+     */
+    private static final double PLACE_DISTANCE = 100_000;
+
     @Autowired private GeoService geoService;
     @Autowired private PhotoDAO photoDAO;
     @Autowired private JourneyDAO journeyDAO;
@@ -62,6 +67,22 @@ public class ClusterServiceImpl implements ClusterService {
     private Collection<Consumer<Place>> placesListeners = new LinkedList<>();
     private Collection<Consumer<Journey>> journeyListeners = new LinkedList<>();
 
+    private DensityClusterer clusterer = new DensityClusterer(2000, 3);
+
+    // All places, loaded when first needed and then kept up to date when places are added.
+    private final PlaceIndex placeIndex = new PlaceIndex();
+    private boolean placesLoaded = false;
+
+    /**
+     * Set the clusterer that groups the photos of a journey into places.
+     *
+     * @param clusterer clusterer to use
+     */
+    public void setClusterer(DensityClusterer clusterer) {
+        if (clusterer == null) throw new IllegalArgumentException();
+        this.clusterer = clusterer;
+    }
+
     @Autowired private void setPlaceWatcher(EntityWatcher<Place> watcher) {
         watcher.subscribeAdded(this::placeAdded);
     }
@@ -147,7 +168,6 @@ public class ClusterServiceImpl implements ClusterService {
         logger.debug("clustering journey {}", journey);
 
         List<Photo> photos;
-        List<Place> places = new ArrayList<>();
 
         addJourney(journey);
 
@@ -158,54 +178,86 @@ public class ClusterServiceImpl implements ClusterService {
             throw new ServiceException("Failed to read photos of journey", e);
         }
 
+        double[] latitudes = new double[photos.size()];
+        double[] longitudes = new double[photos.size()];
+        for (int i = 0; i < photos.size(); i++) {
+            latitudes[i] = photos.get(i).getData().getLatitude();
+            longitudes[i] = photos.get(i).getData().getLongitude();
+        }
+        DensityClusterer.Result clusters = clusterer.cluster(latitudes, longitudes);
+        logger.debug("found {} clusters in {} photos", clusters.getClusterCount(), photos.size());
+
+        // look up each cluster once at its centroid
+        List<Place> places = new ArrayList<>();
+        PlaceIndex index = new PlaceIndex();
+        Place[] clusterPlaces = new Place[clusters.getClusterCount()];
+        for (int cluster = 0; cluster < clusterPlaces.length; cluster++) {
+            clusterPlaces[cluster] = lookupPlace(
+                    clusters.getLatitude(cluster), clusters.getLongitude(cluster));
+            addUnique(places, index, clusterPlaces[cluster]);
+        }
+
         // attach a place to each photo
-        for (Photo photo : photos) {
-            final double latitude = photo.getData().getLatitude();
-            final double longitude = photo.getData().getLongitude();
-
-            double epsilon = 1.0;
-            Optional<Place> place = places.stream().filter(p -> Math.abs(p.getLatitude() - latitude)
-                    < epsilon)   // find an existing place in lateral proximity
-                    .filter(p -> Math.abs(p.getLongitude() - longitude)
-                            < epsilon) // find an existing place in longitudinal proximity
-                    .findFirst();
-
-            if (!place.isPresent()) {
-                // if no we don't already know a place in close proximity look it up
-                place = Optional.of(lookupPlace(photo));
-                places.add(place.get());
+        for (int i = 0; i < photos.size(); i++) {
+            Photo photo = photos.get(i);
+            int cluster = clusters.getCluster(i);
+            Place place;
+            if (cluster != DensityClusterer.NOISE) {
+                place = clusterPlaces[cluster];
+            } else {
+                // photos outside of dense areas join a place nearby or get their own
+                place = index.nearest(latitudes[i], longitudes[i], PLACE_DISTANCE);
+                if (place == null) {
+                    place = lookupPlace(latitudes[i], longitudes[i]);
+                    addUnique(places, index, place);
+                }
             }
 
-            photo.getData().setPlace(place.get());
+            photo.getData().setPlace(place);
             photo.getData().setJourney(journey);
-            photoService.editPhoto(photo);
         }
+        photoService.editPhotos(photos);
         return places;
     }
 
+    // Clusters next to each other may be looked up as the same place.
+    private void addUnique(List<Place> places, PlaceIndex index, Place place) {
+        if (!places.contains(place)) {
+            places.add(place);
+            index.add(place);
+        }
+    }
+
     @Override public Place getPlaceNearTo(Photo photo) throws ServiceException{
 
-        final double latitude = photo.getData().getLatitude();
-        final double longitude = photo.getData().getLongitude();
+        double latitude = photo.getData().getLatitude();
+        double longitude = photo.getData().getLongitude();
 
-        List<Place> places = getAllPlaces();
-        double epsilon = 1.0;
-        Optional<Place> place = places.stream().filter(p -> Math.abs(p.getLatitude() - latitude)
-                    < epsilon)   // find an existing place in lateral proximity
-                    .filter(p -> Math.abs(p.getLongitude() - longitude)
-                            < epsilon) // find an existing place in longitudinal proximity
-                    .findFirst();
+        Place place = getPlaceIndex().nearest(latitude, longitude, PLACE_DISTANCE);
 
-        if (!place.isPresent()) {
+        if (place == null) {
             // if we don't already know a place in close proximity look it up
             return lookupPlace(photo);
         }
-        return place.get();
+        return place;
+    }
+
+    private PlaceIndex getPlaceIndex() throws ServiceException {
+        synchronized (placeIndex) {
+            if (!placesLoaded) {
+                placeIndex.addAll(getAllPlaces());
+                placesLoaded = true;
+            }
+        }
+        return placeIndex;
     }
 
     private Place lookupPlace(Photo photo) throws ServiceException {
-        Place place = geoService
-                .getPlaceByGeoData(photo.getData().getLatitude(), photo.getData().getLongitude());
+        return lookupPlace(photo.getData().getLatitude(), photo.getData().getLongitude());
+    }
+
+    private Place lookupPlace(double latitude, double longitude) throws ServiceException {
+        Place place = geoService.getPlaceByGeoData(latitude, longitude);
 
         logger.debug("New unknown place cluster: {}", place);
 
@@ -213,7 +265,7 @@ public class ClusterServiceImpl implements ClusterService {
     }
 
     private void placeAdded(Place place) {
-
+        placeIndex.add(place);
         placesListeners.forEach(l -> l.accept(place));
     }
 
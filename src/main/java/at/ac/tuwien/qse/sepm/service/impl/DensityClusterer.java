@@ -0,0 +1,373 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Groups geographic positions into clusters of dense areas with DBSCAN.
+ *
+ * A position is a core position if at least a minimum number of positions, including itself, lie
+ * within the radius. Core positions within the radius of each other belong to the same cluster.
+ * Other positions within the radius of a core position join the cluster of the nearest one, the
+ * remaining positions are noise.
+ *
+ * The positions are put into a grid whose cells have a diagonal no longer than the radius. All
+ * positions in one cell are therefore neighbors, so the clusters can be formed by connecting cells
+ * instead of positions. Finding core positions and assigning the others runs in parallel.
+ */
+public class DensityClusterer {
+
+    /**
+     * Cluster of positions that are not part of any cluster.
+     */
+    public static final int NOISE = -1;
+
+    private final double radius;
+    private final int minPoints;
+
+    /**
+     * Create a clusterer.
+     *
+     * @param radius radius of the neighborhood of a position in meters
+     * @param minPoints minimal number of positions in the neighborhood of a core position
+     */
+    public DensityClusterer(double radius, int minPoints) {
+        if (radius <= 0) throw new IllegalArgumentException();
+        if (minPoints <= 0) throw new IllegalArgumentException();
+        this.radius = radius;
+        this.minPoints = minPoints;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    public int getMinPoints() {
+        return minPoints;
+    }
+
+    /**
+     * Cluster positions.
+     *
+     * @param latitudes latitudes of the positions in degrees
+     * @param longitudes longitudes of the positions in degrees, in the same order
+     * @return clusters of the positions
+     */
+    public Result cluster(double[] latitudes, double[] longitudes) {
+        if (latitudes == null || longitudes == null) throw new IllegalArgumentException();
+        if (latitudes.length != longitudes.length) throw new IllegalArgumentException();
+        return new Run(latitudes, longitudes).run();
+    }
+
+    /**
+     * Clusters of a set of positions.
+     */
+    public static class Result {
+
+        private final int[] labels;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final int[] sizes;
+
+        private Result(int[] labels, double[] latitudes, double[] longitudes, int[] sizes) {
+            this.labels = labels;
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.sizes = sizes;
+        }
+
+        public int getClusterCount() {
+            return sizes.length;
+        }
+
+        /**
+         * @param position index of the position
+         * @return cluster of the position, or {@link #NOISE}
+         */
+        public int getCluster(int position) {
+            return labels[position];
+        }
+
+        /**
+         * @param cluster index of the cluster
+         * @return latitude of the centroid of the cluster
+         */
+        public double getLatitude(int cluster) {
+            return latitudes[cluster];
+        }
+
+        /**
+         * @param cluster index of the cluster
+         * @return longitude of the centroid of the cluster
+         */
+        public double getLongitude(int cluster) {
+            return longitudes[cluster];
+        }
+
+        /**
+         * @param cluster index of the cluster
+         * @return number of positions in the cluster
+         */
+        public int getSize(int cluster) {
+            return sizes[cluster];
+        }
+    }
+
+    private class Run {
+
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final int n;
+
+        private final double cellSize;
+        private final int columns;
+        private final Map<Long, int[]> cells = new HashMap<>();
+        private final long[] keys;
+
+        private boolean[] core;
+
+        public Run(double[] latitudes, double[] longitudes) {
+            this.latitudes = latitudes;
+            this.longitudes = longitudes;
+            this.n = latitudes.length;
+
+            // A degree of longitude is never longer than a degree of latitude, so a square cell
+            // whose diagonal spans the radius in latitude fits into the radius everywhere.
+            this.cellSize = Math.toDegrees(radius / SpatialIndex.EARTH_RADIUS) / Math.sqrt(2);
+            this.columns = (int) Math.ceil(360 / cellSize);
+            this.keys = new long[n];
+        }
+
+        public Result run() {
+            buildGrid();
+
+            core = new boolean[n];
+            IntStream.range(0, n).parallel().forEach(i -> core[i] = isCore(i));
+
+            // Connect cells of core positions whose core positions are within the radius.
+            int[] parents = new int[n];
+            Arrays.setAll(parents, i -> i);
+            List<long[]> pairs = new ArrayList<>();
+            for (Map.Entry<Long, int[]> entry : cells.entrySet()) {
+                int[] cell = entry.getValue();
+                int first = firstCore(cell);
+                if (first < 0) continue;
+                // Core positions of the same cell are neighbors.
+                for (int i : cell) {
+                    if (core[i]) union(parents, first, i);
+                }
+                for (long other : neighborCells(cell[0])) {
+                    if (other > entry.getKey() && firstCore(cells.get(other)) >= 0) {
+                        pairs.add(new long[] { entry.getKey(), other });
+                    }
+                }
+            }
+            pairs.parallelStream()
+                    .filter(pair -> touches(cells.get(pair[0]), cells.get(pair[1])))
+                    .forEachOrdered(pair -> union(parents,
+                            firstCore(cells.get(pair[0])), firstCore(cells.get(pair[1]))));
+
+            // Number the clusters in the order of their first position.
+            int[] labels = new int[n];
+            Map<Integer, Integer> clusters = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                if (core[i]) {
+                    int root = find(parents, i);
+                    Integer label = clusters.get(root);
+                    if (label == null) {
+                        label = clusters.size();
+                        clusters.put(root, label);
+                    }
+                    labels[i] = label;
+                }
+            }
+
+            IntStream.range(0, n).parallel()
+                    .filter(i -> !core[i])
+                    .forEach(i -> {
+                        int nearest = nearestCore(i);
+                        labels[i] = nearest < 0 ? NOISE : labels[nearest];
+                    });
+
+            return centroids(labels, clusters.size());
+        }
+
+        private void buildGrid() {
+            Map<Long, List<Integer>> lists = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                keys[i] = key(row(latitudes[i]), column(longitudes[i]));
+                lists.computeIfAbsent(keys[i], k -> new ArrayList<>()).add(i);
+            }
+            for (Map.Entry<Long, List<Integer>> entry : lists.entrySet()) {
+                cells.put(entry.getKey(), entry.getValue().stream().mapToInt(i -> i).toArray());
+            }
+        }
+
+        private boolean isCore(int i) {
+            int[] own = cells.get(keys[i]);
+            if (own.length >= minPoints) {
+                return true;
+            }
+            int count = own.length;
+            for (long key : neighborCells(i)) {
+                if (key == keys[i]) continue;
+                for (int j : cells.get(key)) {
+                    if (isNeighbor(i, j) && ++count >= minPoints) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean touches(int[] a, int[] b) {
+            for (int i : a) {
+                if (!core[i]) continue;
+                for (int j : b) {
+                    if (core[j] && isNeighbor(i, j)) return true;
+                }
+            }
+            return false;
+        }
+
+        private int nearestCore(int i) {
+            int nearest = -1;
+            double best = radius;
+            for (long key : neighborCells(i)) {
+                for (int j : cells.get(key)) {
+                    if (!core[j]) continue;
+                    double d = distance(i, j);
+                    if (d <= best) {
+                        best = d;
+                        nearest = j;
+                    }
+                }
+            }
+            return nearest;
+        }
+
+        private int firstCore(int[] cell) {
+            for (int i : cell) {
+                if (core[i]) return i;
+            }
+            return -1;
+        }
+
+        // Keys of the non-empty cells that may contain neighbors of a position.
+        private List<Long> neighborCells(int i) {
+            int row = row(latitudes[i]);
+            int column = column(longitudes[i]);
+
+            // Two cells in latitude span the radius, in longitude it depends on the latitude.
+            int rowRange = 2;
+            double maxLat = Math.min(90, Math.abs(latitudes[i]) + 2 * cellSize);
+            double cos = Math.cos(Math.toRadians(maxLat));
+            int columnRange = cos > 1e-9 ? (int) Math.ceil(2 / cos) : columns;
+            columnRange = Math.min(columnRange, columns / 2);
+
+            List<Long> result = new ArrayList<>();
+            for (int r = row - rowRange; r <= row + rowRange; r++) {
+                for (int c = column - columnRange; c <= column + columnRange; c++) {
+                    long key = key(r, Math.floorMod(c, columns));
+                    if (cells.containsKey(key) && !result.contains(key)) {
+                        result.add(key);
+                    }
+                }
+            }
+            return result;
+        }
+
+        private Result centroids(int[] labels, int count) {
+            // Average on the unit sphere, so that clusters on the antimeridian are not torn apart.
+            double[] x = new double[count];
+            double[] y = new double[count];
+            double[] z = new double[count];
+            int[] sizes = new int[count];
+            for (int i = 0; i < n; i++) {
+                int label = labels[i];
+                if (label == NOISE) continue;
+                double phi = Math.toRadians(latitudes[i]);
+                double lambda = Math.toRadians(longitudes[i]);
+                x[label] += Math.cos(phi) * Math.cos(lambda);
+                y[label] += Math.cos(phi) * Math.sin(lambda);
+                z[label] += Math.sin(phi);
+                sizes[label]++;
+            }
+            double[] lat = new double[count];
+            double[] lon = new double[count];
+            for (int c = 0; c < count; c++) {
+                lat[c] = Math.toDegrees(Math.atan2(z[c], Math.hypot(x[c], y[c])));
+                lon[c] = Math.toDegrees(Math.atan2(y[c], x[c]));
+            }
+            return new Result(labels, lat, lon, sizes);
+        }
+
+        private boolean isNeighbor(int i, int j) {
+            return distance(i, j) <= radius;
+        }
+
+        private double distance(int i, int j) {
+            return SpatialIndex.distance(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+        }
+
+        private long key(int row, int column) {
+            return (long) row * columns + column;
+        }
+
+        private int row(double latitude) {
+            return (int) Math.floor((latitude + 90) / cellSize);
+        }
+
+        private int column(double longitude) {
+            double normalized = ((longitude + 180) % 360 + 360) % 360;
+            return (int) Math.floor(normalized / cellSize) % columns;
+        }
+    }
+
+    private static int find(int[] parents, int i) {
+        while (parents[i] != i) {
+            parents[i] = parents[parents[i]];
+            i = parents[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parents, int a, int b) {
+        int rootA = find(parents, a);
+        int rootB = find(parents, b);
+        if (rootA != rootB) {
+            parents[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
@@ -31,8 +31,8 @@ import at.ac.tuwien.qse.sepm.dao.DAOException;
 import at.ac.tuwien.qse.sepm.dao.repo.PhotoNotFoundException;
 import at.ac.tuwien.qse.sepm.dao.repo.PhotoRepository;
 import at.ac.tuwien.qse.sepm.dao.repo.PhotoSerializer;
-import at.ac.tuwien.qse.sepm.dao.repo.impl.FileManager;
 import at.ac.tuwien.qse.sepm.dao.repo.impl.JpegSerializer;
+import at.ac.tuwien.qse.sepm.dao.repo.impl.MetadataWriter;
 import at.ac.tuwien.qse.sepm.dao.repo.impl.PhotoFileRepository;
 import at.ac.tuwien.qse.sepm.dao.repo.impl.PhysicalFileManager;
 import at.ac.tuwien.qse.sepm.entities.Exif;
@@ -59,7 +59,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -136,79 +135,14 @@ public class ExifServiceImpl implements ExifService {
     }
 
     @Override public void setMetaData(Photo photo) throws ServiceException {
-        JpegSerializer serializer = new JpegSerializer();
-        FileManager fileManager = new PhysicalFileManager();
-
         logger.debug("Set metadata {}", photo);
 
-        Path file = photo.getFile();
-
-        Path temp = Paths.get(file.toString() + ".temp");
-        InputStream is = null;
-        OutputStream os = null;
-        try {
-            if (!fileManager.exists(temp)) {
-                try {
-                    fileManager.createFile(temp);
-                } catch (IOException ex) {
-                    logger.warn("failed creating temp file at {}", temp);
-                    throw new ServiceException(ex);
-                }
-            }
-
-            try {
-                is = fileManager.newInputStream(file);
-            } catch (IOException ex) {
-                logger.warn("failed creating input stream for file {}", file);
-                throw new ServiceException(ex);
-            }
-
-            try {
-                os = fileManager.newOutputStream(temp);
-            } catch (IOException ex) {
-                logger.warn("failed creating output stream for file {}", temp);
-                throw new ServiceException(ex);
-            }
-
-            try {
-                serializer.update(is, os, photo.getData());
-            } catch (DAOException ex) {
-                throw new ServiceException(ex);
-            }
-
-        } finally {
-            try {
-                if (is != null) {
-                    is.close();
-                }
-            } catch (IOException ex) {
-                logger.warn("failed closing input stream for file {}");
-                logger.error(ex);
-            }
-            try {
-                if (os != null) {
-                    os.close();
-                }
-            } catch (IOException ex) {
-                logger.warn("failed closing output stream for file {}");
-                logger.error(ex);
-            }
-        }
-
+        MetadataWriter writer = new MetadataWriter(new PhysicalFileManager(), new JpegSerializer());
         try {
-            fileManager.copy(temp, file);
-        } catch (IOException ex) {
-            logger.warn("failed copying {} -> {}", temp, file);
+            writer.write(photo.getFile(), photo.getData());
+        } catch (DAOException ex) {
+            logger.warn("failed writing metadata to file {}", photo.getFile());
             throw new ServiceException(ex);
-        } finally {
-            try {
-                if (fileManager.exists(temp)) {
-                    fileManager.delete(temp);
-                }
-            } catch (IOException ex) {
-                logger.warn("failed deleting temp file {}", temp);
-                logger.error(ex);
-            }
         }
     }
 }
@@ -29,12 +29,15 @@ package at.ac.tuwien.qse.sepm.service.impl;
  */
 
 import at.ac.tuwien.qse.sepm.entities.Photo;
+import at.ac.tuwien.qse.sepm.service.ExportProgress;
 import at.ac.tuwien.qse.sepm.service.ExportService;
 import at.ac.tuwien.qse.sepm.service.ServiceException;
 import at.ac.tuwien.qse.sepm.util.Cancelable;
-import at.ac.tuwien.qse.sepm.util.CancelableTask;
 import at.ac.tuwien.qse.sepm.util.ErrorHandler;
 import at.ac.tuwien.qse.sepm.util.IOHandler;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Lane;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Priority;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.json.JSONException;
@@ -42,12 +45,26 @@ import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ExecutorService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class ExportServiceImpl implements ExportService {
 
@@ -62,8 +79,13 @@ public class ExportServiceImpl implements ExportService {
             "AppData/Roaming/Dropbox/info.json"
     );
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Minimal time between two progress reports while bytes are copied.
+    private static final long PROGRESS_INTERVAL = 200;
+
+    // Exports run in the transfer lane, so that they do not block the other background tasks.
     @Autowired
-    private ExecutorService executor;
+    private LaneExecutor executor;
 
     @Autowired
     private IOHandler ioHandler;
@@ -103,11 +125,73 @@ public class ExportServiceImpl implements ExportService {
     @Override
     public Cancelable exportPhotos(Collection<Photo> photos, String destination,
             Consumer<Photo> callback, ErrorHandler<ServiceException> errorHandler) {
+        return exportPhotos(photos, destination, callback, progress -> { }, errorHandler);
+    }
+
+    @Override
+    public Cancelable exportPhotos(Collection<Photo> photos, String destination,
+            Consumer<Photo> callback, Consumer<ExportProgress> progress,
+            ErrorHandler<ServiceException> errorHandler) {
         LOGGER.debug("exporting photos to {}", destination);
-        AsyncExporter exporter = new AsyncExporter(photos, destination, callback, errorHandler);
-        executor.submit(exporter);
+        List<Photo> list = new ArrayList<>(photos);
+        // The names are reserved up front, so that no two workers write to the same file.
+        List<String> names = uniqueNames(list);
+        // Each worker exports photos until none are left, which keeps the lane queue short.
+        int workers = Math.min(list.size(), executor.getThreads(Lane.TRANSFER));
+        ExportJob job = new ExportJob(list, workers, callback, progress, errorHandler);
+
+        Path dest = Paths.get(destination);
+        LOGGER.debug("destination is {}", destination);
+        if (!Files.exists(dest)) {
+            LOGGER.debug("destination does not exist at {}", dest);
+            ServiceException ex = new ServiceException(
+                    "Can't export to folder which does not exist: " + dest.toString());
+            LOGGER.error("Failed to export photos to folder", ex);
+            errorHandler.propagate(ex);
+            job.abort();
+            return job;
+        }
+
+        for (int i = 0; i < workers; i++) {
+            submit(job, () -> {
+                int index;
+                while (!job.isCanceled() && (index = job.next()) >= 0) {
+                    exportPhoto(job, list.get(index), dest.resolve(names.get(index)));
+                }
+            });
+        }
+
+        return job;
+    }
+
+    @Override
+    public Cancelable exportArchive(Collection<Photo> photos, String archive,
+            Consumer<Photo> callback, Consumer<ExportProgress> progress,
+            ErrorHandler<ServiceException> errorHandler) {
+        LOGGER.debug("exporting photos to archive {}", archive);
+        List<Photo> list = new ArrayList<>(photos);
 
-        return exporter;
+        // The archive is a single stream, so it is written by one task.
+        ExportJob job = new ExportJob(list, 1, callback, progress, errorHandler);
+        submit(job, () -> writeArchive(job, list, uniqueNames(list), Paths.get(archive)));
+        return job;
+    }
+
+    private void submit(ExportJob job, Runnable work) {
+        try {
+            executor.submit(Lane.TRANSFER, Priority.NORMAL, () -> {
+                try {
+                    job.start();
+                    work.run();
+                } finally {
+                    job.done();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            LOGGER.error("Failed to start export", ex);
+            job.failed(new ServiceException("Failed to start export", ex));
+            job.done();
+        }
     }
 
     /**
@@ -126,55 +210,215 @@ public class ExportServiceImpl implements ExportService {
         }
     }
 
-    private class AsyncExporter extends CancelableTask {
-        private Collection<Photo> photos;
-        private String destination;
-        private Consumer<Photo> callback;
-        private ErrorHandler<ServiceException> errorHandler;
+    private void exportPhoto(ExportJob job, Photo photo, Path target) {
+        try {
+            Path source = Paths.get(photo.getPath());
+            if (isUpToDate(source, target)) {
+                LOGGER.debug("skipping {}, it is already exported", source);
+            } else {
+                ioHandler.copyFromTo(source, target, job::copied);
+            }
+            job.exported(photo);
+
+        } catch (Exception ex) {
+            LOGGER.error("Failed to export photo to folder", ex);
+            job.failed(new ServiceException("Failed to export photo to folder", ex));
+        }
+    }
+
+    private void writeArchive(ExportJob job, List<Photo> photos, List<String> names,
+            Path archive) {
+        OutputStream file;
+        try {
+            file = Files.newOutputStream(archive, StandardOpenOption.CREATE_NEW);
+        } catch (IOException ex) {
+            LOGGER.error("Failed to create archive {}", archive, ex);
+            job.failed(new ServiceException("Failed to create archive", ex));
+            return;
+        }
+
+        boolean complete = false;
+        try {
+            boolean written;
+            try (ZipOutputStream zip = new ZipOutputStream(file)) {
+                written = writeEntries(job, zip, photos, names);
+            }
+            complete = written;
+        } catch (IOException ex) {
+            LOGGER.error("Failed to export photos to archive", ex);
+            job.failed(new ServiceException("Failed to export photos to archive", ex));
+        }
+
+        // NOTE: An incomplete archive is removed, as it would look like a complete one.
+        if (!complete) {
+            try {
+                Files.deleteIfExists(archive);
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to delete incomplete archive {}", archive, ex);
+            }
+        }
+    }
+
+    // Write the photos into the archive and return false if the export was canceled.
+    private boolean writeEntries(ExportJob job, ZipOutputStream zip, List<Photo> photos,
+            List<String> names) throws IOException {
+        // NOTE: Entries are deflated without compression instead of being stored, because stored
+        // entries need their checksum up front, which would mean reading every photo twice.
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        for (int i = 0; i < photos.size(); i++) {
+            if (job.isCanceled()) {
+                return false;
+            }
 
-        public AsyncExporter(Collection<Photo> photos, String destination, Consumer<Photo> callback, ErrorHandler<ServiceException> errorHandler) {
-            super();
+            Photo photo = photos.get(i);
+            Path source = Paths.get(photo.getPath());
+            ZipEntry entry = new ZipEntry(names.get(i));
+            entry.setTime(Files.getLastModifiedTime(source).toMillis());
+            zip.putNextEntry(entry);
+            try (InputStream in = Files.newInputStream(source)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    zip.write(buffer, 0, read);
+                    job.copied(read);
+                }
+            }
+            zip.closeEntry();
+            job.exported(photo);
+        }
+        return true;
+    }
+
+    // Photos from different folders may have the same name, but the exported files and the
+    // entries in an archive may not. Names are compared ignoring case for case-insensitive file
+    // systems.
+    private static List<String> uniqueNames(List<Photo> photos) {
+        Set<String> names = new HashSet<>();
+        List<String> result = new ArrayList<>(photos.size());
+        for (Photo photo : photos) {
+            result.add(uniqueName(names, Paths.get(photo.getPath()).getFileName().toString()));
+        }
+        return result;
+    }
+
+    private static String uniqueName(Set<String> names, String name) {
+        String unique = name;
+        int dot = name.lastIndexOf('.');
+        String base = dot < 0 ? name : name.substring(0, dot);
+        String extension = dot < 0 ? "" : name.substring(dot);
+        for (int i = 1; !names.add(unique.toLowerCase(Locale.ROOT)); i++) {
+            unique = base + "_" + i + extension;
+        }
+        return unique;
+    }
+
+    private boolean isUpToDate(Path source, Path target) {
+        try {
+            return Files.exists(target)
+                    && Files.size(target) == Files.size(source)
+                    && Files.getLastModifiedTime(target).equals(Files.getLastModifiedTime(source));
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static long size(Photo photo) {
+        try {
+            return Files.size(Paths.get(photo.getPath()));
+        } catch (IOException | RuntimeException ex) {
+            return 0;
+        }
+    }
+
+    private class ExportJob implements Cancelable {
+
+        private final List<Photo> photos;
+        private final AtomicInteger nextIndex = new AtomicInteger(0);
+        private final AtomicBoolean canceled = new AtomicBoolean(false);
+        private final AtomicInteger remainingTasks;
+        private final AtomicInteger exportedFiles = new AtomicInteger(0);
+        private final AtomicLong copiedBytes = new AtomicLong(0);
+        private final AtomicLong lastReport = new AtomicLong(0);
+        private final int totalFiles;
+        // measured by the first task, guarded by the job
+        private long totalBytes = -1;
+        private final long started = System.currentTimeMillis();
+
+        private final Consumer<Photo> callback;
+        private final Consumer<ExportProgress> progress;
+        private final ErrorHandler<ServiceException> errorHandler;
+
+        public ExportJob(List<Photo> photos, int tasks, Consumer<Photo> callback,
+                Consumer<ExportProgress> progress, ErrorHandler<ServiceException> errorHandler) {
             this.photos = photos;
-            this.destination = destination;
+            this.remainingTasks = new AtomicInteger(tasks);
+            this.totalFiles = photos.size();
             this.callback = callback;
+            this.progress = progress;
             this.errorHandler = errorHandler;
         }
 
         @Override
-        protected void execute() {
-            LOGGER.debug("executing async exporter");
-            Path dest;
+        public void cancel() {
+            canceled.set(true);
+        }
 
-            try {
-                dest = Paths.get(destination);
-                LOGGER.debug("destination is {}", destination);
-                if (!Files.exists(dest)) {
-                    LOGGER.debug("destination does not exist at {}", dest);
-                    throw new ServiceException("Can't export to folder which does not exist: " + dest.toString());
-                }
-            } catch (ServiceException ex) {
-                LOGGER.error("Failed to export photos to folder", ex);
-                errorHandler.propagate(ex);
-                return;
-            }
+        @Override
+        public boolean isFinished() {
+            return remainingTasks.get() == 0;
+        }
 
-            for (Photo photo : photos) {
-                if (!isRunning())
-                    return;
+        private boolean isCanceled() {
+            return canceled.get();
+        }
 
-                try {
-                    Path source = Paths.get(photo.getPath());
-                    String fileName = source.getFileName().toString();
-                    Path target = Paths.get(dest.toString(), fileName);
+        // Measure the photos in the first task instead of on the calling thread, which is
+        // usually the UI thread.
+        private synchronized void start() {
+            if (totalBytes < 0) {
+                totalBytes = photos.stream().mapToLong(ExportServiceImpl::size).sum();
+            }
+        }
 
-                    ioHandler.copyFromTo(source, target);
-                    callback.accept(photo);
+        // Get the index of the next photo to export or -1 if all photos were handed out.
+        private int next() {
+            int index = nextIndex.getAndIncrement();
+            return index < photos.size() ? index : -1;
+        }
 
-                } catch (Exception ex) {
-                    LOGGER.error("Failed to export photo to folder", ex);
-                    errorHandler.propagate(new ServiceException("Failed to export photo to folder", ex));
-                }
+        private void copied(long bytes) {
+            copiedBytes.addAndGet(bytes);
+            long now = System.currentTimeMillis();
+            long last = lastReport.get();
+            if (now - last >= PROGRESS_INTERVAL && lastReport.compareAndSet(last, now)) {
+                report();
             }
         }
+
+        // Callbacks and progress reports are serialized, so that consumers need not be
+        // thread-safe.
+        private synchronized void exported(Photo photo) {
+            exportedFiles.incrementAndGet();
+            callback.accept(photo);
+            report();
+        }
+
+        private synchronized void failed(ServiceException ex) {
+            errorHandler.propagate(ex);
+        }
+
+        private void done() {
+            remainingTasks.decrementAndGet();
+        }
+
+        private void abort() {
+            remainingTasks.set(0);
+        }
+
+        private synchronized void report() {
+            progress.accept(new ExportProgress(exportedFiles.get(), totalFiles, copiedBytes.get(),
+                    totalBytes, System.currentTimeMillis() - started));
+        }
     }
 }
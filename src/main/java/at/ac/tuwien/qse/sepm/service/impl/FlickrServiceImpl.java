@@ -32,6 +32,9 @@ import at.ac.tuwien.qse.sepm.service.ServiceException;
 import at.ac.tuwien.qse.sepm.util.Cancelable;
 import at.ac.tuwien.qse.sepm.util.CancelableTask;
 import at.ac.tuwien.qse.sepm.util.ErrorHandler;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Lane;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Priority;
 import com.flickr4java.flickr.Flickr;
 import com.flickr4java.flickr.FlickrException;
 import com.flickr4java.flickr.REST;
@@ -51,7 +54,7 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.file.Paths;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Consumer;
 
 public class FlickrServiceImpl implements FlickrService {
@@ -67,7 +70,7 @@ public class FlickrServiceImpl implements FlickrService {
     private int i = 0;
 
     @Autowired
-    private ExecutorService executor;
+    private LaneExecutor executor;
 
     public FlickrServiceImpl() {
         this.flickr = new Flickr(API_KEY, SECRET, new REST());
@@ -80,7 +83,7 @@ public class FlickrServiceImpl implements FlickrService {
         if (i == 0) {
             searcher = new AsyncSearcher(tags, latitude, longitude, useGeoData, callback, progressCallback, errorHandler);
         }
-        executor.submit(searcher);
+        submit(searcher, errorHandler);
         return searcher;
     }
 
@@ -88,10 +91,19 @@ public class FlickrServiceImpl implements FlickrService {
     public Cancelable downloadPhotos(List<Photo> photos, Consumer<Photo> callback, Consumer<Double> progressCallback,
             ErrorHandler<ServiceException> errorHandler){
         AsyncDownloader downloader = new AsyncDownloader(photos, callback, progressCallback, errorHandler);
-        executor.submit(downloader);
+        submit(downloader, errorHandler);
         return downloader;
     }
 
+    private void submit(Runnable task, ErrorHandler<ServiceException> errorHandler) {
+        try {
+            executor.submit(Lane.NETWORK, Priority.NORMAL, task);
+        } catch (RejectedExecutionException ex) {
+            logger.debug(ex.getMessage());
+            errorHandler.propagate(new ServiceException(ex.getMessage(), ex));
+        }
+    }
+
     @Override
     public void reset() {
         i = 0;
@@ -0,0 +1,149 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Place;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Offline reverse geocoder that returns the nearest city of a city table.
+ *
+ * The table has the tab-separated format of the GeoNames city exports (for example
+ * cities15000.txt): the name is the second column, latitude and longitude are the fifth and sixth
+ * column and the ISO country code is the ninth column. Country names are derived from the codes
+ * in the language of the default locale.
+ */
+public class Gazetteer {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final double distance;
+    private final SpatialIndex<City> index = new SpatialIndex<>(
+            city -> city.latitude, city -> city.longitude, 1.0);
+
+    /**
+     * Create a gazetteer from a city table.
+     *
+     * @param file path of the table, or an empty string for a gazetteer without cities
+     * @param distance maximal distance in meters between a position and its city
+     */
+    public Gazetteer(String file, double distance) {
+        if (file == null) throw new IllegalArgumentException();
+        if (distance <= 0) throw new IllegalArgumentException();
+        this.distance = distance;
+        if (!file.isEmpty()) {
+            load(Paths.get(file));
+        }
+    }
+
+    /**
+     * @return number of cities in the gazetteer
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Find the city at a position.
+     *
+     * @param latitude latitude of the position in degrees
+     * @param longitude longitude of the position in degrees
+     * @return place at the position with the city and country of the nearest city, or null if no
+     *         city is near enough
+     */
+    public Place lookup(double latitude, double longitude) {
+        City city = index.nearest(latitude, longitude, distance);
+        if (city == null) {
+            return null;
+        }
+        return new Place(1, city.name, city.country, latitude, longitude);
+    }
+
+    private void load(Path file) {
+        if (!Files.exists(file)) {
+            LOGGER.info("no city table at {}, offline geocoding is disabled", file);
+            return;
+        }
+
+        LOGGER.info("loading city table {}", file);
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                City city = parse(line);
+                if (city == null) {
+                    skipped++;
+                } else {
+                    index.add(city);
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.error("Failed to read city table {}", file, ex);
+        }
+        LOGGER.info("loaded {} cities, skipped {} lines", index.size(), skipped);
+    }
+
+    private City parse(String line) {
+        String[] columns = line.split("\t", -1);
+        if (columns.length < 9 || columns[1].isEmpty() || columns[8].isEmpty()) {
+            return null;
+        }
+        try {
+            double latitude = Double.parseDouble(columns[4]);
+            double longitude = Double.parseDouble(columns[5]);
+            String country = new Locale("", columns[8]).getDisplayCountry();
+            return new City(columns[1], country, latitude, longitude);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private static class City {
+
+        private final String name;
+        private final String country;
+        private final double latitude;
+        private final double longitude;
+
+        public City(String name, String country, double latitude, double longitude) {
+            this.name = name;
+            this.country = country;
+            this.latitude = latitude;
+            this.longitude = longitude;
+        }
+    }
+}
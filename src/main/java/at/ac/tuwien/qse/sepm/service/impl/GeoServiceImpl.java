@@ -40,11 +40,15 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 
 public class GeoServiceImpl implements GeoService {
     private static final org.apache.logging.log4j.Logger logger = LogManager
             .getLogger(ClusterServiceImpl.class);
 
+    /** Milliseconds to wait for the geocoding server before giving up. */
+    private static final int TIMEOUT = 5000;
+
     public Place getPlaceByGeoData(double latitude, double longitude) throws ServiceException {
         logger.debug("getPlaceByGeoData() Latitude: " + latitude + " Longitude: " + longitude);
         Place p = new Place(1, "Unknown city", "Unknown country", latitude, longitude);
@@ -113,7 +117,20 @@ public class GeoServiceImpl implements GeoService {
             throw new ServiceException("Malformed url", ex);
         }
 
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream()))) {
+        try {
+            URLConnection connection = url.openConnection();
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            return read(connection);
+        } catch (IOException ex) {
+            logger.error("Failed to read url {}", url, ex);
+            throw new ServiceException("Failed to read url", ex);
+        }
+    }
+
+    private String read(URLConnection connection) throws IOException {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(connection.getInputStream()))) {
             StringBuilder buffer = new StringBuilder();
 
             String line;
@@ -122,9 +139,6 @@ public class GeoServiceImpl implements GeoService {
             }
 
             return buffer.toString();
-        } catch (IOException ex) {
-            logger.error("Failed to read url {}", url, ex);
-            throw new ServiceException("Failed to read url", ex);
         }
     }
 }
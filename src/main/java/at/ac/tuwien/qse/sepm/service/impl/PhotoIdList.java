@@ -0,0 +1,108 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Photo;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Fixed-size list of photos that are only copied when they are accessed.
+ *
+ * The list is the result of filtering a {@link PhotoIndex}. The photos are ordered like in the
+ * image grid, newest first and by id for photos taken at the same time. The ids of the photos are
+ * available without copying the photos themselves.
+ */
+public class PhotoIdList extends AbstractList<Photo> implements RandomAccess {
+
+    private final int[] ids;
+    private final Photo[] photos;
+    private final Photo[] copies;
+
+    PhotoIdList(int[] ids, Photo[] photos) {
+        this.ids = ids;
+        this.photos = photos;
+        this.copies = new Photo[photos.length];
+    }
+
+    /**
+     * Get the id of the photo at an index without copying the photo.
+     *
+     * @param index index of the photo
+     * @return id of the photo
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Get the photo at an index without copying it.
+     *
+     * The returned photo is shared and must not be modified.
+     *
+     * @param index index of the photo
+     * @return photo at the index
+     */
+    Photo getShared(int index) {
+        return photos[index];
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The photo is copied on first access, later calls return the same copy.
+     */
+    @Override public Photo get(int index) {
+        Photo copy = copies[index];
+        if (copy == null) {
+            copy = new Photo(photos[index]);
+            copies[index] = copy;
+        }
+        return copy;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Replaces the photo at the index, for example with an updated version of it.
+     */
+    @Override public Photo set(int index, Photo photo) {
+        if (photo == null) throw new IllegalArgumentException();
+        if (photo.getId() == null) throw new IllegalArgumentException();
+        Photo previous = get(index);
+        ids[index] = photo.getId();
+        photos[index] = new Photo(photo);
+        copies[index] = photo;
+        return previous;
+    }
+
+    @Override public int size() {
+        return ids.length;
+    }
+}
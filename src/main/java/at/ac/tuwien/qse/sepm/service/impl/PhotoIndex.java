@@ -0,0 +1,449 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.*;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * In-memory index of photos that can be filtered without accessing the database.
+ *
+ * Every photo is stored in one row of the index. For every rating, photographer, place, journey and
+ * tag the rows of the photos with that value are stored in a bitmap. Photos without tags are
+ * stored in the bitmap of the null tag. A {@link PhotoFilter} is
+ * compiled into unions and intersections of these bitmaps, so its cost depends on the number of
+ * bitmap words rather than on the number of photos and facets.
+ *
+ * Rows keep the order in which the photos were added. Removed rows are only marked as such and
+ * are compacted once they make up half of the index. Separately, the live rows are kept sorted
+ * newest first, so that matches are returned in that order without sorting them on every filter.
+ *
+ * The photos returned from the index are copies, so they can be modified freely.
+ */
+public class PhotoIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<Path, Integer> rowsByFile = new HashMap<>();
+    private final Facet<Rating> ratings = new Facet<>();
+    private final Facet<Photographer> photographers = new Facet<>();
+    private final Facet<Place> places = new Facet<>();
+    private final Facet<Journey> journeys = new Facet<>();
+    private final Facet<Tag> tags = new Facet<>();
+    private final BitSet live = new BitSet();
+
+    // number of used rows, including removed ones
+    private int rows = 0;
+    private Photo[] photos;
+    private int[] ids;
+    private long[] datetimes;
+    // live rows sorted newest first
+    private int[] order;
+    private int ordered = 0;
+
+    public PhotoIndex() {
+        clear();
+    }
+
+    /**
+     * Get the number of photos in the index.
+     *
+     * @return number of photos
+     */
+    public synchronized int size() {
+        return rowsByFile.size();
+    }
+
+    /**
+     * Remove all photos from the index.
+     */
+    public synchronized void clear() {
+        rowsByFile.clear();
+        ratings.clear();
+        photographers.clear();
+        places.clear();
+        journeys.clear();
+        tags.clear();
+        live.clear();
+
+        rows = 0;
+        photos = new Photo[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        datetimes = new long[INITIAL_CAPACITY];
+        order = new int[INITIAL_CAPACITY];
+        ordered = 0;
+    }
+
+    /**
+     * Add a photo to the index or replace the photo with the same file.
+     *
+     * @param photo photo that should be indexed
+     */
+    public synchronized void put(Photo photo) {
+        if (photo == null) throw new IllegalArgumentException();
+        if (photo.getId() == null) throw new IllegalArgumentException();
+
+        Integer row = rowsByFile.get(photo.getFile());
+        if (row == null) {
+            row = allocate(photo.getFile());
+        } else {
+            unorder(row);
+            unindex(row);
+        }
+        store(row, new Photo(photo));
+        order(row);
+    }
+
+    /**
+     * Add photos to the index or replace the photos with the same files.
+     *
+     * Unlike adding the photos one by one, the new rows are sorted only once and then merged
+     * into the existing order, which makes this suitable for loading many photos.
+     *
+     * @param photos photos that should be indexed
+     */
+    public synchronized void putAll(Collection<Photo> photos) {
+        if (photos == null) throw new IllegalArgumentException();
+        for (Photo photo : photos) {
+            if (photo == null) throw new IllegalArgumentException();
+            if (photo.getId() == null) throw new IllegalArgumentException();
+        }
+
+        ensureCapacity(rows + photos.size());
+        BitSet pending = new BitSet();
+        for (Photo photo : photos) {
+            Integer row = rowsByFile.get(photo.getFile());
+            if (row == null) {
+                row = allocate(photo.getFile());
+            } else {
+                if (!pending.get(row)) {
+                    unorder(row);
+                }
+                unindex(row);
+            }
+            store(row, new Photo(photo));
+            pending.set(row);
+        }
+
+        int[] added = pending.stream().boxed()
+                .sorted(this::compare)
+                .mapToInt(Integer::intValue)
+                .toArray();
+        merge(added);
+    }
+
+    // Claim a new row for a file.
+    private int allocate(Path file) {
+        ensureCapacity(rows + 1);
+        int row = rows++;
+        rowsByFile.put(file, row);
+        live.set(row);
+        return row;
+    }
+
+    // Store a photo in a row and add the row to all bitmaps.
+    private void store(int row, Photo photo) {
+        PhotoMetadata data = photo.getData();
+        photos[row] = photo;
+        ids[row] = photo.getId();
+        datetimes[row] = pack(data.getDatetime());
+        ratings.add(data.getRating(), row);
+        photographers.add(data.getPhotographer(), row);
+        places.add(data.getPlace(), row);
+        journeys.add(data.getJourney(), row);
+        if (data.getTags().isEmpty()) {
+            tags.add(null, row);
+        }
+        for (Tag tag : data.getTags()) {
+            tags.add(tag, row);
+        }
+    }
+
+    /**
+     * Remove the photo of a file from the index.
+     *
+     * @param file file of the photo that should be removed
+     * @return true if the index contained a photo of the file
+     */
+    public synchronized boolean remove(Path file) {
+        if (file == null) throw new IllegalArgumentException();
+
+        Integer row = rowsByFile.remove(file);
+        if (row == null) return false;
+        unorder(row);
+        unindex(row);
+        live.clear(row);
+        photos[row] = null;
+
+        if (rows > INITIAL_CAPACITY && rowsByFile.size() < rows / 2) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Get all photos in the index.
+     *
+     * @return copies of all indexed photos in the order they were added
+     */
+    public synchronized List<Photo> getAll() {
+        List<Photo> result = new ArrayList<>(rowsByFile.size());
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            result.add(new Photo(photos[row]));
+        }
+        return result;
+    }
+
+    /**
+     * Get all photos in the index that match a filter.
+     *
+     * A plain {@link PhotoFilter} is compiled into bitmap operations, any other filter is tested
+     * against every indexed photo.
+     *
+     * @param filter filter the photos are tested against
+     * @return list of the matching photos, newest first
+     */
+    public synchronized PhotoIdList filter(Predicate<Photo> filter) {
+        if (filter == null) throw new IllegalArgumentException();
+
+        BitSet matches = filter.getClass() == PhotoFilter.class
+                ? match((PhotoFilter) filter)
+                : test(filter);
+
+        int count = matches.cardinality();
+        int[] resultIds = new int[count];
+        Photo[] resultPhotos = new Photo[count];
+        for (int position = 0, i = 0; i < count; position++) {
+            int row = order[position];
+            if (matches.get(row)) {
+                resultIds[i] = ids[row];
+                resultPhotos[i] = photos[row];
+                i++;
+            }
+        }
+        return new PhotoIdList(resultIds, resultPhotos);
+    }
+
+    // Get the rows of the photos that match the filter using only the bitmaps.
+    private BitSet match(PhotoFilter filter) {
+        BitSet matches = (BitSet) live.clone();
+        for (Tag tag : filter.getTagFilter().getRequired()) {
+            matches.and(tags.get(tag));
+        }
+        for (Tag tag : filter.getTagFilter().getForbidden()) {
+            matches.andNot(tags.get(tag));
+        }
+        matches.and(ratings.union(filter.getRatingFilter().getIncluded()));
+        matches.and(photographers.union(filter.getPhotographerFilter().getIncluded()));
+        matches.and(places.union(filter.getPlaceFilter().getIncluded()));
+        matches.and(journeys.union(filter.getJourneyFilter().getIncluded()));
+        return matches;
+    }
+
+    // Get the rows of the photos that match the filter by testing the photos themselves.
+    private BitSet test(Predicate<Photo> filter) {
+        BitSet matches = new BitSet(rows);
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            if (filter.test(photos[row])) {
+                matches.set(row);
+            }
+        }
+        return matches;
+    }
+
+    // Remove a row from all bitmaps.
+    private void unindex(int row) {
+        PhotoMetadata data = photos[row].getData();
+        ratings.remove(data.getRating(), row);
+        photographers.remove(data.getPhotographer(), row);
+        places.remove(data.getPlace(), row);
+        journeys.remove(data.getJourney(), row);
+        if (data.getTags().isEmpty()) {
+            tags.remove(null, row);
+        }
+        for (Tag tag : data.getTags()) {
+            tags.remove(tag, row);
+        }
+    }
+
+    // Merge sorted rows that are not yet part of the order into it.
+    private void merge(int[] added) {
+        int[] merged = new int[Math.max(order.length, ordered + added.length)];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < ordered && j < added.length) {
+            merged[k++] = compare(order[i], added[j]) < 0 ? order[i++] : added[j++];
+        }
+        while (i < ordered) {
+            merged[k++] = order[i++];
+        }
+        while (j < added.length) {
+            merged[k++] = added[j++];
+        }
+        order = merged;
+        ordered = k;
+    }
+
+    // Insert a row into the sorted order, its datetime and id must already be set.
+    private void order(int row) {
+        int position = search(row);
+        System.arraycopy(order, position, order, position + 1, ordered - position);
+        order[position] = row;
+        ordered++;
+    }
+
+    // Remove a row from the sorted order, its datetime and id must not have changed since.
+    private void unorder(int row) {
+        int position = search(row);
+        System.arraycopy(order, position + 1, order, position, ordered - position - 1);
+        ordered--;
+    }
+
+    // Get the position of a row in the sorted order or the position it would be inserted at.
+    private int search(int row) {
+        int low = 0;
+        int high = ordered;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compare(order[middle], row) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // Compare two rows, newest first, then by id and row so that no two rows are equal.
+    private int compare(int a, int b) {
+        int result = Long.compare(datetimes[b], datetimes[a]);
+        if (result != 0) return result;
+        result = Integer.compare(ids[a], ids[b]);
+        return result != 0 ? result : Integer.compare(a, b);
+    }
+
+    // Move the remaining photos to the front, so that removed rows are freed. Rows keep their
+    // relative order, so the sorted order stays sorted when its rows are renumbered.
+    private void compact() {
+        Photo[] oldPhotos = photos;
+        int[] oldOrder = order;
+        int oldOrdered = ordered;
+        int[] renumbered = new int[rows];
+        List<Integer> remaining = new ArrayList<>(rowsByFile.size());
+        for (int row = live.nextSetBit(0); row >= 0; row = live.nextSetBit(row + 1)) {
+            remaining.add(row);
+        }
+
+        clear();
+        ensureCapacity(remaining.size());
+        for (int oldRow : remaining) {
+            int row = allocate(oldPhotos[oldRow].getFile());
+            store(row, oldPhotos[oldRow]);
+            renumbered[oldRow] = row;
+        }
+        for (int i = 0; i < oldOrdered; i++) {
+            order[i] = renumbered[oldOrder[i]];
+        }
+        ordered = oldOrdered;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= photos.length) return;
+        int length = Math.max(capacity, photos.length * 2);
+        photos = Arrays.copyOf(photos, length);
+        ids = Arrays.copyOf(ids, length);
+        datetimes = Arrays.copyOf(datetimes, length);
+        order = Arrays.copyOf(order, length);
+    }
+
+    // Pack a datetime into epoch seconds.
+    private static long pack(LocalDateTime datetime) {
+        if (datetime == null) return Long.MIN_VALUE;
+        return datetime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Bitmaps of the rows that have a certain value. Values are assigned dense codes starting at 1,
+     * the code 0 is reserved for null.
+     */
+    private static class Facet<T> {
+
+        private static final BitSet EMPTY = new BitSet();
+
+        private final Map<T, Integer> codes = new HashMap<>();
+        private final List<BitSet> rows = new ArrayList<>();
+
+        public Facet() {
+            clear();
+        }
+
+        public void add(T value, int row) {
+            int code = 0;
+            if (value != null) {
+                Integer existing = codes.get(value);
+                if (existing == null) {
+                    existing = rows.size();
+                    codes.put(value, existing);
+                    rows.add(new BitSet());
+                }
+                code = existing;
+            }
+            rows.get(code).set(row);
+        }
+
+        public void remove(T value, int row) {
+            get(value).clear(row);
+        }
+
+        public BitSet get(T value) {
+            if (value == null) return rows.get(0);
+            Integer code = codes.get(value);
+            return code != null ? rows.get(code) : EMPTY;
+        }
+
+        public BitSet union(Collection<T> values) {
+            BitSet union = new BitSet();
+            for (T value : values) {
+                union.or(get(value));
+            }
+            return union;
+        }
+
+        public void clear() {
+            codes.clear();
+            rows.clear();
+            rows.add(new BitSet());
+        }
+    }
+}
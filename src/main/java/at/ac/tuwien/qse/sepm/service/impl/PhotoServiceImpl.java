@@ -32,7 +32,7 @@ import at.ac.tuwien.qse.sepm.dao.PhotoDAO;
 import at.ac.tuwien.qse.sepm.dao.repo.AsyncPhotoRepository;
 import at.ac.tuwien.qse.sepm.dao.repo.Operation;
 import at.ac.tuwien.qse.sepm.dao.repo.PhotoRepository;
-import at.ac.tuwien.qse.sepm.dao.repo.impl.PollingFileWatcher;
+import at.ac.tuwien.qse.sepm.dao.repo.impl.NioFileWatcher;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import at.ac.tuwien.qse.sepm.service.PhotoService;
 import at.ac.tuwien.qse.sepm.service.ServiceException;
@@ -48,7 +48,6 @@ import java.util.List;
 import java.util.concurrent.*;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class PhotoServiceImpl implements PhotoService {
 
@@ -58,7 +57,7 @@ public class PhotoServiceImpl implements PhotoService {
     @Autowired
     private PhotoDAO photoDAO;
     @Autowired
-    private PollingFileWatcher watcher;
+    private NioFileWatcher watcher;
     @Autowired
     private AsyncPhotoRepository photoRepository;
     @Autowired
@@ -69,8 +68,10 @@ public class PhotoServiceImpl implements PhotoService {
     private Listener listener;
     private ScheduledFuture<?> watcherSchedule = null;
 
-    private final ExecutorService operationExecutor = Executors.newFixedThreadPool(4);
-
+    // Photos are filtered in memory. The index is loaded on first use and then kept up to date
+    // with the changes in the repository.
+    private final PhotoIndex index = new PhotoIndex();
+    private volatile boolean indexLoaded = false;
 
     @Autowired
     private void initializeListeners(AsyncPhotoRepository repository) {
@@ -117,7 +118,6 @@ public class PhotoServiceImpl implements PhotoService {
         if (watcherSchedule != null) {
             watcherSchedule.cancel(true);
         }
-        operationExecutor.shutdown();
     }
 
     @Override
@@ -138,20 +138,49 @@ public class PhotoServiceImpl implements PhotoService {
     @Override
     public List<Photo> getAllPhotos() throws ServiceException {
         LOGGER.debug("Retrieving all photos...");
-        try {
-            return photoDAO.readAll();
-        } catch (DAOException e) {
-            throw new ServiceException(e);
-        }
+        return getIndex().getAll();
     }
 
     @Override
     public List<Photo> getAllPhotos(Predicate<Photo> filter) throws ServiceException {
         LOGGER.debug("Entering getAllPhotos with {}", filter);
-        return getAllPhotos()
-                .stream()
-                .filter(filter)
-                .collect(Collectors.toList());
+        return getIndex().filter(filter);
+    }
+
+    private PhotoIndex getIndex() throws ServiceException {
+        synchronized (index) {
+            if (!indexLoaded) {
+                LOGGER.debug("Loading photo index");
+                try {
+                    index.clear();
+                    index.putAll(photoDAO.readAll());
+                } catch (DAOException e) {
+                    throw new ServiceException(e);
+                }
+                indexLoaded = true;
+                LOGGER.debug("Loaded {} photos into index", index.size());
+            }
+            return index;
+        }
+    }
+
+    // The photo is read before the index is locked, so that filtering does not wait for the
+    // database while photos are synchronized.
+    private void updateIndex(PhotoRepository repository, Path file) {
+        if (!indexLoaded) return;
+        Photo photo;
+        try {
+            photo = repository.read(file);
+        } catch (DAOException ex) {
+            LOGGER.error("Failed to index photo {}", file, ex);
+            synchronized (index) {
+                index.remove(file);
+            }
+            return;
+        }
+        synchronized (index) {
+            index.put(photo);
+        }
     }
 
     @Override
@@ -169,6 +198,22 @@ public class PhotoServiceImpl implements PhotoService {
         LOGGER.debug("Leaving editPhoto with {}", photo);
     }
 
+    @Override
+    public void editPhotos(Collection<Photo> photos) throws ServiceException {
+        if (photos == null) {
+            throw new ServiceException("Collection<Photo> photos is null");
+        }
+        LOGGER.debug("Entering editPhotos with {} photos", photos.size());
+
+        try {
+            photoRepository.updateAll(photos);
+            LOGGER.info("Successfully updated {} photos", photos.size());
+        } catch (DAOException ex) {
+            LOGGER.error("Updating {} photos failed due to DAOException", photos.size());
+            throw new ServiceException("Could not update photos.", ex);
+        }
+    }
+
     @Override
     public void subscribeCreate(Consumer<Photo> callback) {
         photoRepository.addListener(new PhotoRepository.Listener() {
@@ -213,6 +258,20 @@ public class PhotoServiceImpl implements PhotoService {
             AsyncPhotoRepository.AsyncListener,
             PhotoRepository.Listener {
 
+        @Override public void onCreate(PhotoRepository repository, Path file) {
+            updateIndex(repository, file);
+        }
+
+        @Override public void onUpdate(PhotoRepository repository, Path file) {
+            updateIndex(repository, file);
+        }
+
+        @Override public void onDelete(PhotoRepository repository, Path file) {
+            synchronized (index) {
+                index.remove(file);
+            }
+        }
+
         @Override public void onError(PhotoRepository repository, DAOException error) {
             LOGGER.error("repository error {}", error);
         }
@@ -223,9 +282,7 @@ public class PhotoServiceImpl implements PhotoService {
         }
 
         @Override public void onQueue(AsyncPhotoRepository repository, Operation operation) {
-            LOGGER.info("queued {}", operation);
-            LOGGER.info("queue length {}", repository.getQueue().size());
-            operationExecutor.execute(repository::completeNext);
+            LOGGER.debug("queued {}", operation);
         }
     }
 }
@@ -29,12 +29,19 @@ package at.ac.tuwien.qse.sepm.service.impl;
 
 import at.ac.tuwien.qse.sepm.entities.*;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Set of photos that counts the values of their metadata.
+ *
+ * The set remembers the state in which each photo was counted. Removing or re-adding a photo
+ * whose metadata was changed in the meantime therefore subtracts exactly what was added before.
+ */
 public class PhotoSet {
 
-    private final Set<Integer> ids = new HashSet<>();
+    private final Map<Integer, Photo> photos = new HashMap<>();
 
     private final Aggregator<Tag> tags = new Aggregator<>();
     private final Aggregator<Rating> ratings = new Aggregator<>();
@@ -62,38 +69,62 @@ public class PhotoSet {
         return places;
     }
 
-    public boolean contains(Photo photo) {
-        return ids.contains(photo.getId());
+    public synchronized boolean contains(Photo photo) {
+        return photos.containsKey(photo.getId());
     }
 
-    public boolean add(Photo photo) {
+    public synchronized boolean add(Photo photo) {
         if (contains(photo)) return false;
-        ids.add(photo.getId());
-        photo.getData().getTags().forEach(getTags()::add);
-        getRatings().add(photo.getData().getRating());
-        getPhotographers().add(photo.getData().getPhotographer());
-        getJourneys().add(photo.getData().getJourney());
-        getPlaces().add(photo.getData().getPlace());
+        count(new Photo(photo));
         return true;
     }
 
-    public boolean remove(Photo photo) {
-        if (!contains(photo)) return false;
-        ids.remove(photo.getId());
-        photo.getData().getTags().forEach(getTags()::remove);
-        getRatings().remove(photo.getData().getRating());
-        getPhotographers().remove(photo.getData().getPhotographer());
-        getJourneys().remove(photo.getData().getJourney());
-        getPlaces().remove(photo.getData().getPlace());
+    /**
+     * Adds all photos to the set.
+     *
+     * Photos of a {@link PhotoIdList} are counted without copying them.
+     *
+     * @param photos photos that should be added
+     */
+    public synchronized void addAll(Collection<Photo> photos) {
+        if (!(photos instanceof PhotoIdList)) {
+            photos.forEach(this::add);
+            return;
+        }
+        PhotoIdList list = (PhotoIdList) photos;
+        for (int i = 0; i < list.size(); i++) {
+            if (!this.photos.containsKey(list.getId(i))) {
+                count(list.getShared(i));
+            }
+        }
+    }
+
+    public synchronized boolean remove(Photo photo) {
+        Photo counted = photos.remove(photo.getId());
+        if (counted == null) return false;
+        counted.getData().getTags().forEach(getTags()::remove);
+        getRatings().remove(counted.getData().getRating());
+        getPhotographers().remove(counted.getData().getPhotographer());
+        getJourneys().remove(counted.getData().getJourney());
+        getPlaces().remove(counted.getData().getPlace());
         return true;
     }
 
-    public void clear() {
-        ids.clear();
+    public synchronized void clear() {
+        photos.clear();
         getTags().clear();
         getRatings().clear();
         getPhotographers().clear();
         getJourneys().clear();
         getPlaces().clear();
     }
+
+    private void count(Photo photo) {
+        photos.put(photo.getId(), photo);
+        photo.getData().getTags().forEach(getTags()::add);
+        getRatings().add(photo.getData().getRating());
+        getPhotographers().add(photo.getData().getPhotographer());
+        getJourneys().add(photo.getData().getJourney());
+        getPlaces().add(photo.getData().getPlace());
+    }
 }
@@ -33,6 +33,9 @@ import java.util.function.Predicate;
 
 /**
  * Simple predicate for testing a sets of values.
+ *
+ * The value null stands for the empty set, so requiring it only matches sets without values and
+ * forbidding it only matches sets with values.
  */
 public class SetFilter<T> implements Predicate<Set<T>> {
 
@@ -65,9 +68,16 @@ public class SetFilter<T> implements Predicate<Set<T>> {
      */
     @Override public boolean test(Set<T> t) {
         if (t == null) throw new IllegalArgumentException();
-        if (!t.containsAll(getRequired())) return false;
-        Set<T> intersection = new HashSet<>(getForbidden());
-        intersection.retainAll(t);
-        return intersection.isEmpty();
+        for (T value : getRequired()) {
+            if (!contains(t, value)) return false;
+        }
+        for (T value : getForbidden()) {
+            if (contains(t, value)) return false;
+        }
+        return true;
+    }
+
+    private static <T> boolean contains(Set<T> set, T value) {
+        return value == null ? set.isEmpty() : set.contains(value);
     }
 }
@@ -0,0 +1,240 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Spatial index that finds elements near a position.
+ *
+ * The elements are kept in buckets of a grid over latitude and longitude. A query only looks at the
+ * buckets that overlap the bounding box of the search radius, so its cost depends on the number of
+ * elements nearby rather than on the number of all elements. Distances are great-circle distances.
+ */
+public class SpatialIndex<T> {
+
+    /**
+     * Mean radius of the earth in meters.
+     */
+    public static final double EARTH_RADIUS = 6371008.8;
+
+    private final ToDoubleFunction<T> latitude;
+    private final ToDoubleFunction<T> longitude;
+    private final double cellSize;
+    private final int rows;
+    private final int columns;
+    private final Map<Integer, List<T>> cells = new HashMap<>();
+    // The bucket of every element, so that elements can be removed after they moved.
+    private final Map<T, Integer> keys = new HashMap<>();
+
+    /**
+     * Create an empty index.
+     *
+     * @param latitude function that returns the latitude of an element in degrees
+     * @param longitude function that returns the longitude of an element in degrees
+     * @param cellSize size of the buckets in degrees, which should be about the search radius
+     */
+    public SpatialIndex(ToDoubleFunction<T> latitude, ToDoubleFunction<T> longitude,
+            double cellSize) {
+        if (latitude == null || longitude == null) throw new IllegalArgumentException();
+        if (cellSize <= 0 || cellSize > 180) throw new IllegalArgumentException();
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.cellSize = cellSize;
+        this.rows = (int) Math.ceil(180 / cellSize) + 1;
+        this.columns = (int) Math.ceil(360 / cellSize);
+    }
+
+    /**
+     * Add an element to the index. An element that is equal to the given one is replaced.
+     *
+     * @param element element to add
+     */
+    public synchronized void add(T element) {
+        if (element == null) throw new IllegalArgumentException();
+        remove(element);
+        int key = key(latitude.applyAsDouble(element), longitude.applyAsDouble(element));
+        cells.computeIfAbsent(key, k -> new ArrayList<>()).add(element);
+        keys.put(element, key);
+    }
+
+    /**
+     * Add elements to the index.
+     *
+     * @param elements elements to add
+     */
+    public synchronized void addAll(Collection<? extends T> elements) {
+        if (elements == null) throw new IllegalArgumentException();
+        elements.forEach(this::add);
+    }
+
+    /**
+     * Remove an element from the index.
+     *
+     * @param element element to remove
+     * @return true if an equal element was in the index
+     */
+    public synchronized boolean remove(T element) {
+        if (element == null) throw new IllegalArgumentException();
+        Integer key = keys.remove(element);
+        if (key == null) {
+            return false;
+        }
+        List<T> cell = cells.get(key);
+        cell.remove(element);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+        return true;
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+        keys.clear();
+    }
+
+    public synchronized int size() {
+        return keys.size();
+    }
+
+    /**
+     * Find the element that is nearest to a position.
+     *
+     * @param latitude latitude of the position in degrees
+     * @param longitude longitude of the position in degrees
+     * @param distance maximal distance of the element in meters
+     * @return nearest element within the distance, or null if there is none
+     */
+    public synchronized T nearest(double latitude, double longitude, double distance) {
+        T nearest = null;
+        double best = distance;
+        for (T element : candidates(latitude, longitude, distance)) {
+            double d = distance(latitude, longitude, element);
+            if (d <= best) {
+                best = d;
+                nearest = element;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Find all elements near a position.
+     *
+     * @param latitude latitude of the position in degrees
+     * @param longitude longitude of the position in degrees
+     * @param distance maximal distance of the elements in meters
+     * @return elements within the distance, in no particular order
+     */
+    public synchronized List<T> within(double latitude, double longitude, double distance) {
+        List<T> result = new ArrayList<>();
+        for (T element : candidates(latitude, longitude, distance)) {
+            if (distance(latitude, longitude, element) <= distance) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute the great-circle distance between two positions with the haversine formula.
+     *
+     * @return distance in meters
+     */
+    public static double distance(double latitude1, double longitude1, double latitude2,
+            double longitude2) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double dPhi = phi2 - phi1;
+        double dLambda = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dPhi / 2) * Math.sin(dPhi / 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLambda / 2) * Math.sin(dLambda / 2);
+        return 2 * EARTH_RADIUS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private double distance(double latitude, double longitude, T element) {
+        return distance(latitude, longitude,
+                this.latitude.applyAsDouble(element), this.longitude.applyAsDouble(element));
+    }
+
+    private List<T> candidates(double latitude, double longitude, double distance) {
+        List<T> result = new ArrayList<>();
+        if (cells.isEmpty()) {
+            return result;
+        }
+
+        double dLat = Math.toDegrees(distance / EARTH_RADIUS);
+        int minRow = row(Math.max(-90, latitude - dLat));
+        int maxRow = row(Math.min(90, latitude + dLat));
+
+        // Near the poles the box spans all longitudes.
+        double maxLat = Math.min(90, Math.abs(latitude) + dLat);
+        double cos = Math.cos(Math.toRadians(maxLat));
+        int minColumn = 0;
+        int maxColumn = columns - 1;
+        if (cos > 1e-9) {
+            double dLon = dLat / cos;
+            if (2 * dLon < 360 - cellSize) {
+                minColumn = column(longitude - dLon);
+                maxColumn = column(longitude + dLon);
+                if (maxColumn < minColumn) {
+                    // The box crosses the antimeridian.
+                    maxColumn += columns;
+                }
+            }
+        }
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                List<T> cell = cells.get(row * columns + column % columns);
+                if (cell != null) {
+                    result.addAll(cell);
+                }
+            }
+        }
+        return result;
+    }
+
+    private int key(double latitude, double longitude) {
+        return row(latitude) * columns + column(longitude);
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellSize);
+    }
+
+    private int column(double longitude) {
+        double normalized = ((longitude + 180) % 360 + 360) % 360;
+        return (int) Math.floor(normalized / cellSize) % columns;
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -44,13 +45,41 @@ public class SynchronizationServiceImpl implements SynchronizationService {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
-    @Autowired
     private AsyncPhotoRepository repository;
 
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong merged = new AtomicLong();
+
+    @Autowired
+    private void initializeRepository(AsyncPhotoRepository repository) {
+        this.repository = repository;
+        repository.addListener(new AsyncPhotoRepository.AsyncListener() {
+            @Override public void onComplete(AsyncPhotoRepository repository, Operation operation) {
+                completed.incrementAndGet();
+            }
+
+            @Override public void onMerge(AsyncPhotoRepository repository, Operation operation) {
+                merged.incrementAndGet();
+            }
+        });
+    }
+
     @Override public Queue<Operation> getQueue() {
         return repository.getQueue();
     }
 
+    @Override public int getQueueSize() {
+        return repository.getQueueSize();
+    }
+
+    @Override public long getCompletedCount() {
+        return completed.get();
+    }
+
+    @Override public long getMergedCount() {
+        return merged.get();
+    }
+
     @Override public void subscribeQueue(Consumer<Operation> callback) {
         repository.addListener(new AsyncPhotoRepository.AsyncListener() {
             @Override public void onQueue(AsyncPhotoRepository repository, Operation operation) {
@@ -69,6 +98,15 @@ public class SynchronizationServiceImpl implements SynchronizationService {
         });
     }
 
+    @Override public void subscribeMerge(Consumer<Operation> callback) {
+        repository.addListener(new AsyncPhotoRepository.AsyncListener() {
+            @Override public void onMerge(AsyncPhotoRepository repository, Operation operation) {
+                LOGGER.debug("receiving merge notification with {}", operation);
+                callback.accept(operation);
+            }
+        });
+    }
+
     @Override public void subscribeError(BiConsumer<Operation, ServiceException> callback) {
         repository.addListener(new AsyncPhotoRepository.AsyncListener() {
             @Override public void onError(AsyncPhotoRepository repository, Operation operation, DAOException error) {
@@ -0,0 +1,271 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.service.PhotoService;
+import at.ac.tuwien.qse.sepm.service.ThumbnailService;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Lane;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Priority;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Thumbnail service that stores the thumbnails as JPEG files in a directory.
+ *
+ * The name of a thumbnail file is derived from the path of the photo and the size. The thumbnail
+ * file gets the modification time of the photo file, so a thumbnail is up to date if both
+ * modification times are equal.
+ *
+ * Thumbnails are generated in the interactive lane. Thumbnails that are requested for display
+ * are generated before the ones of new or changed photos. Photos that do not fit into the lane
+ * are dropped and generated once they are requested.
+ */
+public class ThumbnailServiceImpl implements ThumbnailService {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private final Path directory;
+    private final LaneExecutor executor;
+    // The priority with which each queued photo was submitted.
+    private final Map<Path, Priority> pending = new ConcurrentHashMap<>();
+    private List<Integer> sizes = Arrays.asList(100, 150, 300);
+
+    public ThumbnailServiceImpl(String directory, LaneExecutor executor) {
+        if (directory == null) throw new IllegalArgumentException();
+        if (executor == null) throw new IllegalArgumentException();
+        this.directory = Paths.get(directory);
+        this.executor = executor;
+    }
+
+    /**
+     * Set the sizes in which thumbnails are generated.
+     *
+     * @param sizes sizes in pixels
+     */
+    public void setSizes(List<Integer> sizes) {
+        if (sizes == null) throw new IllegalArgumentException();
+        this.sizes = new ArrayList<>(sizes);
+    }
+
+    @Autowired public void setPhotoService(PhotoService photoService) {
+        // Thumbnails are generated while the repository is synchronized, not when they are shown.
+        photoService.subscribeCreate(photo -> generate(photo.getFile(), Priority.LOW));
+        photoService.subscribeUpdate(photo -> generate(photo.getFile(), Priority.LOW));
+        photoService.subscribeDelete(this::delete);
+    }
+
+    @Override public Path getThumbnail(Path file, int size) {
+        if (file == null) throw new IllegalArgumentException();
+        Path thumbnail = resolve(file, size);
+        if (isUpToDate(file, thumbnail)) {
+            return thumbnail;
+        }
+        generate(file, Priority.HIGH);
+        return null;
+    }
+
+    @Override public void generate(Path file) {
+        if (file == null) throw new IllegalArgumentException();
+        generate(file, Priority.NORMAL);
+    }
+
+    private void generate(Path file, Priority priority) {
+        // A photo that is already queued is queued again only if it became more urgent. The task
+        // that runs second finds the thumbnails up to date.
+        boolean[] queued = { false };
+        pending.compute(file, (key, previous) -> {
+            if (previous != null && previous.compareTo(priority) <= 0) {
+                return previous;
+            }
+            queued[0] = true;
+            return priority;
+        });
+        if (!queued[0]) {
+            return;
+        }
+        try {
+            executor.submit(Lane.INTERACTIVE, priority, () -> {
+                try {
+                    generateNow(file);
+                } finally {
+                    pending.remove(file);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            LOGGER.debug("thumbnail queue is full, dropping {}", file);
+            pending.remove(file, priority);
+        }
+    }
+
+    @Override public void delete(Path file) {
+        if (file == null) throw new IllegalArgumentException();
+        for (int size : sizes) {
+            try {
+                Files.deleteIfExists(resolve(file, size));
+            } catch (IOException ex) {
+                LOGGER.warn("failed deleting thumbnail of {}", file);
+            }
+        }
+    }
+
+    private void generateNow(Path file) {
+        List<Integer> missing = new ArrayList<>(sizes.size());
+        for (int size : sizes) {
+            if (!isUpToDate(file, resolve(file, size))) {
+                missing.add(size);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        LOGGER.debug("generating thumbnails of {}", file);
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            BufferedImage source = read(file, Collections.max(missing));
+            if (source == null) {
+                LOGGER.warn("no image reader for {}", file);
+                return;
+            }
+            for (int size : missing) {
+                write(scale(source, size), resolve(file, size), modified);
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("failed generating thumbnails of {}", file, ex);
+        }
+    }
+
+    /**
+     * Read the image, skipping pixels as long as the shorter side stays at least the given size.
+     * For large photos this is much faster than a full decode.
+     */
+    private BufferedImage read(Path file, int size) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            if (input == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int shorter = Math.min(reader.getWidth(0), reader.getHeight(0));
+                int step = Math.max(1, shorter / size);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale the image so that its shorter side has the size. The image is later stretched to a
+     * square of that size, like photos that are loaded directly.
+     */
+    private BufferedImage scale(BufferedImage source, int size) {
+        double factor = size / (double) Math.min(source.getWidth(), source.getHeight());
+        int width = Math.max(1, (int) Math.round(source.getWidth() * factor));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * factor));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void write(BufferedImage image, Path thumbnail, FileTime modified) throws IOException {
+        Files.createDirectories(thumbnail.getParent());
+        // Write to a temporary file first, so that readers never see a partial thumbnail.
+        Path temp = Files.createTempFile(thumbnail.getParent(), "thumbnail", ".tmp");
+        try {
+            ImageIO.write(image, "jpg", temp.toFile());
+            Files.setLastModifiedTime(temp, modified);
+            Files.move(temp, thumbnail, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private boolean isUpToDate(Path file, Path thumbnail) {
+        try {
+            return Files.exists(thumbnail)
+                    && Files.getLastModifiedTime(thumbnail).equals(Files.getLastModifiedTime(file));
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private Path resolve(Path file, int size) {
+        String hash = hash(file.toAbsolutePath().normalize().toString());
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + "_" + size + ".jpg");
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            // Every Java platform is required to support SHA-1.
+            throw new IllegalStateException(ex);
+        }
+    }
+}
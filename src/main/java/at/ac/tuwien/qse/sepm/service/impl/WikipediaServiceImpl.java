@@ -27,22 +27,96 @@ package at.ac.tuwien.qse.sepm.service.impl;
  * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.WikiPlaceInfoDAO;
 import at.ac.tuwien.qse.sepm.entities.Place;
 import at.ac.tuwien.qse.sepm.entities.WikiPlaceInfo;
 import at.ac.tuwien.qse.sepm.entities.validators.PlaceValidator;
 import at.ac.tuwien.qse.sepm.entities.validators.ValidationException;
 import at.ac.tuwien.qse.sepm.service.ServiceException;
 import at.ac.tuwien.qse.sepm.service.WikipediaService;
+import at.ac.tuwien.qse.sepm.util.ErrorHandler;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor;
 import com.hp.hpl.jena.query.*;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.shared.JenaException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
+/**
+ * Wikipedia service that queries DBpedia and stores the results in the database.
+ *
+ * Stored results are used for <tt>ttl</tt> days. Places that are not stored are queried in
+ * batches of {@link #BATCH_SIZE} with a single SPARQL query each. Background requests run in the
+ * network lane with one task per batch. A place that is already being requested is not requested
+ * again, unless a request with high priority finds it still waiting in the queue.
+ */
 public class WikipediaServiceImpl implements WikipediaService {
 
     private static final Logger LOGGER = LogManager.getLogger(WikipediaServiceImpl.class);
 
+    /** Maximal number of places per query. */
+    public static final int BATCH_SIZE = 20;
+
+    /** Milliseconds to wait for the endpoint before giving up. */
+    private static final long TIMEOUT = 10_000;
+
+    private final Function<Query, QueryExecution> endpoint;
+    private final WikiPlaceInfoDAO wikiPlaceInfoDAO;
+    private final LaneExecutor executor;
+    private final int ttl;
+    private final Map<Place, CompletableFuture<WikiPlaceInfo>> pending = new ConcurrentHashMap<>();
+    private final Set<CompletableFuture<WikiPlaceInfo>> running =
+            Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    /**
+     * Create a service that queries a remote SPARQL endpoint.
+     *
+     * @param endpoint URL of the endpoint, for example http://dbpedia.org/sparql
+     * @param wikiPlaceInfoDAO DAO that stores the results
+     * @param executor executor that runs background requests
+     * @param ttl days for which stored results are used
+     */
+    public WikipediaServiceImpl(String endpoint, WikiPlaceInfoDAO wikiPlaceInfoDAO,
+            LaneExecutor executor, int ttl) {
+        this(wikiPlaceInfoDAO, executor, ttl,
+                query -> QueryExecutionFactory.sparqlService(endpoint, query));
+        if (endpoint == null) throw new IllegalArgumentException();
+    }
+
+    /**
+     * Create a service that queries a local model instead of an endpoint.
+     *
+     * @param model model that contains the DBpedia resources of the places
+     * @param wikiPlaceInfoDAO DAO that stores the results
+     * @param executor executor that runs background requests
+     * @param ttl days for which stored results are used
+     */
+    public WikipediaServiceImpl(Model model, WikiPlaceInfoDAO wikiPlaceInfoDAO,
+            LaneExecutor executor, int ttl) {
+        this(wikiPlaceInfoDAO, executor, ttl, query -> QueryExecutionFactory.create(query, model));
+        if (model == null) throw new IllegalArgumentException();
+    }
+
+    private WikipediaServiceImpl(WikiPlaceInfoDAO wikiPlaceInfoDAO, LaneExecutor executor,
+            int ttl, Function<Query, QueryExecution> endpoint) {
+        if (wikiPlaceInfoDAO == null) throw new IllegalArgumentException();
+        if (executor == null) throw new IllegalArgumentException();
+        if (ttl < 0) throw new IllegalArgumentException();
+        this.endpoint = endpoint;
+        this.wikiPlaceInfoDAO = wikiPlaceInfoDAO;
+        this.executor = executor;
+        this.ttl = ttl;
+    }
+
     /**
      * Create and return a WikiPlaceInfo object for the given Place <tt>place</tt>.
      *
@@ -54,32 +128,243 @@ public class WikipediaServiceImpl implements WikipediaService {
      */
     @Override
     public WikiPlaceInfo getWikiPlaceInfo(Place place) throws ServiceException {
+        return getWikiPlaceInfos(Collections.singletonList(place)).get(place);
+    }
+
+    @Override
+    public Map<Place, WikiPlaceInfo> getWikiPlaceInfos(Collection<Place> places)
+            throws ServiceException {
+        if (places == null) throw new IllegalArgumentException();
+        for (Place place : places) {
+            validate(place);
+        }
+
+        Map<Place, WikiPlaceInfo> infos = new HashMap<>();
+        List<Place> missing = new ArrayList<>();
+        for (Place place : places) {
+            if (infos.containsKey(place)) {
+                continue;
+            }
+
+            //does this place already have a WikiPlaceInfo?
+            if (place.getWikiPlaceInfo() != null) {
+                LOGGER.info("{} already owns a WikiPlaceInfo: {}", place, place.getWikiPlaceInfo());
+                infos.put(place, place.getWikiPlaceInfo());
+                continue;
+            }
+
+            WikiPlaceInfo cached = read(place);
+            if (cached != null) {
+                infos.put(place, cached);
+            } else if (!missing.contains(place)) {
+                missing.add(place);
+            }
+        }
+
+        for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+            List<Place> batch = missing.subList(i, Math.min(i + BATCH_SIZE, missing.size()));
+            Map<Place, WikiPlaceInfo> queried = query(batch);
+            for (Place place : batch) {
+                WikiPlaceInfo info = queried.get(place);
+                store(place, info);
+                infos.put(place, info);
+            }
+        }
+
+        for (Place place : places) {
+            place.setWikiPlaceInfo(infos.get(place));
+        }
+        return infos;
+    }
+
+    @Override
+    public void loadWikiPlaceInfo(Place place, Consumer<WikiPlaceInfo> callback,
+            ErrorHandler<ServiceException> errorHandler) {
+        if (callback == null) throw new IllegalArgumentException();
+        if (errorHandler == null) throw new IllegalArgumentException();
 
+        try {
+            validate(place);
+        } catch (ServiceException ex) {
+            errorHandler.propagate(ex);
+            return;
+        }
+
+        request(Collections.singletonList(place), LaneExecutor.Priority.HIGH).get(place)
+                .whenComplete((info, ex) -> {
+                    if (ex == null) {
+                        place.setWikiPlaceInfo(info);
+                        callback.accept(info);
+                    } else if (ex instanceof ServiceException) {
+                        errorHandler.propagate((ServiceException) ex);
+                    } else {
+                        errorHandler.propagate(new ServiceException(ex));
+                    }
+                });
+    }
+
+    @Override
+    public void prefetchWikiPlaceInfos(Collection<Place> places) {
+        if (places == null) throw new IllegalArgumentException();
+
+        List<Place> valid = new ArrayList<>();
+        for (Place place : places) {
+            try {
+                validate(place);
+                valid.add(place);
+            } catch (ServiceException ex) {
+                LOGGER.debug("not prefetching invalid place {}", place);
+            }
+        }
+        request(valid, LaneExecutor.Priority.NORMAL);
+    }
+
+    /**
+     * Request the information of places in the background.
+     *
+     * Places that are already being requested are not requested again. With high priority, places
+     * whose request is still queued are requested by a task of their own, and whichever task
+     * finishes first completes the future.
+     *
+     * @param places valid places whose information is requested
+     * @param priority priority of the request in the network lane
+     * @return future information for each of the places
+     */
+    private Map<Place, CompletableFuture<WikiPlaceInfo>> request(Collection<Place> places,
+            LaneExecutor.Priority priority) {
+        Map<Place, CompletableFuture<WikiPlaceInfo>> futures = new LinkedHashMap<>();
+        Map<Place, CompletableFuture<WikiPlaceInfo>> requested = new LinkedHashMap<>();
+        Set<Place> created = new HashSet<>();
+        for (Place place : places) {
+            if (futures.containsKey(place)) {
+                continue;
+            }
+            if (place.getWikiPlaceInfo() != null) {
+                futures.put(place, CompletableFuture.completedFuture(place.getWikiPlaceInfo()));
+                continue;
+            }
+
+            CompletableFuture<WikiPlaceInfo> future = new CompletableFuture<>();
+            CompletableFuture<WikiPlaceInfo> existing = pending.putIfAbsent(place, future);
+            if (existing == null) {
+                futures.put(place, future);
+                requested.put(place, future);
+                created.add(place);
+            } else {
+                futures.put(place, existing);
+                if (priority == LaneExecutor.Priority.HIGH && !running.contains(existing)) {
+                    // NOTE: Do not wait for a queued request that has a lower priority.
+                    requested.put(place, existing);
+                }
+            }
+        }
+
+        if (requested.isEmpty()) {
+            return futures;
+        }
+
+        LOGGER.debug("requesting wiki info of {} places", requested.size());
+        List<Place> batches = new ArrayList<>(requested.keySet());
+        for (int i = 0; i < batches.size(); i += BATCH_SIZE) {
+            Map<Place, CompletableFuture<WikiPlaceInfo>> batch = new LinkedHashMap<>();
+            for (Place place : batches.subList(i, Math.min(i + BATCH_SIZE, batches.size()))) {
+                batch.put(place, requested.get(place));
+            }
+            try {
+                executor.submit(LaneExecutor.Lane.NETWORK, priority, () -> complete(batch));
+            } catch (RejectedExecutionException ex) {
+                LOGGER.warn("Too many pending requests, dropping {} places", batch.size());
+                // NOTE: Places that were requested before are still queued in another task.
+                batch.keySet().retainAll(created);
+                fail(batch, new ServiceException("Too many pending requests", ex));
+            }
+        }
+        return futures;
+    }
+
+    // Queries a batch of places and completes their futures unless another task was faster.
+    private void complete(Map<Place, CompletableFuture<WikiPlaceInfo>> batch) {
+        batch.values().removeIf(future -> future.isDone() || !running.add(future));
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<Place, WikiPlaceInfo> infos = getWikiPlaceInfos(batch.keySet());
+            batch.forEach((place, future) -> {
+                future.complete(infos.get(place));
+                finish(place, future);
+            });
+        } catch (ServiceException ex) {
+            fail(batch, ex);
+        } catch (RuntimeException ex) {
+            LOGGER.error("Failed to load wiki info", ex);
+            fail(batch, new ServiceException(ex));
+        }
+    }
+
+    private void fail(Map<Place, CompletableFuture<WikiPlaceInfo>> batch, ServiceException ex) {
+        batch.forEach((place, future) -> {
+            future.completeExceptionally(ex);
+            finish(place, future);
+        });
+    }
+
+    private void finish(Place place, CompletableFuture<WikiPlaceInfo> future) {
+        pending.remove(place, future);
+        running.remove(future);
+    }
+
+    private WikiPlaceInfo read(Place place) {
+        try {
+            return wikiPlaceInfoDAO.read(place, LocalDateTime.now().minusDays(ttl));
+        } catch (DAOException ex) {
+            LOGGER.warn("Failed to read cached wiki info of {}", place, ex);
+            return null;
+        }
+    }
+
+    private void store(Place place, WikiPlaceInfo info) {
+        try {
+            wikiPlaceInfoDAO.put(place, info);
+        } catch (DAOException ex) {
+            LOGGER.warn("Failed to cache wiki info of {}", place, ex);
+        }
+    }
+
+    private static void validate(Place place) throws ServiceException {
         try {
             PlaceValidator.validate(place);
         } catch (ValidationException ex) {
             LOGGER.error("Failure: Invalid entity {}", place);
             throw new ServiceException("Invalid Place entity", ex);
         }
+    }
 
-        //does this place already have a WikiPlaceInfo?
-        if (place.getWikiPlaceInfo() != null) {
-            LOGGER.info("{} already owns a WikiPlaceInfo: {}", place, place.getWikiPlaceInfo());
-            return place.getWikiPlaceInfo();
+    /**
+     * Query the information of several places with a single query.
+     *
+     * @param places places with distinct city and country
+     * @return information for each of the places, which contains no data if nothing was found
+     * @throws ServiceException if the query failed
+     */
+    private Map<Place, WikiPlaceInfo> query(List<Place> places) throws ServiceException {
+        StringBuilder labels = new StringBuilder();
+        for (Place place : places) {
+            String label = literal(place.getCity());
+            labels.append(label).append("@de ").append(label).append("@en ");
         }
 
-        String placeLabel = place.getCity();
-
         String queryString = "PREFIX dbpedia: <http://dbpedia.org/resource/>\n"
                 + "PREFIX dbpedia-owl: <http://dbpedia.org/ontology/>\n"
                 + "PREFIX rdfs: <http://www.w3.org/2000/01/rdf-schema#>\n"
                 + "PREFIX dbo: <http://dbpedia.org/ontology/>\n"
                 + "PREFIX dbpprop: <http://dbpedia.org/property/>\n"
-                + "SELECT DISTINCT ?label ?countryLabel ?currency ?comment\n"
+                + "SELECT DISTINCT ?name ?label ?countryLabel ?currency ?comment\n"
                 + "?area ?elevation ?population ?utcOffsetC ?utcOffset ?language where {\n"
-                + "?place a dbpedia-owl:PopulatedPlace .\n"
-                + "{ ?place rdfs:label \"" + placeLabel + "\"@de }\n"
-                + "UNION { ?place rdfs:label \"" + placeLabel + "\"@en }\n"
+                + "VALUES ?name { " + labels + "}\n"
+                + "?place a dbpedia-owl:PopulatedPlace ;\n"
+                + " rdfs:label ?name .\n"
                 + "?place rdfs:label ?label ;\n"
                 + " rdfs:comment ?comment .\n"
                 + "OPTIONAL { ?place dbpprop:utcOffset ?utcOffset }\n"
@@ -98,19 +383,47 @@ public class WikipediaServiceImpl implements WikipediaService {
                 + "    FILTER (lang(?language) = 'de') } }\n"
                 + "FILTER (lang(?comment) = 'de' && lang(?label) = 'de') }\n";
 
-        Query query = QueryFactory.create(queryString);
-        QueryExecution qexec = QueryExecutionFactory
-                .sparqlService("http://dbpedia.org/sparql", query);
+        // group the solutions by the city they were found for
+        Map<String, List<QuerySolution>> solutions = new HashMap<>();
+        QueryExecution qexec = null;
+        try {
+            qexec = endpoint.apply(QueryFactory.create(queryString));
+            qexec.setTimeout(TIMEOUT);
+            ResultSet results = qexec.execSelect();
+            for (QuerySolution solution : ResultSetFormatter.toList(results)) {
+                String name = solution.getLiteral("name").getLexicalForm();
+                solutions.computeIfAbsent(name, key -> new ArrayList<>()).add(solution);
+            }
+        } catch (JenaException ex) {
+            LOGGER.error("Failed to query wiki info of {} places", places.size(), ex);
+            throw new ServiceException("Failed to query wiki info", ex);
+        } finally {
+            if (qexec != null) {
+                qexec.close();
+            }
+        }
+
+        Map<Place, WikiPlaceInfo> infos = new HashMap<>();
+        for (Place place : places) {
+            infos.put(place, parse(place,
+                    solutions.getOrDefault(place.getCity(), Collections.emptyList())));
+        }
+        LOGGER.info("Retrieving Wikipedia Info successful for {} places", places.size());
+        return infos;
+    }
+
+    private static String literal(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
 
-        ResultSet results = qexec.execSelect();
-        List<QuerySolution> solutions = ResultSetFormatter.toList(results);
+    private static WikiPlaceInfo parse(Place place, List<QuerySolution> solutions) {
+        String placeLabel = place.getCity();
 
         if (solutions.isEmpty()) {
             LOGGER.warn("Query returned no results for {}", place);
 
-            place.setWikiPlaceInfo(new WikiPlaceInfo(placeLabel, place.getCountry(),
-                    "Keine Information verfügbar.", null, null, null, null, null, null));
-            return place.getWikiPlaceInfo();
+            return new WikiPlaceInfo(placeLabel, place.getCountry(),
+                    "Keine Information verfügbar.", null, null, null, null, null, null);
         }
 
         String placeName = null;
@@ -162,20 +475,18 @@ public class WikipediaServiceImpl implements WikipediaService {
                 }
             } else {
                 if (solution.getLiteral("language") != null) {
-                    if (!languages.contains(solution.getLiteral("language").getString())) {
+                    if (languages == null) {
+                        languages = solution.getLiteral("language").getString();
+                    } else if (!languages.contains(solution.getLiteral("language").getString())) {
                         languages += ", " + solution.getLiteral("language").getString();
                     }
                 }
             }
         }
-        qexec.close();
 
         WikiPlaceInfo wikiPlaceInfo = new WikiPlaceInfo(placeName, countryName, description,
                 elevation, area, population, utcOffset, currency, languages);
-        place.setWikiPlaceInfo(wikiPlaceInfo);
-
-        LOGGER.info("Retrieving Wikipedia Info successful: {} was provided with {}", place,
-                wikiPlaceInfo);
+        LOGGER.debug("{} was provided with {}", place, wikiPlaceInfo);
         return wikiPlaceInfo;
     }
 }
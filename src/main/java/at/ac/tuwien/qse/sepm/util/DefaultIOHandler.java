@@ -32,19 +32,48 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.LongConsumer;
 
 public class DefaultIOHandler implements IOHandler {
 
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final long CHUNK_SIZE = 8 * 1024 * 1024;
 
     @Override
     public void copyFromTo(Path source, Path dest) throws IOException {
+        copyFromTo(source, dest, bytes -> { });
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The bytes are transferred between the file channels, which lets the operating system copy
+     * them without passing them through the heap. The copy gets the modification time of the
+     * source.
+     */
+    @Override
+    public void copyFromTo(Path source, Path dest, LongConsumer progress) throws IOException {
         LOGGER.debug("Copying {} to {}", source.toString(), dest.toString());
 
-        Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(dest, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = in.size();
+            long position = 0;
+            while (position < size) {
+                long transferred = in.transferTo(position, Math.min(CHUNK_SIZE, size - position), out);
+                if (transferred <= 0) {
+                    throw new IOException("Source file was truncated while copying: " + source);
+                }
+                position += transferred;
+                progress.accept(transferred);
+            }
+        }
+        Files.setLastModifiedTime(dest, Files.getLastModifiedTime(source));
     }
 
     @Override
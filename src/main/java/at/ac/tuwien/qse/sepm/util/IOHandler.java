@@ -29,6 +29,7 @@ package at.ac.tuwien.qse.sepm.util;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.function.LongConsumer;
 
 /**
  * Utility methods for file system interactions.
@@ -39,5 +40,17 @@ public interface IOHandler {
 
     void copyFromTo(Path source, Path dest) throws IOException;
 
+    /**
+     * Copy a file and report the bytes while they are copied.
+     *
+     * @param source file that is copied
+     * @param dest file to which it is copied, which is replaced if it exists
+     * @param progress receives the number of bytes copied since the last call
+     * @throws IOException if the file could not be copied
+     */
+    default void copyFromTo(Path source, Path dest, LongConsumer progress) throws IOException {
+        copyFromTo(source, dest);
+    }
+
     void delete(Path path) throws IOException;
 }
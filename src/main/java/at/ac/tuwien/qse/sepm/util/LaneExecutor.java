@@ -0,0 +1,408 @@
+package at.ac.tuwien.qse.sepm.util;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the background work of the application on a fixed set of lanes.
+ *
+ * Every lane has its own threads, so that for example a slow network request never delays the
+ * thumbnails of the visible photos. Within a lane, tasks with a higher priority are started
+ * before tasks with a lower priority and tasks of the same priority are started in the order in
+ * which they were submitted.
+ *
+ * The number of waiting tasks of a lane is bounded. A task that does not fit into the queue is
+ * rejected, which tells the caller to back off. Tasks with a low priority are rejected earlier,
+ * so that there is always room for more urgent work.
+ */
+public class LaneExecutor {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public enum Lane {
+        /**
+         * Work the user is waiting for, like the thumbnails of the visible photos.
+         */
+        INTERACTIVE,
+        /**
+         * Synchronization of the photo files with the cache.
+         */
+        SYNC,
+        /**
+         * Copying of photos, like imports and exports.
+         */
+        TRANSFER,
+        /**
+         * Requests to remote services.
+         */
+        NETWORK
+    }
+
+    public enum Priority {
+        HIGH, NORMAL, LOW
+    }
+
+    private final Map<Lane, LaneQueue> lanes = new EnumMap<>(Lane.class);
+
+    /**
+     * Create an executor with the given number of threads per lane.
+     *
+     * @param threads number of threads of each lane; lanes that are missing or have a value less
+     *                than one get one thread per available processor
+     * @param capacity maximum number of tasks that may wait in each lane
+     */
+    public LaneExecutor(Map<Lane, Integer> threads, int capacity) {
+        if (threads == null) throw new IllegalArgumentException();
+        if (capacity <= 0) throw new IllegalArgumentException();
+        for (Lane lane : Lane.values()) {
+            Integer count = threads.get(lane);
+            int actual = count != null && count > 0 ? count : Runtime.getRuntime().availableProcessors();
+            lanes.put(lane, new LaneQueue(lane, actual, capacity));
+            LOGGER.info("lane {} runs with {} threads", lane, actual);
+        }
+    }
+
+    /**
+     * Queue a task in a lane.
+     *
+     * @param lane lane in which the task is run
+     * @param priority priority of the task within the lane
+     * @param task task that is run
+     * @return future of the task, which can be used to cancel it
+     * @throws RejectedExecutionException if the lane is full or the executor is closed
+     */
+    public Future<?> submit(Lane lane, Priority priority, Runnable task) {
+        if (task == null) throw new IllegalArgumentException();
+        return submit(lane, priority, Executors.callable(task));
+    }
+
+    /**
+     * Queue a task in a lane.
+     *
+     * @param lane lane in which the task is run
+     * @param priority priority of the task within the lane
+     * @param task task that is run
+     * @param <T> type of the result of the task
+     * @return future of the task, which can be used to cancel it
+     * @throws RejectedExecutionException if the lane is full or the executor is closed
+     */
+    public <T> Future<T> submit(Lane lane, Priority priority, Callable<T> task) {
+        if (lane == null) throw new IllegalArgumentException();
+        if (priority == null) throw new IllegalArgumentException();
+        if (task == null) throw new IllegalArgumentException();
+        return lanes.get(lane).submit(priority, task);
+    }
+
+    /**
+     * Get the number of threads of a lane.
+     *
+     * @param lane lane whose threads are counted
+     * @return maximal number of tasks that run in the lane at the same time
+     */
+    public int getThreads(Lane lane) {
+        if (lane == null) throw new IllegalArgumentException();
+        return lanes.get(lane).threads;
+    }
+
+    /**
+     * Get the current metrics of a lane.
+     *
+     * @param lane lane whose metrics are returned
+     * @return snapshot of the metrics
+     */
+    public Metrics getMetrics(Lane lane) {
+        if (lane == null) throw new IllegalArgumentException();
+        return lanes.get(lane).getMetrics();
+    }
+
+    /**
+     * Stops all lanes. Tasks that are still waiting are not run.
+     */
+    public void close() {
+        for (LaneQueue queue : lanes.values()) {
+            LOGGER.info("closing lane {}", queue.getMetrics());
+            queue.pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Snapshot of the metrics of a lane.
+     */
+    public static class Metrics {
+
+        private final Lane lane;
+        private final int threads;
+        private final int active;
+        private final int queued;
+        private final long submitted;
+        private final long rejected;
+        private final long completed;
+        private final long failed;
+        private final long totalWaitMillis;
+        private final long maxWaitMillis;
+
+        public Metrics(Lane lane, int threads, int active, int queued, long submitted,
+                long rejected, long completed, long failed, long totalWaitMillis,
+                long maxWaitMillis) {
+            this.lane = lane;
+            this.threads = threads;
+            this.active = active;
+            this.queued = queued;
+            this.submitted = submitted;
+            this.rejected = rejected;
+            this.completed = completed;
+            this.failed = failed;
+            this.totalWaitMillis = totalWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public Lane getLane() {
+            return lane;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return number of tasks that are running
+         */
+        public int getActive() {
+            return active;
+        }
+
+        /**
+         * @return number of tasks that wait for a thread
+         */
+        public int getQueued() {
+            return queued;
+        }
+
+        /**
+         * @return number of accepted tasks
+         */
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * @return number of tasks that have finished, including the failed ones
+         */
+        public long getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return number of tasks that threw an exception
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * @return average time the started tasks waited for a thread
+         */
+        public long getAverageWaitMillis() {
+            long started = completed + active;
+            return started == 0 ? 0 : totalWaitMillis / started;
+        }
+
+        /**
+         * @return longest time a task waited for a thread
+         */
+        public long getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        @Override public String toString() {
+            return "Metrics{" +
+                    "lane=" + lane +
+                    ", threads=" + threads +
+                    ", active=" + active +
+                    ", queued=" + queued +
+                    ", submitted=" + submitted +
+                    ", rejected=" + rejected +
+                    ", completed=" + completed +
+                    ", failed=" + failed +
+                    ", averageWaitMillis=" + getAverageWaitMillis() +
+                    ", maxWaitMillis=" + maxWaitMillis +
+                    '}';
+        }
+    }
+
+    private static class LaneQueue {
+
+        private final Lane lane;
+        private final int threads;
+        private final int capacity;
+        private final int lowCapacity;
+        private final ThreadPoolExecutor pool;
+
+        // One permit for every task that may still be queued.
+        private final Semaphore permits;
+        private final AtomicLong sequence = new AtomicLong();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong totalWait = new AtomicLong();
+        private final AtomicLong maxWait = new AtomicLong();
+
+        public LaneQueue(Lane lane, int threads, int capacity) {
+            this.lane = lane;
+            this.threads = threads;
+            this.capacity = capacity;
+            this.lowCapacity = Math.max(1, capacity * 3 / 4);
+            this.permits = new Semaphore(capacity);
+            this.pool = new ThreadPoolExecutor(threads, threads, 30L, TimeUnit.SECONDS,
+                    new PriorityBlockingQueue<>(), new LaneThreadFactory(lane));
+            this.pool.allowCoreThreadTimeOut(true);
+        }
+
+        public <T> Future<T> submit(Priority priority, Callable<T> callable) {
+            if (priority == Priority.LOW && capacity - permits.availablePermits() >= lowCapacity) {
+                throw reject(priority);
+            }
+            if (!permits.tryAcquire()) {
+                throw reject(priority);
+            }
+            LaneTask<T> task = new LaneTask<>(this, priority, sequence.getAndIncrement(), callable);
+            try {
+                pool.execute(task);
+            } catch (RejectedExecutionException ex) {
+                permits.release();
+                rejected.incrementAndGet();
+                throw ex;
+            }
+            submitted.incrementAndGet();
+            return task;
+        }
+
+        private RejectedExecutionException reject(Priority priority) {
+            rejected.incrementAndGet();
+            LOGGER.debug("lane {} is full, rejecting task with priority {}", lane, priority);
+            return new RejectedExecutionException("lane " + lane + " is full");
+        }
+
+        public Metrics getMetrics() {
+            return new Metrics(lane, threads, pool.getActiveCount(), pool.getQueue().size(),
+                    submitted.get(), rejected.get(), completed.get(), failed.get(),
+                    totalWait.get(), maxWait.get());
+        }
+
+        private void started(long waitMillis) {
+            permits.release();
+            totalWait.addAndGet(waitMillis);
+            long max;
+            do {
+                max = maxWait.get();
+            } while (waitMillis > max && !maxWait.compareAndSet(max, waitMillis));
+        }
+    }
+
+    private static class LaneTask<T> extends FutureTask<T> implements Comparable<LaneTask<?>> {
+
+        private final LaneQueue queue;
+        private final Priority priority;
+        private final long sequence;
+        private final long queued = System.currentTimeMillis();
+        private final AtomicBoolean started = new AtomicBoolean(false);
+
+        public LaneTask(LaneQueue queue, Priority priority, long sequence, Callable<T> callable) {
+            super(callable);
+            this.queue = queue;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override public void run() {
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            queue.started(System.currentTimeMillis() - queued);
+            super.run();
+        }
+
+        // The task is counted before its result becomes visible to waiting threads.
+        @Override protected void set(T result) {
+            queue.completed.incrementAndGet();
+            super.set(result);
+        }
+
+        @Override protected void setException(Throwable t) {
+            queue.completed.incrementAndGet();
+            queue.failed.incrementAndGet();
+            LOGGER.error("task in lane {} failed", queue.lane, t);
+            super.setException(t);
+        }
+
+        @Override public int compareTo(LaneTask<?> other) {
+            int result = priority.compareTo(other.priority);
+            if (result != 0) return result;
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        public LaneThreadFactory(Lane lane) {
+            this.prefix = lane.name().toLowerCase() + "-";
+        }
+
+        @Override public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
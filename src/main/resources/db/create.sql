@@ -10,6 +10,7 @@ CREATE TABLE IF NOT EXISTS PhotoSlide(id INTEGER, FOREIGN KEY(id) REFERENCES Sli
 CREATE TABLE IF NOT EXISTS MapSlide(id INTEGER, FOREIGN KEY(id) REFERENCES Slide(id), latitude DOUBLE NOT NULL, longitude DOUBLE NOT NULL, zoomLevel INTEGER NOT NULL);
 CREATE TABLE IF NOT EXISTS TitleSlide(id INTEGER, FOREIGN KEY(id) REFERENCES Slide(id), color INTEGER(10));
 CREATE TABLE IF NOT EXISTS WorkspaceDirectory(path VARCHAR PRIMARY KEY);
+CREATE TABLE IF NOT EXISTS Fingerprint(path VARCHAR PRIMARY KEY, size BIGINT NOT NULL, modified BIGINT NOT NULL, hash BIGINT NOT NULL);
 
 
 
@@ -0,0 +1,29 @@
+-- Photos are looked up by path, so a path must only occur once. Duplicates are merged into the photo
+-- with the lowest id.
+UPDATE PhotoSlide SET photo_id = (SELECT MIN(o.id) FROM Photo o JOIN Photo p ON o.path = p.path WHERE p.id = PhotoSlide.photo_id)
+  WHERE photo_id IN (SELECT id FROM Photo WHERE id NOT IN (SELECT MIN(id) FROM Photo GROUP BY path));
+MERGE INTO PhotoTag(photo_id, tag_id) KEY(photo_id, tag_id)
+  SELECT (SELECT MIN(o.id) FROM Photo o JOIN Photo p ON o.path = p.path WHERE p.id = pt.photo_id), pt.tag_id FROM PhotoTag pt
+  WHERE pt.photo_id NOT IN (SELECT MIN(id) FROM Photo GROUP BY path);
+DELETE FROM PhotoTag WHERE photo_id NOT IN (SELECT MIN(id) FROM Photo GROUP BY path);
+DELETE FROM Photo WHERE id NOT IN (SELECT MIN(id) FROM Photo GROUP BY path);
+
+-- Tags with the same name are merged into the tag with the lowest id.
+MERGE INTO PhotoTag(photo_id, tag_id) KEY(photo_id, tag_id)
+  SELECT pt.photo_id, (SELECT MIN(o.id) FROM Tag o JOIN Tag t ON o.name = t.name WHERE t.id = pt.tag_id) FROM PhotoTag pt
+  WHERE pt.tag_id NOT IN (SELECT MIN(id) FROM Tag GROUP BY name);
+DELETE FROM PhotoTag WHERE tag_id NOT IN (SELECT MIN(id) FROM Tag GROUP BY name);
+DELETE FROM Tag WHERE id NOT IN (SELECT MIN(id) FROM Tag GROUP BY name);
+
+-- Places with the same country and city are merged into the place with the lowest id.
+UPDATE Photo SET place_id = (SELECT MIN(o.id) FROM Place o JOIN Place p ON o.country = p.country AND o.city = p.city WHERE p.id = Photo.place_id)
+  WHERE place_id IN (SELECT id FROM Place WHERE id NOT IN (SELECT MIN(id) FROM Place GROUP BY country, city));
+DELETE FROM Place WHERE id NOT IN (SELECT MIN(id) FROM Place GROUP BY country, city);
+
+CREATE UNIQUE INDEX IF NOT EXISTS Photo_path ON Photo(path);
+CREATE INDEX IF NOT EXISTS Photo_datetime ON Photo(datetime);
+CREATE INDEX IF NOT EXISTS Photo_journey ON Photo(journey_id);
+CREATE INDEX IF NOT EXISTS Photo_place ON Photo(place_id);
+CREATE INDEX IF NOT EXISTS PhotoTag_tag ON PhotoTag(tag_id);
+CREATE UNIQUE INDEX IF NOT EXISTS Tag_name ON Tag(name);
+CREATE UNIQUE INDEX IF NOT EXISTS Place_country_city ON Place(country, city);
@@ -0,0 +1,2 @@
+-- Results of reverse geocoding, so that the same area is not looked up again.
+CREATE TABLE IF NOT EXISTS GeocodeCache(cell_latitude INT NOT NULL, cell_longitude INT NOT NULL, city VARCHAR NOT NULL, country VARCHAR NOT NULL, latitude DOUBLE NOT NULL, longitude DOUBLE NOT NULL, PRIMARY KEY(cell_latitude, cell_longitude));
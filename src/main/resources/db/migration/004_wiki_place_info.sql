@@ -0,0 +1,2 @@
+-- Wikipedia information of places, so that DBpedia is not queried each time a place is shown.
+CREATE TABLE IF NOT EXISTS WikiPlaceInfo(city VARCHAR NOT NULL, country VARCHAR NOT NULL, place_name VARCHAR, country_name VARCHAR, description VARCHAR, elevation DOUBLE, area DOUBLE, population INT, utc_offset VARCHAR, currency VARCHAR, language VARCHAR, retrieved TIMESTAMP NOT NULL, PRIMARY KEY(city, country));
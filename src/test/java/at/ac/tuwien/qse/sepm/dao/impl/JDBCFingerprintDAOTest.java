@@ -0,0 +1,94 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.AbstractJDBCDAOTest;
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.FingerprintDAO;
+import at.ac.tuwien.qse.sepm.dao.UsingTable;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@UsingTable("Fingerprint")
+public class JDBCFingerprintDAOTest extends AbstractJDBCDAOTest {
+
+    private static final Path FILE = Paths.get("test/1.jpg");
+
+    @Autowired
+    private FingerprintDAO fingerprintDAO;
+
+    @Test
+    public void testWithEmptyDB() throws DAOException {
+        assertThat(countRows(), is(0));
+        assertThat(fingerprintDAO.readAll().isEmpty(), is(true));
+    }
+
+    @Test
+    public void putNewFingerprintShouldPersist() throws DAOException {
+        Fingerprint fingerprint = new Fingerprint(2048, 1433887200000L, 123456789L);
+        fingerprintDAO.put(FILE, fingerprint);
+
+        assertThat(countRows(), is(1));
+        assertThat(fingerprintDAO.readAll().get(FILE), equalTo(fingerprint));
+    }
+
+    @Test
+    public void putExistingFingerprintShouldReplace() throws DAOException {
+        fingerprintDAO.put(FILE, new Fingerprint(2048, 1433887200000L, 123456789L));
+        Fingerprint updated = new Fingerprint(4096, 1433887300000L, 987654321L);
+        fingerprintDAO.put(FILE, updated);
+
+        Map<Path, Fingerprint> fingerprints = fingerprintDAO.readAll();
+        assertThat(countRows(), is(1));
+        assertThat(fingerprints.get(FILE), equalTo(updated));
+    }
+
+    @Test
+    public void deleteShouldRemoveFingerprint() throws DAOException {
+        fingerprintDAO.put(FILE, new Fingerprint(2048, 1433887200000L, 123456789L));
+        fingerprintDAO.delete(FILE);
+
+        assertThat(countRows(), is(0));
+    }
+
+    @Test
+    public void deleteNonExistingShouldNotThrow() throws DAOException {
+        fingerprintDAO.delete(FILE);
+
+        assertThat(countRows(), is(0));
+    }
+}
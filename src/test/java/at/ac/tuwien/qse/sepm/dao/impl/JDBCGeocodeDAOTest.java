@@ -0,0 +1,82 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.AbstractJDBCDAOTest;
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.GeocodeDAO;
+import at.ac.tuwien.qse.sepm.dao.UsingTable;
+import at.ac.tuwien.qse.sepm.entities.Place;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@UsingTable("GeocodeCache")
+public class JDBCGeocodeDAOTest extends AbstractJDBCDAOTest {
+
+    @Autowired
+    private GeocodeDAO geocodeDAO;
+
+    @Test
+    public void readWithEmptyDBShouldReturnNull() throws DAOException {
+        assertThat(countRows(), is(0));
+        assertThat(geocodeDAO.read(4821, 1637), nullValue());
+    }
+
+    @Test
+    public void putNewPlaceShouldPersist() throws DAOException {
+        geocodeDAO.put(4821, 1637, new Place(1, "Vienna", "Austria", 48.2082, 16.3738));
+
+        Place place = geocodeDAO.read(4821, 1637);
+        assertThat(countRows(), is(1));
+        assertThat(place.getCity(), equalTo("Vienna"));
+        assertThat(place.getCountry(), equalTo("Austria"));
+        assertThat(place.getLatitude(), equalTo(48.2082));
+        assertThat(place.getLongitude(), equalTo(16.3738));
+    }
+
+    @Test
+    public void putExistingCellShouldReplace() throws DAOException {
+        geocodeDAO.put(4821, 1637, new Place(1, "Unknown city", "Austria", 48.2082, 16.3738));
+        geocodeDAO.put(4821, 1637, new Place(1, "Vienna", "Austria", 48.2082, 16.3738));
+
+        assertThat(countRows(), is(1));
+        assertThat(geocodeDAO.read(4821, 1637).getCity(), equalTo("Vienna"));
+    }
+
+    @Test
+    public void readOtherCellShouldReturnNull() throws DAOException {
+        geocodeDAO.put(4821, 1637, new Place(1, "Vienna", "Austria", 48.2082, 16.3738));
+
+        assertThat(geocodeDAO.read(4821, 1638), nullValue());
+    }
+}
@@ -0,0 +1,141 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.entities.Photo;
+import at.ac.tuwien.qse.sepm.entities.PhotoMetadata;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Measures the time per {@link JDBCPhotoDAO#getByFile(Path)} query with a data source that opens a
+ * new connection for each query and with the pooled data source used by the application.
+ *
+ * The benchmark only runs if the system property {@code travelimg.benchmark} is set to true:
+ * {@code mvn test -Dtest=JDBCPhotoDAOBenchmarkTest -Dtravelimg.benchmark=true}
+ */
+public class JDBCPhotoDAOBenchmarkTest {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    private static final String OPTIONS = ";CACHE_SIZE=65536;QUERY_CACHE_SIZE=64;LOCK_MODE=3;MVCC=TRUE";
+    private static final int PHOTOS = 1000;
+    private static final int QUERIES = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String url;
+
+    @Before
+    public void setUp() throws DAOException {
+        Assume.assumeTrue(Boolean.getBoolean("travelimg.benchmark"));
+        url = "jdbc:h2:file:" + folder.getRoot().toPath().resolve("benchmark.db");
+
+        JdbcConnectionPool dataSource = JdbcConnectionPool.create(url, "sa", "");
+        try {
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+            populator.addScript(new ClassPathResource("db/create.sql"));
+            DatabasePopulatorUtils.execute(populator, dataSource);
+
+            List<Photo> photos = new ArrayList<>(PHOTOS);
+            for (int i = 0; i < PHOTOS; i++) {
+                PhotoMetadata data = new PhotoMetadata();
+                data.setDatetime(LocalDateTime.of(2015, 6, 1, 0, 0).plusMinutes(i));
+                photos.add(new Photo(getFile(i), data));
+            }
+            createDAO(dataSource).createAll(photos);
+        } finally {
+            dataSource.dispose();
+        }
+    }
+
+    @Test
+    public void getByFile_simpleAndPooledDataSource_logsTimePerQuery() throws DAOException {
+        SimpleDriverDataSource simple = new SimpleDriverDataSource(new org.h2.Driver(), url, "sa", "");
+        double simpleMicros = measure(simple);
+
+        JdbcConnectionPool pooled = JdbcConnectionPool.create(url + OPTIONS, "sa", "");
+        double pooledMicros;
+        try {
+            pooledMicros = measure(pooled);
+        } finally {
+            pooled.dispose();
+        }
+
+        LOGGER.info("getByFile with SimpleDriverDataSource: {} us per query", simpleMicros);
+        LOGGER.info("getByFile with JdbcConnectionPool: {} us per query", pooledMicros);
+    }
+
+    // Get the average time of a query in microseconds.
+    private double measure(DataSource dataSource) throws DAOException {
+        JDBCPhotoDAO dao = createDAO(dataSource);
+
+        // warm up
+        for (int i = 0; i < QUERIES / 10; i++) {
+            dao.getByFile(getFile(i % PHOTOS));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            Path file = getFile(i % PHOTOS);
+            assertEquals(file, dao.getByFile(file).getFile());
+        }
+        return (System.nanoTime() - start) / 1000.0 / QUERIES;
+    }
+
+    private JDBCPhotoDAO createDAO(DataSource dataSource) {
+        JDBCPhotoDAO dao = new JDBCPhotoDAO();
+        dao.setDataSource(dataSource);
+        return dao;
+    }
+
+    private Path getFile(int index) {
+        return Paths.get("benchmark/" + index + ".jpg");
+    }
+}
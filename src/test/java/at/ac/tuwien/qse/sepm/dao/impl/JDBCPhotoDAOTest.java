@@ -41,7 +41,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -102,6 +104,25 @@ public class JDBCPhotoDAOTest extends AbstractJDBCDAOTest {
         return new Photo(expectedPhotos[id - 1]);
     }
 
+    @Test
+    @WithData
+    public void testReadIdsByFilesManyPathsReadsAllChunks() throws DAOException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            files.add(Paths.get("missing" + i + ".jpg"));
+        }
+        for (int i = 1; i <= 5; i++) {
+            files.add(i * 200, Paths.get(i + ".jpg"));
+        }
+
+        Map<Path, Integer> ids = photoDAO.readIdsByFiles(files);
+
+        assertThat(ids.size(), is(5));
+        for (int i = 1; i <= 5; i++) {
+            assertThat(ids.get(Paths.get(i + ".jpg")), is(i));
+        }
+    }
+
     @Test(expected = IllegalArgumentException.class)
     @WithData
     public void testCreateWithNullThrows() throws DAOException {
@@ -132,6 +153,19 @@ public class JDBCPhotoDAOTest extends AbstractJDBCDAOTest {
         }
     }
 
+    @Test
+    @WithData
+    public void testReadAllSharesReferencedEntities() throws DAOException {
+        List<Photo> photos = photoDAO.readAll();
+        Photo first = photos.get(0);
+
+        for (Photo photo : photos) {
+            assertThat(photo.getData().getPhotographer(), sameInstance(first.getData().getPhotographer()));
+            assertThat(photo.getData().getPlace(), sameInstance(first.getData().getPlace()));
+            assertThat(photo.getData().getJourney(), sameInstance(first.getData().getJourney()));
+        }
+    }
+
     @Test
     @WithData
     public void testCreateAddsEntry() throws DAOException {
@@ -0,0 +1,140 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.AbstractJDBCDAOTest;
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.UsingTable;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+@UsingTable("SchemaVersion")
+public class JDBCSchemaMigratorTest extends AbstractJDBCDAOTest {
+
+    private static final String INSERT_PHOTO = "INSERT INTO Photo(path, datetime, latitude, longitude) VALUES ('1.jpg', '2015-06-01 00:00:00.0', 0.0, 0.0)";
+
+    @Autowired
+    private JDBCSchemaMigrator schemaMigrator;
+
+    @Test
+    public void testMigratedToLatestVersion() throws DAOException {
+        assertThat(schemaMigrator.getVersion(), is(4));
+        assertThat(countRows(), is(4));
+    }
+
+    @Test
+    public void testMigrateTwiceKeepsVersion() throws DAOException {
+        schemaMigrator.migrate();
+        assertThat(schemaMigrator.getVersion(), is(4));
+        assertThat(countRows(), is(4));
+    }
+
+    @Test(expected = DuplicateKeyException.class)
+    public void testDuplicatePathThrows() {
+        jdbcTemplate.update(INSERT_PHOTO);
+        jdbcTemplate.update(INSERT_PHOTO);
+    }
+
+    @Test
+    public void testScriptsInsertDefaultDataOnEveryStart() throws DAOException {
+        EmbeddedDatabase database = createDatabase("JDBCSchemaMigratorTestScripts");
+        try {
+            JDBCSchemaMigrator migrator = new JDBCSchemaMigrator();
+            migrator.setDataSource(database);
+            migrator.setMigrations(Arrays.asList(
+                    new ClassPathResource("db/create.sql"),
+                    new ClassPathResource("db/migration/002_indexes.sql"),
+                    new ClassPathResource("db/migration/003_geocode_cache.sql"),
+                    new ClassPathResource("db/migration/004_wiki_place_info.sql")));
+            migrator.setScripts(Arrays.asList(new ClassPathResource("db/insert.sql")));
+            migrator.migrate();
+            migrator.migrate();
+
+            JdbcTemplate template = new JdbcTemplate(database);
+            assertThat(migrator.getVersion(), is(4));
+            assertThat(template.queryForList("SELECT name FROM Photographer", String.class), contains("Flickr"));
+            assertThat(template.queryForList("SELECT name FROM Tag ORDER BY id", String.class), contains("Person", "Essen"));
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    @Test
+    public void testMigrateDuplicatePathsKeepsTags() throws DAOException {
+        EmbeddedDatabase database = createDatabase("JDBCSchemaMigratorTestDuplicates");
+        try {
+            Resource create = new ClassPathResource("db/create.sql");
+            Resource indexes = new ClassPathResource("db/migration/002_indexes.sql");
+
+            JDBCSchemaMigrator migrator = new JDBCSchemaMigrator();
+            migrator.setDataSource(database);
+            migrator.setMigrations(Arrays.asList(create));
+            migrator.migrate();
+
+            JdbcTemplate template = new JdbcTemplate(database);
+            template.update("INSERT INTO Tag(id, name) VALUES (1, 'Person'), (2, 'Essen'), (3, 'Natur')");
+            template.update("INSERT INTO Photo(id, path, datetime, latitude, longitude) VALUES "
+                    + "(1, '1.jpg', '2015-06-01 00:00:00.0', 0.0, 0.0), "
+                    + "(2, '1.jpg', '2015-06-01 00:00:00.0', 0.0, 0.0), "
+                    + "(3, '1.jpg', '2015-06-01 00:00:00.0', 0.0, 0.0)");
+            template.update("INSERT INTO PhotoTag(photo_id, tag_id) VALUES (1, 1), (2, 1), (2, 2), (3, 3)");
+
+            migrator.setMigrations(Arrays.asList(create, indexes));
+            migrator.migrate();
+
+            List<Integer> photos = template.queryForList("SELECT id FROM Photo", Integer.class);
+            List<Integer> tags = template.queryForList("SELECT tag_id FROM PhotoTag WHERE photo_id = 1 ORDER BY tag_id", Integer.class);
+            assertThat(photos, contains(1));
+            assertThat(tags, contains(1, 2, 3));
+            assertThat(template.queryForObject("SELECT COUNT(*) FROM PhotoTag", Integer.class), is(3));
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    private EmbeddedDatabase createDatabase(String name) {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package at.ac.tuwien.qse.sepm.dao.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.AbstractJDBCDAOTest;
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.UsingTable;
+import at.ac.tuwien.qse.sepm.dao.WikiPlaceInfoDAO;
+import at.ac.tuwien.qse.sepm.entities.Place;
+import at.ac.tuwien.qse.sepm.entities.WikiPlaceInfo;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+@UsingTable("WikiPlaceInfo")
+public class JDBCWikiPlaceInfoDAOTest extends AbstractJDBCDAOTest {
+
+    private static final Place GRAZ = new Place(null, "Graz", "Austria", 47.07, 15.44);
+
+    @Autowired
+    private WikiPlaceInfoDAO wikiPlaceInfoDAO;
+
+    private static LocalDateTime yesterday() {
+        return LocalDateTime.now().minusDays(1);
+    }
+
+    @Test
+    public void readWithEmptyDBShouldReturnNull() throws DAOException {
+        assertThat(countRows(), is(0));
+        assertThat(wikiPlaceInfoDAO.read(GRAZ, yesterday()), nullValue());
+    }
+
+    @Test
+    public void putNewInfoShouldPersist() throws DAOException {
+        wikiPlaceInfoDAO.put(GRAZ, new WikiPlaceInfo("Graz", "Austria", "Capital of Styria",
+                353.0, 127.58, 280200, "GMT+01", "Euro", "German"));
+
+        WikiPlaceInfo info = wikiPlaceInfoDAO.read(GRAZ, yesterday());
+        assertThat(countRows(), is(1));
+        assertThat(info.getDescription(), equalTo("Capital of Styria"));
+        assertThat(info.getElevation(), equalTo(353.0));
+        assertThat(info.getPopulation(), equalTo(280200));
+        assertThat(info.getLanguage(), equalTo("German"));
+    }
+
+    @Test
+    public void putInfoWithoutDataShouldKeepNulls() throws DAOException {
+        wikiPlaceInfoDAO.put(GRAZ, new WikiPlaceInfo("Graz", "Austria", "No data", null, null,
+                null, null, null, null));
+
+        WikiPlaceInfo info = wikiPlaceInfoDAO.read(GRAZ, yesterday());
+        assertThat(info.getElevation(), nullValue());
+        assertThat(info.getPopulation(), nullValue());
+    }
+
+    @Test
+    public void putExistingPlaceShouldReplace() throws DAOException {
+        wikiPlaceInfoDAO.put(GRAZ, new WikiPlaceInfo("Graz", "Austria", "old", null, null, null,
+                null, null, null));
+        wikiPlaceInfoDAO.put(GRAZ, new WikiPlaceInfo("Graz", "Austria", "new", null, null, null,
+                null, null, null));
+
+        assertThat(countRows(), is(1));
+        assertThat(wikiPlaceInfoDAO.read(GRAZ, yesterday()).getDescription(), equalTo("new"));
+    }
+
+    @Test
+    public void readExpiredInfoShouldReturnNull() throws DAOException {
+        wikiPlaceInfoDAO.put(GRAZ, new WikiPlaceInfo("Graz", "Austria", "old", null, null, null,
+                null, null, null));
+
+        assertThat(wikiPlaceInfoDAO.read(GRAZ, LocalDateTime.now().plusDays(1)), nullValue());
+    }
+}
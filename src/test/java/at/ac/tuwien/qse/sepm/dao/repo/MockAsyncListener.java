@@ -37,6 +37,7 @@ public class MockAsyncListener implements AsyncPhotoRepository.AsyncListener {
 
     private final List<OperationNotification> queueNotifications = new LinkedList<>();
     private final List<OperationNotification> completeNotifications = new LinkedList<>();
+    private final List<OperationNotification> mergeNotifications = new LinkedList<>();
     private final List<ErrorNotification> errorNotifications = new LinkedList<>();
 
     public List<OperationNotification> getQueueNotifications() {
@@ -47,6 +48,10 @@ public class MockAsyncListener implements AsyncPhotoRepository.AsyncListener {
         return new ArrayList<>(completeNotifications);
     }
 
+    public List<OperationNotification> getMergeNotifications() {
+        return new ArrayList<>(mergeNotifications);
+    }
+
     public List<ErrorNotification> getErrorNotifications() {
         return new ArrayList<>(errorNotifications);
     }
@@ -59,6 +64,10 @@ public class MockAsyncListener implements AsyncPhotoRepository.AsyncListener {
         completeNotifications.add(new OperationNotification(repository, operation));
     }
 
+    @Override public void onMerge(AsyncPhotoRepository repository, Operation operation) {
+        mergeNotifications.add(new OperationNotification(repository, operation));
+    }
+
     @Override public void onError(AsyncPhotoRepository repository, Operation operation, DAOException error) {
         errorNotifications.add(new ErrorNotification(repository, error));
     }
@@ -28,11 +28,16 @@ package at.ac.tuwien.qse.sepm.dao.repo;
  */
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import org.junit.Test;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.contains;
@@ -94,4 +99,40 @@ public abstract class PhotoCacheTest extends PhotoProviderTest {
         object.remove(photo.getFile());
         assertTrue(object.index().isEmpty());
     }
+
+    @Test
+    public void putFingerprint_existing_persists() throws DAOException {
+        PhotoCache object = getObject();
+        Photo photo = getContext().getPhoto1();
+        Fingerprint fingerprint = new Fingerprint(1024, 1433887200000L, 42);
+        object.put(photo);
+
+        object.putFingerprint(photo.getFile(), fingerprint);
+        assertEquals(fingerprint, object.readFingerprints().get(photo.getFile()));
+    }
+
+    @Test
+    public void remove_withFingerprint_removesFingerprint() throws DAOException {
+        PhotoCache object = getObject();
+        Photo photo = getContext().getPhoto1();
+        object.put(photo);
+        object.putFingerprint(photo.getFile(), new Fingerprint(1024, 1433887200000L, 42));
+
+        object.remove(photo.getFile());
+        assertTrue(object.readFingerprints().isEmpty());
+    }
+
+    @Test
+    public void putAll_newAndExisting_persistsAndReturnsNew() throws DAOException {
+        PhotoCache object = getObject();
+        Photo existing = new Photo(getContext().getFile1(), getContext().getMinimalData());
+        object.put(existing);
+        Photo updated = new Photo(getContext().getFile1(), getContext().getMaximalData());
+        Photo created = new Photo(getContext().getFile2(), getContext().getMaximalData());
+
+        Collection<Path> added = object.putAll(Arrays.asList(updated, created));
+        assertEquals(Collections.singletonList(created.getFile()), new ArrayList<>(added));
+        assertEquals(updated, object.read(updated.getFile()));
+        assertEquals(created, object.read(created.getFile()));
+    }
 }
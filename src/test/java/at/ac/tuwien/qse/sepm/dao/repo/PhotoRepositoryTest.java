@@ -35,6 +35,7 @@ import org.junit.Test;
 import java.io.*;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 
 import static org.junit.Assert.*;
 
@@ -152,6 +153,30 @@ public abstract class PhotoRepositoryTest extends PhotoProviderTest {
         assertEquals(file, listener.getUpdateNotifications().get(0).getFile());
     }
 
+    @Test(expected = PhotoNotFoundException.class)
+    public void updateAll_oneNonExisting_throws() throws DAOException {
+        PhotoRepository object = getObject();
+        object.create(getContext().getFile1(), getContext().getStream1());
+
+        object.updateAll(Arrays.asList(getContext().getModified1(), getContext().getPhoto2()));
+    }
+
+    @Test
+    public void updateAll_existing_persistsAndNotifiesListener() throws DAOException {
+        PhotoRepository object = getObject();
+        Path file = getContext().getFile1();
+        object.create(file, getContext().getStream1());
+        MockListener listener = new MockListener();
+        object.addListener(listener);
+        Photo modified = getContext().getModified1();
+
+        object.updateAll(Arrays.asList(modified));
+
+        assertEquals(modified, object.read(file));
+        assertEquals(1, listener.getUpdateNotifications().size());
+        assertEquals(file, listener.getUpdateNotifications().get(0).getFile());
+    }
+
     @Test(expected = PhotoNotFoundException.class)
     public void delete_nonExisting_throws() throws DAOException {
         PhotoRepository object = getObject();
@@ -29,6 +29,7 @@ package at.ac.tuwien.qse.sepm.dao.repo.impl;
 
 import at.ac.tuwien.qse.sepm.dao.DAOException;
 import at.ac.tuwien.qse.sepm.dao.repo.*;
+import at.ac.tuwien.qse.sepm.entities.Fingerprint;
 import at.ac.tuwien.qse.sepm.entities.Photo;
 import org.junit.Before;
 import org.junit.Test;
@@ -115,7 +116,46 @@ public class CachedPhotoRepositoryTest extends AsyncPhotoRepositoryTest {
 
     @Test
     public void synchronize_unmodifiedFiles_notUpdatedInCache() throws DAOException {
-        // TODO
+        CachedPhotoRepository object = getObject();
+        Path file = getContext().getFile1();
+        object.create(file, getContext().getStream1());
+        while (object.completeNext());
+
+        CachedPhotoRepository other = new CachedPhotoRepository(getRepository(), getCache());
+        other.synchronize();
+        assertTrue(other.getQueue().isEmpty());
+        assertEquals(getContext().getPhoto1(), getCache().read(file));
+    }
+
+    @Test
+    public void synchronize_modifiedSinceFingerprint_addedToQueue() throws DAOException {
+        CachedPhotoRepository object = getObject();
+        Path file = getContext().getFile1();
+        object.create(file, getContext().getStream1());
+        while (object.completeNext());
+        getRepository().update(getContext().getModified1());
+        object.clearQueue();
+
+        CachedPhotoRepository other = new CachedPhotoRepository(getRepository(), getCache());
+        other.synchronize();
+        while (other.completeNext());
+        assertEquals(getContext().getModified1(), getCache().read(file));
+    }
+
+    @Test
+    public void synchronize_touchedFile_storesRefreshedFingerprint() throws DAOException {
+        CachedPhotoRepository object = getObject();
+        Path file = getContext().getFile1();
+        object.create(file, getContext().getStream1());
+        while (object.completeNext());
+        Fingerprint current = getRepository().fingerprint(file);
+        getCache().putFingerprint(file, new Fingerprint(
+                current.getSize(), current.getModified() - 1000, current.getHash()));
+
+        CachedPhotoRepository other = new CachedPhotoRepository(getRepository(), getCache());
+        other.synchronize();
+        assertTrue(other.getQueue().isEmpty());
+        assertEquals(current, getCache().readFingerprints().get(file));
     }
 
     @Test
@@ -149,4 +189,85 @@ public class CachedPhotoRepositoryTest extends AsyncPhotoRepositoryTest {
         while (object.completeNext());
         assertTrue(cache.contains(file));
     }
+
+    @Test
+    public void completeNext_operationsOnSameFile_completedInOrder() throws DAOException {
+        PhotoRepository repository = getRepository();
+        CachedPhotoRepository object = getObject();
+        Path file = getContext().getFile1();
+        object.create(file, getContext().getStream1());
+        while (object.completeNext());
+
+        MockAsyncListener listener = new MockAsyncListener();
+        object.addListener(listener);
+        repository.update(getContext().getModified1());
+        object.update(getContext().getPhoto1());
+        while (object.completeNext());
+
+        // NOTE: Completing the update queues another read, since the source repository notifies
+        // about the changed file.
+        assertEquals(3, listener.getCompleteNotifications().size());
+        assertEquals(Operation.Kind.READ, listener.getCompleteNotifications().get(0).getOperation().getKind());
+        assertEquals(Operation.Kind.UPDATE, listener.getCompleteNotifications().get(1).getOperation().getKind());
+        assertEquals(Operation.Kind.READ, listener.getCompleteNotifications().get(2).getOperation().getKind());
+        assertEquals(getContext().getPhoto1(), repository.read(file));
+    }
+
+    @Test
+    public void getQueue_operationsOnMultipleFiles_returnsAll() throws DAOException {
+        CachedPhotoRepository object = getObject();
+        object.create(getContext().getFile1(), getContext().getStream1());
+        object.create(getContext().getFile2(), getContext().getStream2());
+
+        assertEquals(2, object.getQueue().size());
+        while (object.completeNext());
+        assertTrue(object.getQueue().isEmpty());
+    }
+
+    @Test
+    public void update_pendingUpdate_replacesPendingUpdate() throws DAOException {
+        CachedPhotoRepository object = getObject();
+        object.create(getContext().getFile1(), getContext().getStream1());
+        while (object.completeNext());
+
+        MockAsyncListener listener = new MockAsyncListener();
+        object.addListener(listener);
+        object.update(getContext().getModified1());
+        object.update(getContext().getPhoto1());
+
+        assertEquals(1, object.getQueueSize());
+        assertEquals(1, listener.getMergeNotifications().size());
+        while (object.completeNext());
+        long updates = listener.getCompleteNotifications().stream()
+                .filter(n -> n.getOperation().getKind() == Operation.Kind.UPDATE)
+                .count();
+        assertEquals(1, updates);
+        assertEquals(getContext().getPhoto1(), getRepository().read(getContext().getFile1()));
+    }
+
+    @Test
+    public void delete_pendingReadAndUpdate_cancelsPendingOperations() throws DAOException {
+        CachedPhotoRepository object = getObject();
+        object.create(getContext().getFile1(), getContext().getStream1());
+        object.update(getContext().getModified1());
+
+        MockAsyncListener listener = new MockAsyncListener();
+        object.addListener(listener);
+        object.delete(getContext().getFile1());
+
+        assertEquals(2, listener.getMergeNotifications().size());
+        assertEquals(1, object.getQueueSize());
+        assertEquals(Operation.Kind.DELETE, object.getQueue().poll().getKind());
+    }
+
+    @Test
+    public void synchronize_pendingRead_readsOnce() throws DAOException {
+        CachedPhotoRepository object = getObject();
+        object.create(getContext().getFile1(), getContext().getStream1());
+
+        object.synchronize();
+
+        assertEquals(1, object.getQueueSize());
+        assertEquals(Operation.Kind.READ, object.getQueue().poll().getKind());
+    }
 }
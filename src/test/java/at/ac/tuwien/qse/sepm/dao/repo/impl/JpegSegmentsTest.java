@@ -0,0 +1,130 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class JpegSegmentsTest {
+
+    private static final Path SOURCE_DIR = System.getProperty("os.name").contains("indow")
+            ? Paths.get(JpegSegmentsTest.class.getClassLoader().getResource("db/testimages").getPath().substring(1))
+            : Paths.get(JpegSegmentsTest.class.getClassLoader().getResource("db/testimages").getPath());
+
+    @Test
+    public void readMetadata_jpeg_readsOnlyMetadataSegments() throws IOException {
+        Path file = SOURCE_DIR.resolve("6.jpg");
+        byte[] data = Files.readAllBytes(file);
+        ByteArrayInputStream is = new ByteArrayInputStream(data);
+
+        byte[] result = JpegSegments.readMetadata(is);
+
+        // NOTE: The image data remains unread.
+        assertTrue(is.available() > data.length / 2);
+        assertTrue(result.length < data.length - is.available());
+        assertEquals((byte)0xFF, result[0]);
+        assertEquals((byte)0xD8, result[1]);
+        assertEquals((byte)0xFF, result[2]);
+        assertEquals((byte)0xE1, result[3]);
+        assertEquals((byte)0xFF, result[result.length - 2]);
+        assertEquals((byte)0xD9, result[result.length - 1]);
+    }
+
+    @Test
+    public void readMetadata_testImages_equalsReadSegments() throws IOException {
+        for (int i = 6; i <= 8; i++) {
+            byte[] data = Files.readAllBytes(SOURCE_DIR.resolve(i + ".jpg"));
+            byte[] expected = JpegSegments.toJpeg(
+                    JpegSegments.readHeader(new ByteArrayInputStream(data), false).getSegments());
+
+            assertArrayEquals(expected, JpegSegments.readMetadata(new ByteArrayInputStream(data)));
+        }
+    }
+
+    @Test
+    public void readHeader_jpeg_locatesExifSegment() throws IOException {
+        Path file = SOURCE_DIR.resolve("6.jpg");
+        byte[] data = Files.readAllBytes(file);
+
+        JpegSegments.Header header = JpegSegments.readHeader(new ByteArrayInputStream(data), true);
+
+        JpegSegments.Segment exif = header.getExif();
+        assertNotNull(exif);
+        assertEquals(2, exif.getOffset());
+        assertEquals('E', data[(int)exif.getDataOffset()]);
+        assertEquals(exif.getLength(), exif.getData().length);
+        assertEquals(2, header.getSegments().size());
+        assertEquals(0xDB, header.getNext());
+    }
+
+    @Test(expected = IOException.class)
+    public void readMetadata_notJpeg_throws() throws IOException {
+        InputStream is = new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 });
+        JpegSegments.readMetadata(is);
+    }
+
+    @Test
+    public void trimExif_paddedExif_removesOnlyPadding() throws IOException {
+        byte[] data = readExif("6.jpg");
+        byte[] trimmed = JpegSegments.trimExif(data);
+        byte[] padded = Arrays.copyOf(data, data.length + 4096);
+
+        assertArrayEquals(trimmed, JpegSegments.trimExif(padded));
+        assertTrue(trimmed.length > 6);
+        assertArrayEquals(Arrays.copyOf(data, trimmed.length), trimmed);
+    }
+
+    @Test
+    public void trimExif_dataAfterPadding_returnsUnchanged() throws IOException {
+        byte[] padded = Arrays.copyOf(readExif("6.jpg"), 1024 * 8);
+        padded[padded.length - 1] = 1;
+
+        assertArrayEquals(padded, JpegSegments.trimExif(padded));
+    }
+
+    @Test
+    public void trimExif_invalidStructure_returnsUnchanged() {
+        byte[] data = { 'E', 'x', 'i', 'f', 0, 0, 'M', 'M', 0, 42, 0, 0, 1, 0, 0, 0 };
+
+        assertArrayEquals(data, JpegSegments.trimExif(data));
+    }
+
+    private static byte[] readExif(String name) throws IOException {
+        byte[] data = Files.readAllBytes(SOURCE_DIR.resolve(name));
+        return JpegSegments.readHeader(new ByteArrayInputStream(data), false).getExif().getData();
+    }
+}
@@ -0,0 +1,155 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.entities.PhotoMetadata;
+import at.ac.tuwien.qse.sepm.entities.Rating;
+import at.ac.tuwien.qse.sepm.entities.Tag;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.*;
+
+public class JpegSerializerTest {
+
+    private static final Path SOURCE_DIR = System.getProperty("os.name").contains("indow")
+            ? Paths.get(JpegSerializerTest.class.getClassLoader().getResource("db/testimages").getPath().substring(1))
+            : Paths.get(JpegSerializerTest.class.getClassLoader().getResource("db/testimages").getPath());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final JpegSerializer serializer = new JpegSerializer();
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.getRoot().toPath().resolve("photo.jpg");
+        Files.copy(SOURCE_DIR.resolve("6.jpg"), file);
+    }
+
+    @Test
+    public void updateInPlace_editFitsPadding_keepsFileSize() throws Exception {
+        rewrite(metadata(1));
+        long size = Files.size(file);
+
+        assertTrue(updateInPlace(metadata(5)));
+
+        assertEquals(size, Files.size(file));
+        assertEquals(5, read().getTags().size());
+    }
+
+    @Test
+    public void updateInPlace_editExceedsPadding_returnsFalseAndRewriteGrows() throws Exception {
+        rewrite(metadata(1));
+        long size = Files.size(file);
+
+        assertFalse(updateInPlace(metadata(800)));
+        rewrite(metadata(800));
+
+        assertTrue(Files.size(file) > size);
+        assertEquals(800, read().getTags().size());
+
+        // NOTE: The rewrite reserved new padding, so smaller edits fit again.
+        assertTrue(updateInPlace(metadata(2)));
+        assertEquals(2, read().getTags().size());
+    }
+
+    @Test
+    public void update_repeatedEdits_fileSizeBounded() throws Exception {
+        rewrite(metadata(1));
+        long size = Files.size(file);
+
+        for (int i = 0; i < 20; i++) {
+            rewrite(metadata(1 + i % 2));
+        }
+
+        // NOTE: Every rewrite reserves the padding once, instead of adding to earlier padding.
+        assertTrue(Files.size(file) <= size + 64);
+        assertEquals(2, read().getTags().size());
+    }
+
+    @Test
+    public void write_repeatedGrowingEdits_fileSizeBounded() throws Exception {
+        MetadataWriter writer = new MetadataWriter(new PhysicalFileManager(), serializer);
+        writer.write(file, metadata(1));
+        long size = Files.size(file);
+
+        for (int i = 2; i <= 21; i++) {
+            writer.write(file, metadata(i));
+        }
+
+        assertTrue(Files.size(file) <= size + 4 * 1024);
+        assertEquals(21, read().getTags().size());
+    }
+
+    private static PhotoMetadata metadata(int tags) {
+        PhotoMetadata metadata = new PhotoMetadata(LocalDateTime.of(2015, 6, 1, 12, 0), 48.2,
+                16.37, Rating.GOOD, null, null, null);
+        for (int i = 0; i < tags; i++) {
+            metadata.getTags().add(new Tag(null, "tag" + i));
+        }
+        return metadata;
+    }
+
+    private PhotoMetadata read() throws IOException, DAOException {
+        try (InputStream is = Files.newInputStream(file)) {
+            return serializer.read(is);
+        }
+    }
+
+    private boolean updateInPlace(PhotoMetadata metadata) throws IOException, DAOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return serializer.updateInPlace(channel, metadata);
+        }
+    }
+
+    private void rewrite(PhotoMetadata metadata) throws IOException, DAOException {
+        Path temp = folder.getRoot().toPath().resolve("photo.jpg.temp");
+        try (InputStream is = Files.newInputStream(file);
+                OutputStream os = Files.newOutputStream(temp)) {
+            serializer.update(is, os, metadata);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -31,6 +31,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
@@ -105,6 +106,15 @@ public class MockFileManager implements FileManager {
         return result;
     }
 
+    @Override public long size(Path file) throws IOException {
+        LOGGER.debug("getting size of file {}", file);
+        if (!isFile(file)) {
+            LOGGER.warn("path is not a file {}", file);
+            throw new IOException();
+        }
+        return sizeOf(file);
+    }
+
     @Override public void createDirectories(Path path) throws IOException {
         LOGGER.debug("creating directories for {}", path);
         directories.add(path.getParent());
@@ -177,6 +187,23 @@ public class MockFileManager implements FileManager {
         LOGGER.debug("copied {} bytes from {} -> {}", sizeOf(sink), source, sink);
     }
 
+    @Override public void move(Path source, Path sink) throws IOException {
+        LOGGER.debug("moving {} bytes from {} -> {}", sizeOf(source), source, sink);
+        if (!isFile(source)) {
+            LOGGER.warn("no source file found at {}", source);
+            throw new IOException();
+        }
+        files.put(sink, files.remove(source));
+        modified.remove(source);
+        modified.put(sink, FileTime.from(Instant.now()));
+        LOGGER.debug("moved {} bytes from {} -> {}", sizeOf(sink), source, sink);
+    }
+
+    @Override public FileChannel newFileChannel(Path file) throws IOException {
+        LOGGER.debug("file channels are not supported, requested for {}", file);
+        throw new IOException();
+    }
+
     private int sizeOf(Path file) {
         return files.get(file).size();
     }
@@ -0,0 +1,294 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.repo.FileWatcher;
+import at.ac.tuwien.qse.sepm.dao.repo.FileWatcherTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class NioFileWatcherTest extends FileWatcherTest {
+
+    private static final Path DIR = Paths.get("test/path");
+    private static final Path FILE = DIR.resolve("some.jpg");
+
+    private static final long TIMEOUT = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockFileManager fileManager;
+    private NioFileWatcher object;
+    private RecordingListener listener;
+
+    private NioFileWatcher watching;
+    private CountingScanner scanner;
+    private Path root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot().toPath().toRealPath();
+        fileManager = new MockFileManager();
+        object = new NioFileWatcher(fileManager);
+        object.getExtensions().add("jpg");
+        listener = new RecordingListener();
+        object.addListener(listener);
+    }
+
+    @After
+    public void tearDown() {
+        if (watching != null) {
+            watching.close();
+        }
+    }
+
+    @Override protected FileWatcher getObject() {
+        return new NioFileWatcher(new MockFileManager());
+    }
+
+    @Test
+    public void refresh_existingFile_notifiesCreateOnce() throws IOException {
+        fileManager.createFile(FILE);
+        object.register(DIR);
+
+        object.refresh();
+        object.refresh();
+
+        assertEquals(1, listener.created.size());
+        assertEquals(FILE, listener.created.get(0));
+        assertTrue(object.index().contains(FILE));
+    }
+
+    @Test
+    public void refresh_deletedFile_notifiesDelete() throws IOException {
+        fileManager.createFile(FILE);
+        object.register(DIR);
+        object.refresh();
+
+        fileManager.delete(FILE);
+        object.refresh();
+
+        assertEquals(1, listener.deleted.size());
+        assertEquals(FILE, listener.deleted.get(0));
+        assertTrue(object.index().isEmpty());
+    }
+
+    @Test
+    public void unregister_directoryWithFile_notifiesDelete() throws IOException {
+        fileManager.createFile(FILE);
+        object.register(DIR);
+        object.refresh();
+
+        object.unregister(DIR);
+        object.refresh();
+
+        assertEquals(1, listener.deleted.size());
+        assertFalse(object.recognizes(FILE));
+        assertTrue(object.index().isEmpty());
+    }
+
+    @Test
+    public void refresh_fileCreatedInWatchedDirectory_notifiesCreateFromEvent() throws Exception {
+        startWatching();
+        Path file = write(root.resolve("new.jpg"), System.currentTimeMillis() - 10_000);
+
+        assertTrue(refreshUntil(() -> !listener.created.isEmpty()));
+
+        assertEquals(1, listener.created.size());
+        assertEquals(file, listener.created.get(0));
+        assertEquals(0, scanner.scans.get());
+    }
+
+    @Test
+    public void refresh_fileCreatedInNewSubdirectory_notifiesCreate() throws Exception {
+        startWatching();
+        Path directory = Files.createDirectory(root.resolve("sub"));
+        Path file = write(directory.resolve("new.jpg"), System.currentTimeMillis() - 10_000);
+
+        assertTrue(refreshUntil(() -> !listener.created.isEmpty()));
+
+        assertEquals(file, listener.created.get(0));
+        assertEquals(0, scanner.scans.get());
+    }
+
+    @Test
+    public void refresh_fileModifiedInWatchedDirectory_notifiesUpdate() throws Exception {
+        Path file = write(root.resolve("old.jpg"), System.currentTimeMillis() - 20_000);
+        startWatching();
+        assertEquals(1, listener.created.size());
+
+        write(file, System.currentTimeMillis() - 10_000);
+
+        assertTrue(refreshUntil(() -> !listener.updated.isEmpty()));
+        assertEquals(1, listener.updated.size());
+    }
+
+    @Test
+    public void refresh_fileDeletedInWatchedDirectory_notifiesDelete() throws Exception {
+        Path file = write(root.resolve("old.jpg"), System.currentTimeMillis() - 20_000);
+        startWatching();
+
+        Files.delete(file);
+
+        assertTrue(refreshUntil(() -> !listener.deleted.isEmpty()));
+        assertEquals(file, listener.deleted.get(0));
+    }
+
+    @Test
+    public void refresh_subdirectoryDeleted_notifiesDeleteOfContainedFile() throws Exception {
+        Path directory = Files.createDirectory(root.resolve("sub"));
+        Path file = write(directory.resolve("old.jpg"), System.currentTimeMillis() - 20_000);
+        startWatching();
+
+        Files.delete(file);
+        Files.delete(directory);
+
+        assertTrue(refreshUntil(() -> !listener.deleted.isEmpty()));
+        assertEquals(file, listener.deleted.get(0));
+    }
+
+    @Test
+    public void refresh_queuedEventOfSettledFile_notifiesOnFirstRefresh() throws Exception {
+        startWatching();
+        long start = System.currentTimeMillis();
+        Path file = write(root.resolve("new.jpg"), start - 10_000);
+
+        // NOTE: The event waits in the queue, but the file was last touched long before.
+        assertTrue(refreshUntil(() -> !listener.created.isEmpty()));
+
+        assertTrue(System.currentTimeMillis() - start < NioFileWatcher.DEBOUNCE_MILLIS);
+        assertEquals(1, listener.created.size());
+        assertEquals(file, listener.created.get(0));
+    }
+
+    @Test
+    public void refresh_recentlyWrittenFile_waitsForDebounce() throws Exception {
+        startWatching();
+        Path file = write(root.resolve("new.jpg"), System.currentTimeMillis());
+        long written = Files.getLastModifiedTime(file).toMillis();
+
+        // NOTE: Refreshes well within the debounce interval must not examine the file.
+        while (System.currentTimeMillis() - written < NioFileWatcher.DEBOUNCE_MILLIS - 200) {
+            object.refresh();
+            assertTrue(listener.created.isEmpty());
+            Thread.sleep(20);
+        }
+
+        assertTrue(refreshUntil(() -> !listener.created.isEmpty()));
+        assertEquals(1, listener.created.size());
+        assertTrue(System.currentTimeMillis() - written >= NioFileWatcher.DEBOUNCE_MILLIS);
+    }
+
+    // Replaces the mock watcher by one that watches a temporary directory with a watch service.
+    private void startWatching() throws IOException {
+        scanner = new CountingScanner(new RecursiveDirectoryScanner(new PhysicalFileManager()));
+        watching = new NioFileWatcher(new PhysicalFileManager(),
+                FileSystems.getDefault().newWatchService(), scanner);
+        watching.getExtensions().add("jpg");
+        watching.addListener(listener);
+        watching.register(root);
+        watching.refresh();
+        object = watching;
+    }
+
+    private static Path write(Path file, long modified) throws IOException {
+        Files.write(file, new byte[] { 1, 2, 3, (byte)modified });
+        Files.setLastModifiedTime(file, FileTime.fromMillis(modified));
+        return file;
+    }
+
+    // Refreshes until the condition holds and returns whether it did before the timeout.
+    private boolean refreshUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            object.refresh();
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+    private static class CountingScanner implements DirectoryScanner {
+
+        private final DirectoryScanner scanner;
+        private final AtomicInteger scans = new AtomicInteger();
+
+        public CountingScanner(DirectoryScanner scanner) {
+            this.scanner = scanner;
+        }
+
+        @Override public Set<Path> scan(Collection<Path> directories, Predicate<Path> filter) {
+            scans.incrementAndGet();
+            return scanner.scan(directories, filter);
+        }
+
+        @Override public ScanStatistics getStatistics() {
+            return scanner.getStatistics();
+        }
+    }
+
+    private static class RecordingListener implements FileWatcher.Listener {
+
+        private final List<Path> created = new LinkedList<>();
+        private final List<Path> updated = new LinkedList<>();
+        private final List<Path> deleted = new LinkedList<>();
+
+        @Override public void onCreate(FileWatcher watcher, Path file) {
+            created.add(file);
+        }
+
+        @Override public void onUpdate(FileWatcher watcher, Path file) {
+            updated.add(file);
+        }
+
+        @Override public void onDelete(FileWatcher watcher, Path file) {
+            deleted.add(file);
+        }
+    }
+}
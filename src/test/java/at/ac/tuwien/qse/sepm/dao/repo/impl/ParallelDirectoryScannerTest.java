@@ -0,0 +1,118 @@
+package at.ac.tuwien.qse.sepm.dao.repo.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ParallelDirectoryScannerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path root;
+    private ParallelDirectoryScanner object;
+
+    @Before
+    public void setUp() throws IOException {
+        root = folder.getRoot().toPath();
+        object = new ParallelDirectoryScanner(new PhysicalFileManager(), 2);
+    }
+
+    @After
+    public void tearDown() {
+        object.close();
+    }
+
+    @Test
+    public void scan_nestedDirectories_returnsMatchingFiles() throws IOException {
+        Path a = createFile(root.resolve("a.jpg"));
+        Path b = createFile(root.resolve("sub/deep/b.jpg"));
+        createFile(root.resolve("sub/c.txt"));
+
+        Set<Path> files = object.scan(Collections.singleton(root), f -> f.toString().endsWith(".jpg"));
+
+        assertEquals(2, files.size());
+        assertTrue(files.containsAll(Arrays.asList(a, b)));
+        assertEquals(3, object.getStatistics().getDirectories());
+        assertEquals(2, object.getStatistics().getFiles());
+    }
+
+    @Test
+    public void scan_unchangedDirectories_notListedAgain() throws IOException {
+        createFile(root.resolve("sub/a.jpg"));
+        age(root);
+        age(root.resolve("sub"));
+        object.scan(Collections.singleton(root), f -> true);
+
+        Set<Path> files = object.scan(Collections.singleton(root), f -> true);
+
+        assertEquals(1, files.size());
+        assertEquals(2, object.getStatistics().getDirectories());
+        assertEquals(0, object.getStatistics().getListed());
+    }
+
+    @Test
+    public void scan_changedDirectory_listedAgain() throws IOException {
+        createFile(root.resolve("sub/a.jpg"));
+        age(root);
+        age(root.resolve("sub"));
+        object.scan(Collections.singleton(root), f -> true);
+
+        Path b = createFile(root.resolve("sub/b.jpg"));
+        Set<Path> files = object.scan(Collections.singleton(root), f -> true);
+
+        assertEquals(2, files.size());
+        assertTrue(files.contains(b));
+        assertEquals(1, object.getStatistics().getListed());
+    }
+
+    private Path createFile(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.createFile(file);
+    }
+
+    // Moves the modification time of a directory into the past, so that its listing is trusted.
+    private void age(Path directory) throws IOException {
+        FileTime time = FileTime.fromMillis(System.currentTimeMillis() - 60000);
+        Files.setLastModifiedTime(directory, time);
+    }
+}
@@ -0,0 +1,136 @@
+package at.ac.tuwien.qse.sepm.gui.util;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.gui.JavaFXThreadingRule;
+import javafx.scene.image.Image;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class ImageCacheTest {
+
+    @Rule public JavaFXThreadingRule javafxRule = new JavaFXThreadingRule();
+
+    // Bytes taken by a small thumbnail, which is stretched to 100 x 100 pixels.
+    private static final long SMALL_WEIGHT = 4L * 100 * 100;
+
+    private Path photo1;
+    private Path photo2;
+    private Path photo3;
+    private Path photo4;
+
+    @Before
+    public void setUp() throws URISyntaxException {
+        ImageCache.setThumbnailService(null);
+        photo1 = resource("/db/testimages/6.jpg");
+        photo2 = resource("/db/testimages/directory1/6.jpg");
+        photo3 = resource("/db/testimages/directory1/7.jpg");
+        photo4 = resource("/db/testimages/directory2/2.jpg");
+    }
+
+    @Test
+    public void load_overBudget_evictsLeastRecentlyUsed() {
+        ImageCache object = new ImageCache(3 * SMALL_WEIGHT, false);
+        object.load(photo1, ImageSize.SMALL);
+        object.load(photo2, ImageSize.SMALL);
+        object.load(photo3, ImageSize.SMALL);
+        object.get(photo1, ImageSize.SMALL);
+
+        object.load(photo4, ImageSize.SMALL);
+
+        assertEquals(1, object.getEvictionCount());
+        assertEquals(3 * SMALL_WEIGHT, object.getWeight());
+        object.get(photo1, ImageSize.SMALL);
+        object.get(photo3, ImageSize.SMALL);
+        object.get(photo4, ImageSize.SMALL);
+        assertEquals(0, object.getMissCount());
+        object.get(photo2, ImageSize.SMALL);
+        assertEquals(1, object.getMissCount());
+    }
+
+    @Test
+    public void load_imageOverBudget_keepsMostRecentImage() {
+        ImageCache object = new ImageCache(SMALL_WEIGHT, false);
+        object.load(photo1, ImageSize.SMALL);
+
+        Image image = object.load(photo2, ImageSize.MEDIUM);
+
+        assertEquals(1, object.getEvictionCount());
+        assertSame(image, object.get(photo2, ImageSize.MEDIUM));
+        assertEquals(1, object.getHitCount());
+    }
+
+    @Test
+    public void get_largerThumbnailLoaded_reusesLargerImage() {
+        ImageCache object = new ImageCache(Long.MAX_VALUE, false);
+        Image large = object.load(photo1, ImageSize.LARGE);
+
+        assertSame(large, object.get(photo1, ImageSize.SMALL));
+        assertSame(large, object.get(photo1, ImageSize.MEDIUM));
+        assertEquals(2, object.getHitCount());
+        assertEquals(0, object.getMissCount());
+    }
+
+    @Test
+    public void get_smallerThumbnailLoaded_loadsLargerImage() {
+        ImageCache object = new ImageCache(Long.MAX_VALUE, false);
+        Image small = object.load(photo1, ImageSize.SMALL);
+
+        Image large = object.get(photo1, ImageSize.LARGE);
+
+        assertNotSame(small, large);
+        assertEquals(ImageSize.LARGE.width(), large.getWidth(), 0.0);
+        assertEquals(0, object.getHitCount());
+        assertEquals(1, object.getMissCount());
+    }
+
+    @Test
+    public void get_sameImageTwice_countsMissThenHit() {
+        ImageCache object = new ImageCache(Long.MAX_VALUE, false);
+
+        Image first = object.get(photo1, ImageSize.SMALL);
+        Image second = object.get(photo1, ImageSize.SMALL);
+
+        assertSame(first, second);
+        assertEquals(1, object.getMissCount());
+        assertEquals(1, object.getHitCount());
+        assertEquals(0, object.getEvictionCount());
+        assertEquals(SMALL_WEIGHT, object.getWeight());
+    }
+
+    private Path resource(String name) throws URISyntaxException {
+        return Paths.get(getClass().getResource(name).toURI());
+    }
+}
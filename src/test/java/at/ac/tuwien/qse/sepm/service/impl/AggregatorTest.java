@@ -29,6 +29,8 @@ package at.ac.tuwien.qse.sepm.service.impl;
 
 import org.junit.Test;
 
+import java.util.Map;
+
 import static org.junit.Assert.*;
 
 public class AggregatorTest {
@@ -93,4 +95,55 @@ public class AggregatorTest {
         object.remove(value);
         assertEquals(value, (int)object.iterator().next());
     }
+
+    @Test
+    public void contains_clearedAndAddedAgain_returnsTrue() {
+        Aggregator<Integer> object = new Aggregator<>();
+        int value = 12;
+        object.add(value);
+        object.clear();
+        assertFalse(object.contains(value));
+        object.add(value);
+        assertEquals(1, object.getCount(value));
+    }
+
+    @Test
+    public void pollChanged_added_returnsCount() {
+        Aggregator<Integer> object = new Aggregator<>();
+        object.add(12);
+        object.add(12);
+        Map<Integer, Integer> changed = object.pollChanged();
+        assertEquals(1, changed.size());
+        assertEquals(2, (int)changed.get(12));
+    }
+
+    @Test
+    public void pollChanged_calledTwice_returnsEmpty() {
+        Aggregator<Integer> object = new Aggregator<>();
+        object.add(12);
+        object.pollChanged();
+        assertTrue(object.pollChanged().isEmpty());
+    }
+
+    @Test
+    public void pollChanged_clearedAndAddedAgain_returnsEmpty() {
+        Aggregator<Integer> object = new Aggregator<>();
+        object.add(12);
+        object.pollChanged();
+        object.clear();
+        object.add(12);
+        assertTrue(object.pollChanged().isEmpty());
+    }
+
+    @Test
+    public void pollChanged_removed_returnsZero() {
+        Aggregator<Integer> object = new Aggregator<>();
+        object.add(12);
+        object.add(13);
+        object.pollChanged();
+        object.remove(12);
+        Map<Integer, Integer> changed = object.pollChanged();
+        assertEquals(1, changed.size());
+        assertEquals(0, (int)changed.get(12));
+    }
 }
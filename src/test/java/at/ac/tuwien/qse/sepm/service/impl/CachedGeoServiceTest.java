@@ -0,0 +1,148 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.DAOException;
+import at.ac.tuwien.qse.sepm.dao.GeocodeDAO;
+import at.ac.tuwien.qse.sepm.entities.Place;
+import at.ac.tuwien.qse.sepm.service.GeoService;
+import at.ac.tuwien.qse.sepm.service.ServiceException;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class CachedGeoServiceTest {
+
+    private GeoService delegate;
+    private GeocodeDAO geocodeDAO;
+    private CachedGeoService geoService;
+
+    @Before
+    public void setUp() {
+        delegate = mock(GeoService.class);
+        geocodeDAO = mock(GeocodeDAO.class);
+        geoService = new CachedGeoService(delegate, geocodeDAO);
+    }
+
+    @Test
+    public void getPlace_cached_doesNotAskDelegate() throws Exception {
+        when(geocodeDAO.read(4821, 1637)).thenReturn(new Place(1, "Vienna", "Austria", 48.21, 16.37));
+
+        Place place = geoService.getPlaceByGeoData(48.2082, 16.3738);
+
+        assertEquals("Vienna", place.getCity());
+        assertEquals(48.2082, place.getLatitude(), 0.0);
+        assertEquals(16.3738, place.getLongitude(), 0.0);
+        verify(delegate, never()).getPlaceByGeoData(anyDouble(), anyDouble());
+    }
+
+    @Test
+    public void getPlace_notCached_storesKnownPlace() throws Exception {
+        Place vienna = new Place(1, "Vienna", "Austria", 48.2082, 16.3738);
+        when(delegate.getPlaceByGeoData(48.2082, 16.3738)).thenReturn(vienna);
+
+        assertEquals(vienna, geoService.getPlaceByGeoData(48.2082, 16.3738));
+        verify(geocodeDAO).put(4821, 1637, vienna);
+    }
+
+    @Test
+    public void getPlace_unknownPlace_isNotStored() throws Exception {
+        Place unknown = new Place(1, "Unknown city", "Unknown country", 0, 0);
+        when(delegate.getPlaceByGeoData(0, 0)).thenReturn(unknown);
+
+        assertEquals("Unknown city", geoService.getPlaceByGeoData(0, 0).getCity());
+        verify(geocodeDAO, never()).put(anyInt(), anyInt(), any(Place.class));
+    }
+
+    @Test
+    public void getPlace_delegateFails_usesGazetteerAndBacksOff() throws Exception {
+        geoService.setGazetteer(new Gazetteer("target/test-classes/geocoding/cities.txt", 50_000));
+        when(delegate.getPlaceByGeoData(anyDouble(), anyDouble()))
+                .thenThrow(new ServiceException("offline"));
+
+        assertEquals("Denver", geoService.getPlaceByGeoData(39.7, -105.0).getCity());
+        assertEquals("Vienna", geoService.getPlaceByGeoData(48.2, 16.4).getCity());
+        verify(delegate, times(1)).getPlaceByGeoData(anyDouble(), anyDouble());
+    }
+
+    @Test(expected = ServiceException.class)
+    public void getPlace_delegateFailsWithoutGazetteer_throws() throws Exception {
+        when(delegate.getPlaceByGeoData(anyDouble(), anyDouble()))
+                .thenThrow(new ServiceException("offline"));
+
+        geoService.getPlaceByGeoData(48.2082, 16.3738);
+    }
+
+    @Test
+    public void getPlace_offlineWithoutGazetteer_throws() throws Exception {
+        when(delegate.getPlaceByGeoData(anyDouble(), anyDouble()))
+                .thenThrow(new ServiceException("offline"));
+        try {
+            geoService.getPlaceByGeoData(48.2082, 16.3738);
+            fail();
+        } catch (ServiceException ex) {
+            // expected
+        }
+
+        try {
+            geoService.getPlaceByGeoData(39.7, -105.0);
+            fail();
+        } catch (ServiceException ex) {
+            // expected
+        }
+        verify(delegate, times(1)).getPlaceByGeoData(anyDouble(), anyDouble());
+    }
+
+    @Test
+    public void getPlace_offlineWithoutNearbyCity_throws() throws Exception {
+        geoService.setGazetteer(new Gazetteer("target/test-classes/geocoding/cities.txt", 50_000));
+        when(delegate.getPlaceByGeoData(anyDouble(), anyDouble()))
+                .thenThrow(new ServiceException("offline"));
+        assertEquals("Denver", geoService.getPlaceByGeoData(39.7, -105.0).getCity());
+
+        try {
+            geoService.getPlaceByGeoData(0, 0);
+            fail();
+        } catch (ServiceException ex) {
+            // expected
+        }
+        verify(delegate, times(1)).getPlaceByGeoData(anyDouble(), anyDouble());
+    }
+
+    @Test
+    public void getPlace_cacheFails_asksDelegate() throws Exception {
+        Place vienna = new Place(1, "Vienna", "Austria", 48.2082, 16.3738);
+        when(geocodeDAO.read(anyInt(), anyInt())).thenThrow(new DAOException("broken"));
+        when(delegate.getPlaceByGeoData(48.2082, 16.3738)).thenReturn(vienna);
+
+        assertEquals(vienna, geoService.getPlaceByGeoData(48.2082, 16.3738));
+    }
+}
@@ -0,0 +1,149 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DensityClustererTest {
+
+    private final DensityClusterer object = new DensityClusterer(2000, 3);
+
+    @Test
+    public void cluster_empty_returnsNoClusters() {
+        DensityClusterer.Result result = object.cluster(new double[0], new double[0]);
+
+        assertEquals(0, result.getClusterCount());
+    }
+
+    @Test
+    public void cluster_twoDenseAreas_findsTwoClustersAndNoise() {
+        double[] latitudes = { 48.2082, 48.2090, 48.2075, 48.1486, 48.1490, 48.1480, 48.1485, 47.0 };
+        double[] longitudes = { 16.3738, 16.3740, 16.3730, 17.1077, 17.1080, 17.1070, 17.1075, 15.0 };
+
+        DensityClusterer.Result result = object.cluster(latitudes, longitudes);
+
+        assertEquals(2, result.getClusterCount());
+        assertEquals(0, result.getCluster(0));
+        assertEquals(0, result.getCluster(1));
+        assertEquals(0, result.getCluster(2));
+        assertEquals(1, result.getCluster(3));
+        assertEquals(1, result.getCluster(6));
+        assertEquals(DensityClusterer.NOISE, result.getCluster(7));
+        assertEquals(3, result.getSize(0));
+        assertEquals(4, result.getSize(1));
+        assertEquals(48.2082, result.getLatitude(0), 0.001);
+        assertEquals(16.3736, result.getLongitude(0), 0.001);
+    }
+
+    @Test
+    public void cluster_borderPosition_joinsCluster() {
+        // The last position has only two neighbors, but one of them is a core position.
+        double[] latitudes = { 0, 0, 0, 0 };
+        double[] longitudes = { 0, 0.001, 0.002, 0.019 };
+
+        DensityClusterer.Result result = object.cluster(latitudes, longitudes);
+
+        assertEquals(1, result.getClusterCount());
+        assertEquals(0, result.getCluster(3));
+    }
+
+    @Test
+    public void cluster_acrossAntimeridian_findsOneCluster() {
+        double[] latitudes = { -18.0, -18.0, -18.0, -18.0 };
+        double[] longitudes = { 179.995, 179.999, -179.999, -179.995 };
+
+        DensityClusterer.Result result = object.cluster(latitudes, longitudes);
+
+        assertEquals(1, result.getClusterCount());
+        assertEquals(180, Math.abs(result.getLongitude(0)), 0.001);
+    }
+
+    @Test
+    public void cluster_manyPositions_matchesBruteForce() {
+        Random random = new Random(42);
+        int n = 300;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = 60 + random.nextDouble() * 0.5;
+            longitudes[i] = 10 + random.nextDouble() * 0.5;
+        }
+
+        DensityClusterer.Result result = object.cluster(latitudes, longitudes);
+
+        // Brute force: core positions within the radius of each other share a cluster.
+        boolean[] core = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            int neighbors = 0;
+            for (int j = 0; j < n; j++) {
+                if (distance(latitudes, longitudes, i, j) <= 2000) neighbors++;
+            }
+            core[i] = neighbors >= 3;
+        }
+        int[] components = new int[n];
+        Arrays.fill(components, -1);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!core[i] || components[i] >= 0) continue;
+            Deque<Integer> stack = new ArrayDeque<>();
+            stack.push(i);
+            components[i] = count;
+            while (!stack.isEmpty()) {
+                int k = stack.pop();
+                for (int j = 0; j < n; j++) {
+                    if (core[j] && components[j] < 0 && distance(latitudes, longitudes, k, j) <= 2000) {
+                        components[j] = count;
+                        stack.push(j);
+                    }
+                }
+            }
+            count++;
+        }
+
+        assertEquals(count, result.getClusterCount());
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (core[i] && core[j]) {
+                    assertEquals(components[i] == components[j],
+                            result.getCluster(i) == result.getCluster(j));
+                }
+            }
+        }
+    }
+
+    private double distance(double[] latitudes, double[] longitudes, int i, int j) {
+        return SpatialIndex.distance(latitudes[i], longitudes[i], latitudes[j], longitudes[j]);
+    }
+}
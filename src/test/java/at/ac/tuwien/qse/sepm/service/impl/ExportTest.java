@@ -30,6 +30,7 @@ package at.ac.tuwien.qse.sepm.service.impl;
 
 import at.ac.tuwien.qse.sepm.dao.WithData;
 import at.ac.tuwien.qse.sepm.entities.Photo;
+import at.ac.tuwien.qse.sepm.service.ExportProgress;
 import at.ac.tuwien.qse.sepm.service.PhotoService;
 import at.ac.tuwien.qse.sepm.service.ServiceException;
 import at.ac.tuwien.qse.sepm.service.ServiceTestBase;
@@ -37,27 +38,45 @@ import at.ac.tuwien.qse.sepm.util.Cancelable;
 import at.ac.tuwien.qse.sepm.util.ErrorHandler;
 import at.ac.tuwien.qse.sepm.util.TestIOHandler;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.collection.IsEmptyCollection.empty;
+import static org.hamcrest.collection.IsIterableContainingInAnyOrder.containsInAnyOrder;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertTrue;
 
 public class ExportTest extends ServiceTestBase {
 
+    private static final FileTime MODIFIED = FileTime.fromMillis(1_400_000_000_000L);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Autowired
     private PhotoService photoService;
     @Autowired
@@ -87,6 +106,15 @@ public class ExportTest extends ServiceTestBase {
         exportService = Mockito.spy(exportService);
     }
 
+    private Path createFile(String directory, String name, String content) throws IOException {
+        Path parent = folder.getRoot().toPath().resolve(directory);
+        Files.createDirectories(parent);
+        Path file = parent.resolve(name);
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, MODIFIED);
+        return file;
+    }
+
     @Test
     public void test_dropboxAvailable_returnsPath() throws ServiceException {
         Mockito.when(exportService.getDropboxInfoPath()).thenReturn(getDropboxInfoPathVariant(0));
@@ -173,6 +201,117 @@ public class ExportTest extends ServiceTestBase {
     }
 
 
+    @Test
+    public void test_unchangedCopy_isSkipped() throws Exception {
+        Photo unchanged = new Photo(createFile("photos", "1.jpg", "first"));
+        Photo missing = new Photo(createFile("photos", "2.jpg", "second"));
+        Photo changed = new Photo(createFile("photos", "3.jpg", "third"));
+        createFile("export", "1.jpg", "first");
+        createFile("export", "3.jpg", "changed");
+        Path destination = folder.getRoot().toPath().resolve("export");
+
+        TestPhotoAcceptor acceptor = new TestPhotoAcceptor();
+        TestErrorHandler errorHandler = new TestErrorHandler();
+        Cancelable task = exportService.exportPhotos(Arrays.asList(unchanged, missing, changed),
+                destination.toString(), acceptor, errorHandler);
+        awaitCompletion(task);
+
+        assertThat(errorHandler.exceptionOccured(), is(false));
+        assertThat(acceptor.getAccepted(), containsInAnyOrder(unchanged, missing, changed));
+        List<Path> sources = ioHandler.copiedFiles.stream()
+                .map(op -> op.source)
+                .collect(Collectors.toList());
+        assertThat(sources, containsInAnyOrder(missing.getFile(), changed.getFile()));
+    }
+
+    @Test
+    public void test_sameFileNames_exportedToDifferentFiles() throws Exception {
+        Photo first = new Photo(createFile("a", "1.jpg", "first"));
+        Photo second = new Photo(createFile("b", "1.jpg", "second"));
+        Path destination = folder.newFolder("export").toPath();
+
+        TestErrorHandler errorHandler = new TestErrorHandler();
+        Cancelable task = exportService.exportPhotos(Arrays.asList(first, second),
+                destination.toString(), new TestPhotoAcceptor(), errorHandler);
+        awaitCompletion(task);
+
+        assertThat(errorHandler.exceptionOccured(), is(false));
+        List<Path> targets = ioHandler.copiedFiles.stream()
+                .map(op -> op.dest)
+                .collect(Collectors.toList());
+        assertThat(targets, containsInAnyOrder(destination.resolve("1.jpg"),
+                destination.resolve("1_1.jpg")));
+    }
+
+    @Test
+    public void test_export_reportsProgress() throws Exception {
+        Photo first = new Photo(createFile("photos", "1.jpg", "first"));
+        Photo second = new Photo(createFile("photos", "2.jpg", "second"));
+        Path destination = folder.newFolder("export").toPath();
+        List<ExportProgress> reports = Collections.synchronizedList(new ArrayList<>());
+
+        Cancelable task = exportService.exportPhotos(Arrays.asList(first, second),
+                destination.toString(), new TestPhotoAcceptor(), reports::add,
+                new TestErrorHandler());
+        awaitCompletion(task);
+
+        assertThat(reports, not(empty()));
+        ExportProgress last = reports.get(reports.size() - 1);
+        assertThat(last.getExportedFiles(), is(2));
+        assertThat(last.getTotalFiles(), is(2));
+        assertThat(last.getTotalBytes(), is((long) ("first".length() + "second".length())));
+    }
+
+    @Test
+    public void test_exportArchive_containsPhotos() throws Exception {
+        Photo first = new Photo(createFile("a", "1.jpg", "first"));
+        Photo second = new Photo(createFile("b", "1.jpg", "second"));
+        Path archive = folder.getRoot().toPath().resolve("export.zip");
+
+        TestPhotoAcceptor acceptor = new TestPhotoAcceptor();
+        TestErrorHandler errorHandler = new TestErrorHandler();
+        Cancelable task = exportService.exportArchive(Arrays.asList(first, second),
+                archive.toString(), acceptor, progress -> { }, errorHandler);
+        awaitCompletion(task);
+
+        assertThat(errorHandler.exceptionOccured(), is(false));
+        assertThat(acceptor.getAccepted(), containsInAnyOrder(first, second));
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertThat(zip.size(), is(2));
+            assertEntry(zip, "1.jpg", "first");
+            assertEntry(zip, "1_1.jpg", "second");
+        }
+    }
+
+    @Test
+    public void test_exportArchiveOfMissingPhoto_deletesArchive() throws Exception {
+        Photo existing = new Photo(createFile("a", "1.jpg", "first"));
+        Photo missing = new Photo(folder.getRoot().toPath().resolve("a/2.jpg"));
+        Path archive = folder.getRoot().toPath().resolve("export.zip");
+
+        TestErrorHandler errorHandler = new TestErrorHandler();
+        Cancelable task = exportService.exportArchive(Arrays.asList(existing, missing),
+                archive.toString(), new TestPhotoAcceptor(), progress -> { }, errorHandler);
+        awaitCompletion(task);
+
+        assertTrue(errorHandler.exceptionOccured());
+        assertThat(Files.exists(archive), is(false));
+    }
+
+    private void assertEntry(ZipFile zip, String name, String content) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        assertThat(entry.getTime(), is(MODIFIED.toMillis()));
+        byte[] data = new byte[(int) entry.getSize()];
+        try (InputStream in = zip.getInputStream(entry)) {
+            int offset = 0;
+            int read;
+            while (offset < data.length && (read = in.read(data, offset, data.length - offset)) > 0) {
+                offset += read;
+            }
+        }
+        assertThat(new String(data, StandardCharsets.UTF_8), equalTo(content));
+    }
+
     private class TestPhotoAcceptor implements Consumer<Photo> {
         List<Photo> accepted = new ArrayList<>();
 
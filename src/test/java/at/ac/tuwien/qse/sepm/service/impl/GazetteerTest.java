@@ -0,0 +1,87 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Place;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class GazetteerTest {
+
+    private static final String FILE = "target/test-classes/geocoding/cities.txt";
+
+    private Gazetteer gazetteer;
+
+    @Before
+    public void setUp() {
+        gazetteer = new Gazetteer(FILE, 50_000);
+    }
+
+    @Test
+    public void create_skipsMalformedLines() {
+        assertEquals(4, gazetteer.size());
+    }
+
+    @Test
+    public void create_emptyPath_hasNoCities() {
+        Gazetteer empty = new Gazetteer("", 50_000);
+
+        assertEquals(0, empty.size());
+        assertNull(empty.lookup(48.2082, 16.3738));
+    }
+
+    @Test
+    public void create_missingFile_hasNoCities() {
+        assertEquals(0, new Gazetteer("target/test-classes/geocoding/missing.txt", 50_000).size());
+    }
+
+    @Test
+    public void lookup_nearCity_returnsCityAndCountry() {
+        Place place = gazetteer.lookup(48.1, 16.3);
+
+        assertEquals("Vienna", place.getCity());
+        assertEquals(new Locale("", "AT").getDisplayCountry(), place.getCountry());
+        assertEquals(48.1, place.getLatitude(), 0.0);
+        assertEquals(16.3, place.getLongitude(), 0.0);
+    }
+
+    @Test
+    public void lookup_betweenCities_returnsNearest() {
+        assertEquals("San Francisco", gazetteer.lookup(37.8, -122.3).getCity());
+        assertEquals("Durr\u00ebs", gazetteer.lookup(41.3, 19.5).getCity());
+    }
+
+    @Test
+    public void lookup_farFromCities_returnsNull() {
+        assertNull(gazetteer.lookup(0, 0));
+    }
+}
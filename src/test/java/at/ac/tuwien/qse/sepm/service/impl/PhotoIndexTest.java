@@ -0,0 +1,348 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+public class PhotoIndexTest {
+
+    private final Tag blue = new Tag(1, "blue");
+    private final Tag red = new Tag(2, "red");
+    private final Place bombay = new Place(1, "Bombay", "India", 10, 20);
+    private final Photographer john = new Photographer(1, "John");
+
+    private PhotoIndex index;
+
+    @Before
+    public void setUp() {
+        index = new PhotoIndex();
+    }
+
+    private Photo createPhoto(int id, Rating rating, Tag... tags) {
+        Photo photo = new Photo();
+        photo.setId(id);
+        photo.setPath(id + ".jpg");
+        photo.getData().setRating(rating);
+        photo.getData().setPhotographer(john);
+        photo.getData().setDatetime(LocalDateTime.of(2015, 6, 1, 0, 0));
+        photo.getData().setPlace(bombay);
+        for (Tag tag : tags) {
+            photo.getData().getTags().add(tag);
+        }
+        return photo;
+    }
+
+    private PhotoFilter createFilter() {
+        PhotoFilter filter = new PhotoFilter();
+        filter.getRatingFilter().getIncluded().add(Rating.NONE);
+        filter.getRatingFilter().getIncluded().add(Rating.GOOD);
+        filter.getPhotographerFilter().getIncluded().add(john);
+        filter.getPlaceFilter().getIncluded().add(bombay);
+        filter.getJourneyFilter().getIncluded().add(null);
+        return filter;
+    }
+
+    // Check that the index returns the same photos as testing them one by one.
+    private void assertMatchesFilter(PhotoFilter filter, Photo... photos) {
+        List<Photo> result = index.filter(filter);
+        int expected = 0;
+        for (Photo photo : photos) {
+            if (filter.test(photo)) {
+                assertTrue(result.contains(photo));
+                expected++;
+            }
+        }
+        assertEquals(expected, result.size());
+    }
+
+    @Test
+    public void filter_ratingsAndTags_matchesPhotoFilter() {
+        Photo a = createPhoto(1, Rating.NONE, blue);
+        Photo b = createPhoto(2, Rating.GOOD, blue, red);
+        Photo c = createPhoto(3, Rating.BAD, red);
+        index.put(a);
+        index.put(b);
+        index.put(c);
+
+        PhotoFilter filter = createFilter();
+        assertMatchesFilter(filter, a, b, c);
+
+        filter.getTagFilter().getRequired().add(red);
+        assertMatchesFilter(filter, a, b, c);
+
+        filter.getTagFilter().getRequired().clear();
+        filter.getTagFilter().getForbidden().add(red);
+        assertMatchesFilter(filter, a, b, c);
+    }
+
+    @Test
+    public void filter_nullTag_matchesPhotosWithoutTags() {
+        Photo a = createPhoto(1, Rating.NONE);
+        Photo b = createPhoto(2, Rating.NONE, blue);
+        Photo c = createPhoto(3, Rating.GOOD);
+        index.put(a);
+        index.put(b);
+        index.put(c);
+
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(null);
+        List<Photo> result = index.filter(filter);
+        assertEquals(2, result.size());
+        assertTrue(result.contains(a));
+        assertTrue(result.contains(c));
+        assertMatchesFilter(filter, a, b, c);
+
+        filter.getTagFilter().getRequired().clear();
+        filter.getTagFilter().getForbidden().add(null);
+        result = index.filter(filter);
+        assertEquals(1, result.size());
+        assertEquals(b, result.get(0));
+        assertMatchesFilter(filter, a, b, c);
+    }
+
+    @Test
+    public void filter_nullTagAfterTagsRemoved_matchesPhoto() {
+        index.put(createPhoto(1, Rating.NONE, blue));
+        Photo updated = createPhoto(1, Rating.NONE);
+        index.put(updated);
+
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(null);
+        assertEquals(updated, index.filter(filter).get(0));
+
+        filter.getTagFilter().getRequired().clear();
+        filter.getTagFilter().getRequired().add(blue);
+        assertTrue(index.filter(filter).isEmpty());
+    }
+
+    @Test
+    public void filter_unknownTagRequired_noMatch() {
+        index.put(createPhoto(1, Rating.NONE, blue));
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(new Tag(3, "green"));
+
+        assertTrue(index.filter(filter).isEmpty());
+    }
+
+    @Test
+    public void filter_otherPredicate_testsPhotos() {
+        index.put(createPhoto(1, Rating.NONE));
+        index.put(createPhoto(2, Rating.GOOD));
+        Predicate<Photo> filter = photo -> photo.getData().getRating() == Rating.GOOD;
+
+        List<Photo> result = index.filter(filter);
+        assertEquals(1, result.size());
+        assertEquals(Integer.valueOf(2), result.get(0).getId());
+    }
+
+    @Test
+    public void put_existingFile_replacesPhoto() {
+        index.put(createPhoto(1, Rating.NONE, blue));
+        Photo updated = createPhoto(1, Rating.GOOD, red);
+        index.put(updated);
+
+        assertEquals(1, index.size());
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(blue);
+        assertTrue(index.filter(filter).isEmpty());
+        filter.getTagFilter().getRequired().clear();
+        filter.getTagFilter().getRequired().add(red);
+        assertEquals(updated, index.filter(filter).get(0));
+    }
+
+    @Test
+    public void remove_existing_keepsOrderOfOthers() {
+        Photo a = createPhoto(1, Rating.NONE, blue);
+        Photo b = createPhoto(2, Rating.NONE, blue);
+        Photo c = createPhoto(3, Rating.NONE, blue);
+        index.put(a);
+        index.put(b);
+        index.put(c);
+
+        assertTrue(index.remove(Paths.get("1.jpg")));
+        assertFalse(index.remove(Paths.get("1.jpg")));
+
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(blue);
+        List<Photo> result = index.filter(filter);
+        assertEquals(2, result.size());
+        assertEquals(b, result.get(0));
+        assertEquals(c, result.get(1));
+    }
+
+    @Test
+    public void remove_mostPhotos_compactsIndex() {
+        for (int i = 0; i < 3000; i++) {
+            index.put(createPhoto(i, Rating.NONE, i % 2 == 0 ? blue : red));
+        }
+        for (int i = 0; i < 2900; i++) {
+            index.remove(Paths.get(i + ".jpg"));
+        }
+
+        assertEquals(100, index.size());
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(blue);
+        List<Photo> result = index.filter(filter);
+        assertEquals(50, result.size());
+        assertEquals(Integer.valueOf(2900), result.get(0).getId());
+    }
+
+    @Test
+    public void getAll_returnsCopies() {
+        index.put(createPhoto(1, Rating.NONE));
+        index.getAll().get(0).getData().setRating(Rating.GOOD);
+
+        assertEquals(Rating.NONE, index.getAll().get(0).getData().getRating());
+    }
+
+    @Test
+    public void filter_differentDates_newestFirst() {
+        Photo older = createPhoto(1, Rating.NONE);
+        Photo newer = createPhoto(2, Rating.NONE);
+        newer.getData().setDatetime(LocalDateTime.of(2015, 7, 1, 0, 0));
+        index.put(older);
+        index.put(newer);
+
+        PhotoIdList result = index.filter(createFilter());
+        assertEquals(2, result.getId(0));
+        assertEquals(1, result.getId(1));
+        assertEquals(newer, result.get(0));
+    }
+
+    @Test
+    public void filter_datetimeChanged_reordersPhoto() {
+        Photo a = createPhoto(1, Rating.NONE);
+        Photo b = createPhoto(2, Rating.NONE);
+        b.getData().setDatetime(LocalDateTime.of(2015, 7, 1, 0, 0));
+        index.put(a);
+        index.put(b);
+
+        Photo updated = createPhoto(1, Rating.NONE);
+        updated.getData().setDatetime(LocalDateTime.of(2015, 8, 1, 0, 0));
+        index.put(updated);
+
+        PhotoIdList result = index.filter(createFilter());
+        assertEquals(2, result.size());
+        assertEquals(1, result.getId(0));
+        assertEquals(2, result.getId(1));
+    }
+
+    @Test
+    public void filter_manyChanges_newestFirstThenById() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            Photo photo = createPhoto(random.nextInt(500), Rating.NONE);
+            photo.getData().setDatetime(LocalDateTime.of(2015, 1, 1 + random.nextInt(28), 0, 0));
+            if (random.nextInt(4) == 0) {
+                index.remove(photo.getFile());
+            } else {
+                index.put(photo);
+            }
+        }
+
+        List<Photo> expected = index.getAll();
+        expected.sort((a, b) -> {
+            int result = b.getData().getDatetime().compareTo(a.getData().getDatetime());
+            return result != 0 ? result : a.getId().compareTo(b.getId());
+        });
+        assertEquals(expected, index.filter(createFilter()));
+    }
+
+    @Test
+    public void putAll_replacesAndAddsPhotos_newestFirst() {
+        index.put(createPhoto(1, Rating.NONE, blue));
+        index.put(createPhoto(2, Rating.NONE, blue));
+        Photo replaced = createPhoto(1, Rating.GOOD, red);
+        replaced.getData().setDatetime(LocalDateTime.of(2015, 8, 1, 0, 0));
+        Photo added = createPhoto(3, Rating.NONE, red);
+        Photo addedTwice = createPhoto(3, Rating.NONE, blue);
+        addedTwice.getData().setDatetime(LocalDateTime.of(2015, 7, 1, 0, 0));
+
+        index.putAll(Arrays.asList(replaced, added, addedTwice));
+
+        assertEquals(3, index.size());
+        PhotoIdList result = index.filter(createFilter());
+        assertEquals(3, result.size());
+        assertEquals(1, result.getId(0));
+        assertEquals(3, result.getId(1));
+        assertEquals(2, result.getId(2));
+
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(red);
+        assertEquals(Arrays.asList(replaced), index.filter(filter));
+    }
+
+    @Test
+    public void putAll_manyPhotosThenCompact_newestFirstThenById() {
+        Random random = new Random(7);
+        List<Photo> loaded = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Photo photo = createPhoto(i, Rating.NONE, i % 2 == 0 ? blue : red);
+            photo.getData().setDatetime(LocalDateTime.of(2015, 1, 1 + random.nextInt(28), 0, 0));
+            loaded.add(photo);
+        }
+        index.putAll(loaded);
+        for (int i = 0; i < 2000; i++) {
+            index.remove(Paths.get(i + ".jpg"));
+        }
+
+        List<Photo> expected = new ArrayList<>(loaded.subList(2000, 3000));
+        expected.sort((a, b) -> {
+            int result = b.getData().getDatetime().compareTo(a.getData().getDatetime());
+            return result != 0 ? result : a.getId().compareTo(b.getId());
+        });
+        assertEquals(expected, index.filter(createFilter()));
+
+        PhotoFilter filter = createFilter();
+        filter.getTagFilter().getRequired().add(blue);
+        assertEquals(500, index.filter(filter).size());
+    }
+
+    @Test
+    public void filter_resultSet_replacesPhoto() {
+        index.put(createPhoto(1, Rating.NONE));
+        PhotoIdList result = index.filter(createFilter());
+        Photo updated = createPhoto(1, Rating.GOOD);
+
+        result.set(0, updated);
+        assertEquals(updated, result.get(0));
+        assertEquals(Rating.NONE, index.getAll().get(0).getData().getRating());
+    }
+}
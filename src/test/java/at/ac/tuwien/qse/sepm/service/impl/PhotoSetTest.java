@@ -0,0 +1,94 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Photo;
+import at.ac.tuwien.qse.sepm.entities.PhotoMetadata;
+import at.ac.tuwien.qse.sepm.entities.Rating;
+import at.ac.tuwien.qse.sepm.entities.Tag;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+
+import static org.junit.Assert.*;
+
+public class PhotoSetTest {
+
+    private Photo createPhoto(int id, Rating rating, Tag... tags) {
+        PhotoMetadata data = new PhotoMetadata();
+        data.setRating(rating);
+        for (Tag tag : tags) {
+            data.getTags().add(tag);
+        }
+        return new Photo(id, Paths.get("photo" + id + ".jpg"), data);
+    }
+
+    @Test
+    public void add_twoPhotos_countsValues() {
+        PhotoSet object = new PhotoSet();
+        Tag tag = new Tag(1, "a");
+        object.add(createPhoto(1, Rating.GOOD, tag));
+        object.add(createPhoto(2, Rating.BAD, tag));
+        assertEquals(2, object.getTags().getCount(tag));
+        assertEquals(1, object.getRatings().getCount(Rating.GOOD));
+        assertEquals(1, object.getRatings().getCount(Rating.BAD));
+    }
+
+    @Test
+    public void remove_modifiedAfterAdd_removesCountedValues() {
+        PhotoSet object = new PhotoSet();
+        Photo photo = createPhoto(1, Rating.GOOD);
+        object.add(photo);
+        photo.getData().setRating(Rating.BAD);
+        object.remove(photo);
+        assertEquals(0, object.getRatings().getCount(Rating.GOOD));
+        assertEquals(0, object.getRatings().getCount(Rating.BAD));
+    }
+
+    @Test
+    public void add_modifiedAndAddedAgain_countsNewValues() {
+        PhotoSet object = new PhotoSet();
+        Photo photo = createPhoto(1, Rating.GOOD);
+        object.add(photo);
+        photo.getData().setRating(Rating.BAD);
+        object.remove(photo);
+        object.add(photo);
+        assertEquals(0, object.getRatings().getCount(Rating.GOOD));
+        assertEquals(1, object.getRatings().getCount(Rating.BAD));
+    }
+
+    @Test
+    public void addAll_idList_countsWithoutCopies() {
+        PhotoSet object = new PhotoSet();
+        Photo[] photos = { createPhoto(1, Rating.GOOD), createPhoto(2, Rating.GOOD) };
+        PhotoIdList list = new PhotoIdList(new int[] { 1, 2 }, photos);
+        object.addAll(list);
+        assertEquals(2, object.getRatings().getCount(Rating.GOOD));
+        assertTrue(object.contains(photos[0]));
+    }
+}
@@ -0,0 +1,114 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.entities.Place;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class PlaceIndexTest {
+
+    private final Place vienna = new Place(1, "Vienna", "Austria", 48.2082, 16.3738);
+    private final Place bratislava = new Place(2, "Bratislava", "Slovakia", 48.1486, 17.1077);
+    private final Place paris = new Place(3, "Paris", "France", 48.8566, 2.3522);
+    private final Place suva = new Place(4, "Suva", "Fiji", -18.1248, 178.4501);
+
+    private PlaceIndex index;
+
+    @Before
+    public void setUp() {
+        index = new PlaceIndex();
+    }
+
+    @Test
+    public void distance_knownCities_isAccurate() {
+        double d = PlaceIndex.distance(vienna.getLatitude(), vienna.getLongitude(),
+                paris.getLatitude(), paris.getLongitude());
+        assertEquals(1034000, d, 5000);
+    }
+
+    @Test
+    public void nearest_empty_returnsNull() {
+        assertNull(index.nearest(48, 16, 100_000));
+    }
+
+    @Test
+    public void nearest_returnsClosestWithinDistance() {
+        index.addAll(Arrays.asList(vienna, bratislava, paris));
+
+        assertEquals(bratislava, index.nearest(48.15, 17.0, 100_000));
+        assertEquals(vienna, index.nearest(48.2, 16.4, 100_000));
+        assertNull(index.nearest(50, 10, 100_000));
+    }
+
+    @Test
+    public void nearest_acrossAntimeridian_findsPlace() {
+        index.add(suva);
+
+        assertEquals(suva, index.nearest(-18.0, -179.8, 300_000));
+    }
+
+    @Test
+    public void nearest_nearPole_findsPlace() {
+        Place station = new Place(5, "Station", "Antarctica", -89.9, 0);
+        index.add(station);
+
+        assertEquals(station, index.nearest(-89.95, 179, 100_000));
+    }
+
+    @Test
+    public void within_returnsAllInDistance() {
+        index.addAll(Arrays.asList(vienna, bratislava, paris));
+
+        assertEquals(new HashSet<>(Arrays.asList(vienna, bratislava)),
+                new HashSet<>(index.within(48.2, 16.7, 100_000)));
+    }
+
+    @Test
+    public void add_equalPlace_replaces() {
+        index.add(vienna);
+        index.add(new Place(1, "Vienna", "Austria", 10, 10));
+
+        assertEquals(1, index.size());
+        assertNull(index.nearest(vienna.getLatitude(), vienna.getLongitude(), 100_000));
+    }
+
+    @Test
+    public void remove_removesPlace() {
+        index.addAll(Arrays.asList(vienna, bratislava));
+
+        assertTrue(index.remove(bratislava));
+        assertFalse(index.remove(bratislava));
+        assertEquals(vienna, index.nearest(48.15, 17.0, 100_000));
+    }
+}
@@ -0,0 +1,116 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.util.LaneExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class ThumbnailServiceTest {
+
+    private static final long TIMEOUT = 5000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path photo;
+    private LaneExecutor executor;
+    private ThumbnailServiceImpl object;
+
+    @Before
+    public void setUp() throws IOException {
+        photo = folder.getRoot().toPath().resolve("photo.jpg");
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "jpg", photo.toFile());
+        executor = new LaneExecutor(Collections.singletonMap(LaneExecutor.Lane.INTERACTIVE, 2), 16);
+        object = new ThumbnailServiceImpl(folder.newFolder("thumbnails").toString(), executor);
+    }
+
+    @After
+    public void tearDown() {
+        executor.close();
+    }
+
+    private Path awaitThumbnail(int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            Path thumbnail = object.getThumbnail(photo, size);
+            if (thumbnail != null) {
+                return thumbnail;
+            }
+            Thread.sleep(20);
+        }
+        return null;
+    }
+
+    @Test
+    public void getThumbnail_notGenerated_returnsNull() {
+        assertNull(object.getThumbnail(photo, 150));
+    }
+
+    @Test
+    public void getThumbnail_generated_hasShorterSideOfSize() throws Exception {
+        object.generate(photo);
+        Path thumbnail = awaitThumbnail(150);
+        assertNotNull(thumbnail);
+        BufferedImage image = ImageIO.read(thumbnail.toFile());
+        assertEquals(150, image.getHeight());
+        assertEquals(200, image.getWidth());
+    }
+
+    @Test
+    public void getThumbnail_photoModified_returnsNull() throws Exception {
+        object.generate(photo);
+        assertNotNull(awaitThumbnail(100));
+        Files.setLastModifiedTime(photo, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+        assertNull(object.getThumbnail(photo, 100));
+        // The outdated thumbnail is generated again.
+        assertNotNull(awaitThumbnail(100));
+    }
+
+    @Test
+    public void delete_generated_removesThumbnails() throws Exception {
+        object.generate(photo);
+        Path thumbnail = awaitThumbnail(300);
+        assertNotNull(thumbnail);
+        object.delete(photo);
+        assertFalse(Files.exists(thumbnail));
+    }
+}
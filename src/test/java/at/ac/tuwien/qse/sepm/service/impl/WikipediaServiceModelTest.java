@@ -0,0 +1,205 @@
+package at.ac.tuwien.qse.sepm.service.impl;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.dao.WikiPlaceInfoDAO;
+import at.ac.tuwien.qse.sepm.entities.Place;
+import at.ac.tuwien.qse.sepm.entities.WikiPlaceInfo;
+import at.ac.tuwien.qse.sepm.service.ServiceException;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the Wikipedia service against a local model that stands in for DBpedia.
+ */
+public class WikipediaServiceModelTest {
+
+    private WikiPlaceInfoDAO wikiPlaceInfoDAO;
+    private LaneExecutor executor;
+    private WikipediaServiceImpl wikipediaService;
+
+    @Before
+    public void setUp() {
+        Model model = ModelFactory.createDefaultModel();
+        model.read(getClass().getResourceAsStream("/wikipedia/dbpedia.ttl"), null, "TTL");
+
+        // keep the stored infos in memory like the database would
+        Map<Place, WikiPlaceInfo> stored = new ConcurrentHashMap<>();
+        wikiPlaceInfoDAO = mock(WikiPlaceInfoDAO.class);
+        when(wikiPlaceInfoDAO.read(any(Place.class), any(LocalDateTime.class)))
+                .thenAnswer(invocation -> stored.get(invocation.getArguments()[0]));
+        doAnswer(invocation -> stored.put((Place) invocation.getArguments()[0],
+                (WikiPlaceInfo) invocation.getArguments()[1]))
+                .when(wikiPlaceInfoDAO).put(any(Place.class), any(WikiPlaceInfo.class));
+        executor = new LaneExecutor(Collections.singletonMap(LaneExecutor.Lane.NETWORK, 1), 16);
+        wikipediaService = new WikipediaServiceImpl(model, wikiPlaceInfoDAO, executor, 30);
+    }
+
+    @After
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void getWikiPlaceInfos_severalPlaces_returnsInfoOfEach() throws Exception {
+        Place gleisdorf = new Place(null, "Gleisdorf", "Österreich", 0.0, 0.0);
+        Place brighton = new Place(null, "Brighton", "UK", 0.0, 0.0);
+        Place unknown = new Place(null, "asdfagasdd", "UK", 0.0, 0.0);
+
+        Map<Place, WikiPlaceInfo> infos = wikipediaService.getWikiPlaceInfos(
+                Arrays.asList(gleisdorf, brighton, unknown));
+
+        WikiPlaceInfo gleisdorfInfo = infos.get(gleisdorf);
+        assertEquals("Gleisdorf", gleisdorfInfo.getPlaceName());
+        assertEquals("Euro", gleisdorfInfo.getCurrency());
+        assertEquals("GMT+01", gleisdorfInfo.getUtcOffset());
+        assertEquals(4.76, gleisdorfInfo.getArea(), 1e-6);
+        assertEquals(365, gleisdorfInfo.getElevation(), 1e-6);
+        assertEquals(5706, gleisdorfInfo.getPopulation().intValue());
+        assertSame(gleisdorfInfo, gleisdorf.getWikiPlaceInfo());
+
+        WikiPlaceInfo brightonInfo = infos.get(brighton);
+        assertEquals("GMT+0", brightonInfo.getUtcOffset());
+        assertTrue(brightonInfo.getLanguage().contains("Scots"));
+        assertTrue(brightonInfo.getLanguage().contains("Englische Sprache"));
+
+        assertEquals("Keine Information verfügbar.", infos.get(unknown).getDescription());
+
+        verify(wikiPlaceInfoDAO).put(gleisdorf, gleisdorfInfo);
+        verify(wikiPlaceInfoDAO).put(brighton, brightonInfo);
+        verify(wikiPlaceInfoDAO).put(unknown, infos.get(unknown));
+    }
+
+    @Test
+    public void getWikiPlaceInfo_cached_returnsCachedInfo() throws Exception {
+        Place gleisdorf = new Place(null, "Gleisdorf", "Österreich", 0.0, 0.0);
+        WikiPlaceInfo cached = new WikiPlaceInfo("Gleisdorf", "Österreich", "cached", null,
+                null, null, null, null, null);
+        when(wikiPlaceInfoDAO.read(eq(gleisdorf), any(LocalDateTime.class))).thenReturn(cached);
+
+        assertSame(cached, wikipediaService.getWikiPlaceInfo(gleisdorf));
+        verify(wikiPlaceInfoDAO, never()).put(any(Place.class), any(WikiPlaceInfo.class));
+    }
+
+    @Test
+    public void loadWikiPlaceInfo_validPlace_callsBack() throws Exception {
+        Place gleisdorf = new Place(null, "Gleisdorf", "Österreich", 0.0, 0.0);
+        CompletableFuture<WikiPlaceInfo> result = new CompletableFuture<>();
+
+        wikipediaService.loadWikiPlaceInfo(gleisdorf, result::complete,
+                result::completeExceptionally);
+
+        assertEquals("Gleisdorf", result.get(5, TimeUnit.SECONDS).getPlaceName());
+    }
+
+    @Test
+    public void loadWikiPlaceInfo_invalidPlace_propagatesError() throws Exception {
+        CompletableFuture<WikiPlaceInfo> result = new CompletableFuture<>();
+
+        wikipediaService.loadWikiPlaceInfo(new Place(null, null, null, 0.0, 0.0),
+                result::complete, result::completeExceptionally);
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    public void prefetchWikiPlaceInfos_severalPlaces_queriesEachPlaceOnce() throws Exception {
+        Place gleisdorf = new Place(null, "Gleisdorf", "Österreich", 0.0, 0.0);
+        Place brighton = new Place(null, "Brighton", "UK", 0.0, 0.0);
+        CompletableFuture<WikiPlaceInfo> result = new CompletableFuture<>();
+
+        wikipediaService.prefetchWikiPlaceInfos(Arrays.asList(gleisdorf, brighton));
+        wikipediaService.loadWikiPlaceInfo(new Place(null, "Brighton", "UK", 0.0, 0.0),
+                result::complete, result::completeExceptionally);
+
+        assertEquals("Brighton", result.get(5, TimeUnit.SECONDS).getPlaceName());
+        verify(wikiPlaceInfoDAO, timeout(5000)).put(eq(gleisdorf), any(WikiPlaceInfo.class));
+        verify(wikiPlaceInfoDAO, times(1)).put(eq(brighton), any(WikiPlaceInfo.class));
+    }
+
+    @Test
+    public void prefetchWikiPlaceInfos_moreThanBatch_submitsTaskPerBatch() throws Exception {
+        List<Place> places = new ArrayList<>();
+        for (int i = 0; i <= WikipediaServiceImpl.BATCH_SIZE; i++) {
+            places.add(new Place(null, "Unknown" + i, "UK", 0.0, 0.0));
+        }
+
+        wikipediaService.prefetchWikiPlaceInfos(places);
+
+        assertEquals(2, executor.getMetrics(LaneExecutor.Lane.NETWORK).getSubmitted());
+        verify(wikiPlaceInfoDAO, timeout(5000).times(places.size()))
+                .put(any(Place.class), any(WikiPlaceInfo.class));
+    }
+
+    @Test
+    public void loadWikiPlaceInfo_placeQueuedForPrefetch_doesNotWaitForPrefetch() throws Exception {
+        Place gleisdorf = new Place(null, "Gleisdorf", "Österreich", 0.0, 0.0);
+        Place brighton = new Place(null, "Brighton", "UK", 0.0, 0.0);
+        CompletableFuture<WikiPlaceInfo> result = new CompletableFuture<>();
+
+        // keep the only network thread busy, so that the prefetch remains queued
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(LaneExecutor.Lane.NETWORK, LaneExecutor.Priority.NORMAL, () -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        });
+        started.await();
+        wikipediaService.prefetchWikiPlaceInfos(Arrays.asList(gleisdorf, brighton));
+        wikipediaService.loadWikiPlaceInfo(new Place(null, "Brighton", "UK", 0.0, 0.0),
+                result::complete, result::completeExceptionally);
+        release.countDown();
+
+        assertEquals("Brighton", result.get(5, TimeUnit.SECONDS).getPlaceName());
+        verify(wikiPlaceInfoDAO, timeout(5000)).put(eq(gleisdorf), any(WikiPlaceInfo.class));
+        InOrder inOrder = inOrder(wikiPlaceInfoDAO);
+        inOrder.verify(wikiPlaceInfoDAO).put(eq(brighton), any(WikiPlaceInfo.class));
+        inOrder.verify(wikiPlaceInfoDAO).put(eq(gleisdorf), any(WikiPlaceInfo.class));
+        verify(wikiPlaceInfoDAO, times(1)).put(eq(brighton), any(WikiPlaceInfo.class));
+    }
+}
@@ -27,7 +27,7 @@ package at.ac.tuwien.qse.sepm.service.impl;
  * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
  */
 
-import at.ac.tuwien.qse.sepm.dao.repo.impl.PollingFileWatcher;
+import at.ac.tuwien.qse.sepm.dao.repo.impl.NioFileWatcher;
 import at.ac.tuwien.qse.sepm.service.*;
 
 import java.nio.file.Path;
@@ -42,7 +42,7 @@ import static org.junit.Assert.assertEquals;
 public class WorkspaceServiceTest extends ServiceTestBase {
 
     @Autowired WorkspaceService workspaceService;
-    @Autowired PollingFileWatcher watcher;
+    @Autowired NioFileWatcher watcher;
 
     private static final Path sourceDir1 = Paths
             .get(System.getProperty("os.name").contains("indow") ?
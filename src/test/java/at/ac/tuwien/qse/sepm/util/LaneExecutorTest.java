@@ -0,0 +1,150 @@
+package at.ac.tuwien.qse.sepm.util;
+
+/*
+ * Copyright (c) 2015 Lukas Eibensteiner
+ * Copyright (c) 2015 Kristoffer Kleine
+ * Copyright (c) 2015 Branko Majic
+ * Copyright (c) 2015 Enri Miho
+ * Copyright (c) 2015 David Peherstorfer
+ * Copyright (c) 2015 Marian Stoschitzky
+ * Copyright (c) 2015 Christoph Wasylewski
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the "Software"), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT
+ * SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM,
+ * DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR
+ * THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Lane;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Metrics;
+import at.ac.tuwien.qse.sepm.util.LaneExecutor.Priority;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LaneExecutorTest {
+
+    private static final int CAPACITY = 8;
+
+    private LaneExecutor object;
+    private CountDownLatch blocker;
+
+    @Before
+    public void setUp() {
+        object = new LaneExecutor(Collections.singletonMap(Lane.INTERACTIVE, 1), CAPACITY);
+        blocker = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        blocker.countDown();
+        object.close();
+    }
+
+    private Future<?> block(Lane lane) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> future = object.submit(lane, Priority.NORMAL, () -> {
+            started.countDown();
+            blocker.await();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return future;
+    }
+
+    @Test
+    public void submit_differentPriorities_runsHigherFirst() throws Exception {
+        block(Lane.INTERACTIVE);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        object.submit(Lane.INTERACTIVE, Priority.LOW, () -> order.add("low"));
+        object.submit(Lane.INTERACTIVE, Priority.NORMAL, () -> order.add("normal1"));
+        object.submit(Lane.INTERACTIVE, Priority.HIGH, () -> order.add("high"));
+        Future<?> last = object.submit(Lane.INTERACTIVE, Priority.NORMAL, () -> order.add("normal2"));
+
+        blocker.countDown();
+        object.submit(Lane.INTERACTIVE, Priority.LOW, () -> { }).get(5, TimeUnit.SECONDS);
+
+        assertTrue(last.isDone());
+        assertEquals(Arrays.asList("high", "normal1", "normal2", "low"), order);
+    }
+
+    @Test
+    public void submit_laneFull_rejects() throws Exception {
+        block(Lane.INTERACTIVE);
+        for (int i = 0; i < CAPACITY; i++) {
+            object.submit(Lane.INTERACTIVE, Priority.NORMAL, () -> { });
+        }
+        try {
+            object.submit(Lane.INTERACTIVE, Priority.HIGH, () -> { });
+            fail();
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        assertEquals(1, object.getMetrics(Lane.INTERACTIVE).getRejected());
+    }
+
+    @Test
+    public void submit_laneMostlyFull_rejectsOnlyLowPriority() throws Exception {
+        block(Lane.INTERACTIVE);
+        for (int i = 0; i < CAPACITY * 3 / 4; i++) {
+            object.submit(Lane.INTERACTIVE, Priority.NORMAL, () -> { });
+        }
+        try {
+            object.submit(Lane.INTERACTIVE, Priority.LOW, () -> { });
+            fail();
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        object.submit(Lane.INTERACTIVE, Priority.HIGH, () -> { });
+    }
+
+    @Test
+    public void submit_otherLaneBlocked_runs() throws Exception {
+        block(Lane.NETWORK);
+        Future<?> future = object.submit(Lane.INTERACTIVE, Priority.NORMAL, () -> { });
+        future.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void getMetrics_countsTasks() throws Exception {
+        object.submit(Lane.INTERACTIVE, Priority.NORMAL, () -> { }).get(5, TimeUnit.SECONDS);
+        Future<?> failing = object.submit(Lane.INTERACTIVE, Priority.NORMAL, () -> {
+            throw new IllegalStateException();
+        });
+        try {
+            failing.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (Exception ex) {
+            // expected
+        }
+
+        Metrics metrics = object.getMetrics(Lane.INTERACTIVE);
+        assertEquals(2, metrics.getSubmitted());
+        assertEquals(2, metrics.getCompleted());
+        assertEquals(1, metrics.getFailed());
+        assertEquals(0, metrics.getQueued());
+    }
+}
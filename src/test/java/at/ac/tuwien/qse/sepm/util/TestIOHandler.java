@@ -31,12 +31,14 @@ package at.ac.tuwien.qse.sepm.util;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class TestIOHandler implements IOHandler {
 
-    public List<CopyOperation> copiedFiles = new ArrayList<>();
-    public List<Path> deletedFiles = new ArrayList<>();
+    // Exports copy from multiple threads.
+    public List<CopyOperation> copiedFiles = Collections.synchronizedList(new ArrayList<>());
+    public List<Path> deletedFiles = Collections.synchronizedList(new ArrayList<>());
 
     public void reset() {
         copiedFiles.clear();